@@ -3,6 +3,8 @@ package applications;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 
+import context.CompilationContext;
+
 import parseTree.ParseNode;
 import parseTree.ParseTreePrinter;
 import parser.Parser;
@@ -30,8 +32,9 @@ public class GrouseAbstractSyntaxTree extends GrouseApplication {
 	 * @throws FileNotFoundException 
 	 */
 	public static void parseFileToAST(String filename, PrintStream out) throws FileNotFoundException {
-		Scanner scanner     = LexicalAnalyzer.make(filename);
-		ParseNode syntaxTree    = Parser.parse(scanner);
+		CompilationContext context = new CompilationContext();
+		Scanner scanner     = LexicalAnalyzer.make(context, filename);
+		ParseNode syntaxTree    = Parser.parse(context, scanner);
 		
 		out.print(syntaxTree);
 	}
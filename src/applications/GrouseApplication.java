@@ -3,7 +3,7 @@ package applications;
 import java.io.File;
 
 public class GrouseApplication {
-	private static final int EXIT_CODE_FOR_ERROR = 1;
+	protected static final int EXIT_CODE_FOR_ERROR = 1;
 	private static String outputDirectory = "output/";
 
 	public GrouseApplication() {
@@ -38,6 +38,10 @@ public class GrouseApplication {
 		}
 		outputDirectory = ensureEndsWithSeparator(outputDirectory);
 	}
+	// the directory named on the command line, for applications that pass it on.
+	protected static String getOutputDirectory() {
+		return outputDirectory;
+	}
 
 
 	
@@ -49,7 +53,10 @@ public class GrouseApplication {
 		return (!filePath.endsWith(File.separator));
 	}
 	protected static String outputFilename(String filename) {
-		return outputDirectory + basename(filename) + ".asm";
+		return outputFilename(outputDirectory, filename);
+	}
+	protected static String outputFilename(String directory, String filename) {
+		return ensureEndsWithSeparator(directory) + basename(filename) + ".asm";
 	}
 	// removes preceding directory names and the file extension
 	// e.g. /usr/root/tricks/bigBag.cpp  ->  bigBag
@@ -0,0 +1,256 @@
+package applications;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** Compiles many Grouse files in one JVM, on a pool of worker threads.
+ *  <p>
+ *  The input is a directory, whose .grouse files (in it and below it) are compiled;
+ *  a glob such as "src/**&#47;*.grouse", which should be quoted so the shell leaves it alone;
+ *  or @listfile, a file naming one source file per line.
+ *  <p>
+ *  Each file is compiled as GrouseCompiler.compile would, in a CompilationContext of
+ *  its own, and its .asm goes to the output directory.  A file that has errors, or
+ *  whose compilation throws, does not stop the others.  When all are done, a summary
+ *  gives the result and compile time of each file.
+ */
+public class GrouseBatchCompiler extends GrouseApplication {
+	public static final String BATCH_OPTION = "-batch";
+	private static final String SOURCE_EXTENSION = ".grouse";
+	private static final String LIST_PREFIX = "@";
+	private static final String GLOB_CHARACTERS = "*?[{";
+
+	//     -Dgrouse.threads=N         compiles on N worker threads.  The default is one per processor.
+	private static final String THREADS_PROPERTY = "grouse.threads";
+
+	public enum Status {
+		OK("ok"), ERRORS("errors"), FAILED("failed");
+
+		private final String label;
+		private Status(String label) {
+			this.label = label;
+		}
+	}
+	/** The outcome of compiling one file. */
+	public static class Result {
+		private final String filename;
+		private final Status status;
+		private final String detail;
+		private final long nanos;
+
+		Result(String filename, Status status, String detail, long nanos) {
+			this.filename = filename;
+			this.status = status;
+			this.detail = detail;
+			this.nanos = nanos;
+		}
+		public String getFilename() {
+			return filename;
+		}
+		public Status getStatus() {
+			return status;
+		}
+	}
+
+	/** Compiles every file named by the input.
+	 *  usage: GrouseCompiler -batch (directory | glob | @listfile) [target output directory]
+	 *  Exits with status 1 if any file had errors or could not be compiled.
+	 * @param args the arguments after -batch.
+	 */
+	public static void main(String[] args) {
+		if(!correctNumArguments(args)) {
+			printBatchUsageMessage("");
+		}
+		List<String> filenames = null;
+		try {
+			filenames = sourceFilenames(args[0]);
+		}
+		catch(IOException e) {
+			printBatchUsageMessage("Cannot read input: " + e.getMessage());
+		}
+		if(filenames.isEmpty()) {
+			printBatchUsageMessage("No source files found.");
+		}
+		ensureTargetDirectoryExists(args, className());
+
+		int threads = Math.max(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()), 1);
+		long startTime = System.nanoTime();
+		List<Result> results = compileAll(filenames, getOutputDirectory(), threads);
+		long elapsed = System.nanoTime() - startTime;
+
+		if(!printSummary(results, threads, elapsed, System.out)) {
+			System.exit(EXIT_CODE_FOR_ERROR);
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////
+	// inputs
+
+	// the source files named by input, in order: a list file's order, otherwise sorted.
+	public static List<String> sourceFilenames(String input) throws IOException {
+		if(input.startsWith(LIST_PREFIX)) {
+			return listedFilenames(input.substring(LIST_PREFIX.length()));
+		}
+		if(isGlob(input)) {
+			PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+			return filesBelow(globBase(input), matcher::matches);
+		}
+		if(directoryExists(input)) {
+			return filesBelow(Paths.get(input), path -> path.toString().endsWith(SOURCE_EXTENSION));
+		}
+		List<String> result = new ArrayList<String>();
+		result.add(input);
+		return result;
+	}
+	private static List<String> listedFilenames(String listFilename) throws IOException {
+		List<String> result = new ArrayList<String>();
+		for(String line: Files.readAllLines(Paths.get(listFilename), Charset.defaultCharset())) {
+			if(!line.trim().isEmpty()) {
+				result.add(line.trim());
+			}
+		}
+		return result;
+	}
+	private static boolean isGlob(String input) {
+		for(char c: GLOB_CHARACTERS.toCharArray()) {
+			if(input.indexOf(c) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	// the directories of a glob before its first segment with a wildcard: the only
+	// directory that all of its matches can be under.
+	private static Path globBase(String glob) {
+		StringBuilder base = new StringBuilder();
+		for(String segment: glob.split("[/\\\\]", -1)) {
+			if(isGlob(segment)) {
+				break;
+			}
+			base.append(segment).append('/');
+		}
+		return Paths.get(base.toString());
+	}
+	private static List<String> filesBelow(Path directory, Predicate<Path> filter) throws IOException {
+		if(!Files.isDirectory(directory)) {
+			return new ArrayList<String>();
+		}
+		try(Stream<Path> paths = Files.walk(directory)) {
+			return paths.filter(path -> Files.isRegularFile(path) && filter.test(path))
+					.map(Path::toString)
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////
+	// compiling
+
+	/** Compiles the files on a pool of worker threads, and writes their .asm files to outputDirectory.
+	 *  The directory is only passed down to the compilations, so batches with different
+	 *  directories may run at the same time.
+	 * @return the results, in the order of filenames.
+	 */
+	public static List<Result> compileAll(List<String> filenames, String outputDirectory, int threads) {
+		if(!makeDirectoryIfNecessary(outputDirectory)) {
+			throw new IllegalArgumentException("cannot create output directory " + outputDirectory);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		Set<String> outputs = new HashSet<String>();
+		for(String filename: filenames) {
+			String outfile = outputFilename(outputDirectory, filename);
+			boolean sharesOutput = !outputs.add(outfile);
+			futures.add(pool.submit(() -> sharesOutput ?
+					new Result(filename, Status.FAILED, "same output file as an earlier input", 0) :
+					compileOne(filename, outfile)));
+		}
+		pool.shutdown();
+
+		List<Result> results = new ArrayList<Result>();
+		for(int i = 0; i < futures.size(); i++) {
+			try {
+				results.add(futures.get(i).get());
+			}
+			catch(InterruptedException | ExecutionException e) {
+				String filename = filenames.get(i);
+				results.add(failure(filename, outputFilename(outputDirectory, filename), e, 0));
+			}
+		}
+		return results;
+	}
+	// every failure is reported.  Errors that leave the JVM unfit to go on are not caught
+	// here, and compileAll reports them when the pool hands them back; a deep program
+	// overflowing the stack is not one of them.
+	private static Result compileOne(String filename, String outfile) {
+		long startTime = System.nanoTime();
+		try {
+			int numMessages = GrouseCompiler.compileInNewContext(filename, outfile);
+			Status status = (numMessages == 0) ? Status.OK : Status.ERRORS;
+			String detail = (numMessages == 0) ? "" : numMessages + (numMessages == 1 ? " message" : " messages");
+			return new Result(filename, status, detail, System.nanoTime() - startTime);
+		}
+		catch(StackOverflowError e) {
+			return failure(filename, outfile, e, System.nanoTime() - startTime);
+		}
+		catch(VirtualMachineError e) {
+			throw e;
+		}
+		catch(Throwable e) {
+			return failure(filename, outfile, e, System.nanoTime() - startTime);
+		}
+	}
+	// a compilation that throws leaves no .asm file, as one with errors does.
+	private static Result failure(String filename, String outfile, Throwable thrown, long nanos) {
+		GrouseCompiler.removeOldASMFile(outfile);
+		return new Result(filename, Status.FAILED, thrown.toString(), nanos);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////
+	// summary
+
+	/** Prints the result of each file, then the number of files with each result.
+	 * @return true if every file compiled without errors.
+	 */
+	public static boolean printSummary(List<Result> results, int threads, long elapsed, PrintStream out) {
+		int[] counts = new int[Status.values().length];
+		long compileTime = 0;
+		for(Result result: results) {
+			counts[result.status.ordinal()]++;
+			compileTime += result.nanos;
+			out.printf("%10.3f ms  %-6s  %s%s%n", result.nanos / 1e6, result.status.label,
+					result.filename, result.detail.isEmpty() ? "" : ": " + result.detail);
+		}
+		out.printf("%d files on %d threads in %.3f s (%.3f s compiling): %d ok, %d with errors, %d failed.%n",
+				results.size(), threads, elapsed / 1e9, compileTime / 1e9,
+				counts[Status.OK.ordinal()], counts[Status.ERRORS.ordinal()], counts[Status.FAILED.ordinal()]);
+		return counts[Status.OK.ordinal()] == results.size();
+	}
+
+	private static void printBatchUsageMessage(String errorMessage) {
+		System.err.println("usage: GrouseCompiler " + BATCH_OPTION +
+				" (directory | glob | " + LIST_PREFIX + "listfile) [target output directory]");
+		System.err.println(errorMessage);
+		System.exit(EXIT_CODE_FOR_ERROR);
+	}
+}
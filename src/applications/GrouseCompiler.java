@@ -2,63 +2,119 @@ package applications;
 
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
 
 import asmCodeGenerator.ASMCodeGenerator;
 import asmCodeGenerator.codeStorage.ASMCodeFragment;
+import asmCodeGenerator.codeStorage.ASMPeepholeOptimizer;
+import asmCodeGenerator.codeStorage.ASMPeepholeOptimizer.Rule;
+import context.CompilationContext;
 import lexicalAnalyzer.LexicalAnalyzer;
-import lexicalAnalyzer.Scanner;
+import lexicalAnalyzer.ParallelLexicalAnalyzer;
+import lexicalAnalyzer.TokenBuffer;
 import parseTree.ParseNode;
 import parser.Parser;
 import semanticAnalyzer.SemanticAnalyzer;
 import tokens.Tokens;
 
 public class GrouseCompiler extends GrouseApplication {
-	/** Compiles a Grouse file.
+	/** Compiles a Grouse file, or with -batch, many of them (see GrouseBatchCompiler).
 	 * @param args
-	 * @throws FileNotFoundException 
+	 * @throws IOException 
 	 */
-	public static void main(String[] args) throws FileNotFoundException {
+	public static void main(String[] args) throws IOException {
+		Tokens.setPrintLevel(Tokens.Level.FULL);
+		if(args.length > 0 && args[0].equals(GrouseBatchCompiler.BATCH_OPTION)) {
+			GrouseBatchCompiler.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		checkArguments(args, className());
 		
-		Tokens.setPrintLevel(Tokens.Level.FULL);
 		compile(args[0]);
 	}
 	
 	/** analyzes a file specified by filename.
+	 * The compilation has a CompilationContext of its own, so other threads may be
+	 * compiling other files at the same time.
 	 * @param filename the name of the file to be analyzed.
-	 * @throws FileNotFoundException 
+	 * @throws IOException 
+	 */
+	public static void compile(String filename) throws IOException {
+		if(compileInNewContext(filename, outputFilename(filename)) == 0) {
+			System.out.println("Executable created!");
+		}
+		else {
+			informUserNoCodeGenerated();
+		}
+	}
+	/** compiles a file to outfile without telling the user the outcome.
+	 * @return the number of messages logged.  outfile is written only if there were none.
 	 */
-	public static void compile(String filename) throws FileNotFoundException {
-		Scanner scanner         = LexicalAnalyzer.make(filename);
-		ParseNode syntaxTree    = Parser.parse(scanner);
-		ParseNode decoratedTree = SemanticAnalyzer.analyze(syntaxTree);
+	static int compileInNewContext(String filename, String outfile) throws IOException {
+		CompilationContext context = new CompilationContext();
+		compile(context, filename, outfile);
+		return context.getNumMessages();
+	}
+	private static void compile(CompilationContext context, String filename, String outfile) throws IOException {
+		long startTime          = System.nanoTime();
+		TokenBuffer tokens      = lex(context, filename);
+		long lexedTime          = System.nanoTime();
+		Parser parser           = new Parser(context, tokens);
+		ParseNode syntaxTree    = parser.parse();
+		reportTimes(lexedTime - startTime, System.nanoTime() - lexedTime);
+		
+		// the parser recovers from syntax errors to report them all, but the tree it
+		// leaves has error nodes in it, so it is not analyzed.
+		ParseNode decoratedTree = syntaxTree;
+		if(!parser.foundSyntaxErrors()) {
+			decoratedTree       = SemanticAnalyzer.analyze(context, syntaxTree);
+			decoratedTree       = SemanticAnalyzer.foldConstants(context, decoratedTree);
+		}
 
-		generateCodeIfNoErrors(filename, decoratedTree);
+		generateCodeIfNoErrors(context, outfile, decoratedTree);
 	}
 
-	private static void generateCodeIfNoErrors(String filename, ParseNode decoratedTree)
-			throws FileNotFoundException {
-		String outfile = outputFilename(filename);
-		
-		if(thereAreErrors()) {
+	// lexing.  The whole file is lexed into a TokenBuffer before parsing starts.
+	//     -Dgrouse.lexer=parallel lexes it in segments on the common ForkJoinPool; the tokens
+	//                                and lexical errors are the same as with the default
+	//                                sequential lexer.
+	//     -Dgrouse.timing=true       prints the time taken to lex and to parse.
+	private static final String LEXER_PROPERTY = "grouse.lexer";
+	private static final String TIMING_PROPERTY = "grouse.timing";
+	
+	private static TokenBuffer lex(CompilationContext context, String filename) {
+		if(System.getProperty(LEXER_PROPERTY, "sequential").equalsIgnoreCase("parallel")) {
+			return ParallelLexicalAnalyzer.tokenize(context, filename);
+		}
+		return LexicalAnalyzer.make(context, filename).tokenize();
+	}
+	private static void reportTimes(long lexingNanos, long parsingNanos) {
+		if(Boolean.getBoolean(TIMING_PROPERTY)) {
+			System.out.printf("lexing: %.3f ms, parsing: %.3f ms%n", lexingNanos / 1e6, parsingNanos / 1e6);
+		}
+	}
+
+	private static void generateCodeIfNoErrors(CompilationContext context, String outfile, ParseNode decoratedTree)
+			throws IOException {
+		if(context.hasErrors()) {
 			stopProcessing(outfile);
 		}  
 		else {
-			generateAndPrintCode(outfile, decoratedTree);
+			generateAndPrintCode(context, outfile, decoratedTree);
 		}
 	}
 
-	// stopProcessing -- inform user and clean up.
+	// stopProcessing -- clean up.
 	private static void stopProcessing(String outfile) {
-		informUserNoCodeGenerated();
 		removeOldASMFile(outfile);
 	}
 	private static void informUserNoCodeGenerated() {
 		System.err.println("program has errors.  no executable created.");
 	}
-	private static void removeOldASMFile(String filename) {
+	static void removeOldASMFile(String filename) {
 		File file = new File(filename);
 		if(file.exists()) {
 			file.delete();
@@ -66,23 +122,57 @@ public class GrouseCompiler extends GrouseApplication {
 	}
 	
 	// normal code generation.
-	private static void generateAndPrintCode(String outfile, ParseNode decoratedTree) 
-			throws FileNotFoundException {
-		ASMCodeFragment code = ASMCodeGenerator.generate(decoratedTree);
+	private static void generateAndPrintCode(CompilationContext context, String outfile, ParseNode decoratedTree) 
+			throws IOException {
+		ASMCodeFragment code = ASMCodeGenerator.generate(context, decoratedTree);
+		code = optimize(code);
 		printCodeToFile(outfile, code);
 	}
+	
+	// peephole optimization.  All rules are on by default;
+	//     -Dgrouse.peephole=none                 turns them off,
+	//     -Dgrouse.peephole=RULE,RULE,...        enables only the named ASMPeepholeOptimizer.Rules,
+	//     -Dgrouse.peephole.report=true          prints how many instructions each rule removed.
+	private static final String PEEPHOLE_PROPERTY = "grouse.peephole";
+	private static final String PEEPHOLE_REPORT_PROPERTY = "grouse.peephole.report";
+	
+	private static ASMCodeFragment optimize(ASMCodeFragment code) {
+		EnumSet<Rule> rules = peepholeRules(System.getProperty(PEEPHOLE_PROPERTY, "all"));
+		if(rules.isEmpty()) {
+			return code;
+		}
+		ASMPeepholeOptimizer optimizer = new ASMPeepholeOptimizer(rules);
+		ASMCodeFragment result = optimizer.optimize(code);
+		if(Boolean.getBoolean(PEEPHOLE_REPORT_PROPERTY)) {
+			System.out.print(optimizer.report());
+		}
+		return result;
+	}
+	private static EnumSet<Rule> peepholeRules(String setting) {
+		if(setting.equalsIgnoreCase("all")) {
+			return EnumSet.allOf(Rule.class);
+		}
+		EnumSet<Rule> result = EnumSet.noneOf(Rule.class);
+		if(setting.equalsIgnoreCase("none")) {
+			return result;
+		}
+		for(String name: setting.split(",")) {
+			try {
+				result.add(Rule.valueOf(name.trim().toUpperCase()));
+			}
+			catch(IllegalArgumentException e) {
+				System.err.println("unknown peephole rule " + name.trim() + " ignored.");
+			}
+		}
+		return result;
+	}
 	private static void printCodeToFile(String filename, ASMCodeFragment code)
-			throws FileNotFoundException {
+			throws IOException {
 		File file = new File(filename);
-		PrintStream out = new PrintStream(file);
 		//Print the ASM code to console
 		//System.out.println(code);
-		System.out.println("Executable created!");
-		out.print(code);
-		out.close();
-	}
-
-	private static boolean thereAreErrors() {
-		return logging.GrouseLogger.hasErrors();
+		try(FileOutputStream out = new FileOutputStream(file)) {
+			code.writeTo(out.getChannel());
+		}
 	}
 }
@@ -0,0 +1,81 @@
+package applications;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+import context.CompilationContext;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.ParallelLexicalAnalyzer;
+import lexicalAnalyzer.Scanner;
+
+public class GrouseLexerBenchmark extends GrouseApplication {
+	private static final int WARMUP_PASSES = 20;
+	private static final int DEFAULT_PASSES = 200;
+
+	// lexes a file; returns the number of tokens.
+	private interface Lexer {
+		int lex(String filename);
+	}
+
+	/** Measures lexer throughput on a Grouse file, in megabytes of source per second.  Each pass
+	 *  reads the file in a CompilationContext of its own, as a compilation would.
+	 *  Measures a LexicalAnalyzer used as a Scanner and filling a TokenBuffer, and, given a
+	 *  thread count, ParallelLexicalAnalyzer with 1, 2, 4, ... threads, up to that count.
+	 *  usage: GrouseLexerBenchmark filename [number of timed passes [maximum threads]]
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if(args.length < 1 || args.length > 3 || !fileExists(args[0])) {
+			System.err.println("usage: " + className() + " filename [number of timed passes [maximum threads]]");
+			System.exit(1);
+		}
+		String filename = args[0];
+		int passes = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_PASSES;
+		int maxThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+
+		measure(filename, passes, "scanner", GrouseLexerBenchmark::scanFile);
+		measure(filename, passes, "token buffer", name -> LexicalAnalyzer.make(new CompilationContext(), name).tokenize().size() - 1);
+		if(maxThreads > 0) {
+			System.out.printf("%d processors available%n", Runtime.getRuntime().availableProcessors());
+		}
+		for(int threads = 1; threads <= maxThreads; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			measure(filename, passes, "parallel, " + threads + " threads",
+					name -> lexInParallel(name, pool));
+			pool.shutdown();
+		}
+	}
+
+	private static void measure(String filename, int passes, String label, Lexer lexer) {
+		for(int i = 0; i < WARMUP_PASSES; i++) {
+			lexer.lex(filename);
+		}
+		int tokens = 0;
+		long startTime = System.nanoTime();
+		for(int i = 0; i < passes; i++) {
+			tokens += lexer.lex(filename);
+		}
+		long elapsed = System.nanoTime() - startTime;
+
+		double megabytes = (double)new File(filename).length() * passes / (1 << 20);
+		double seconds = elapsed / 1e9;
+		System.out.printf("%s (%s): %d passes, %d tokens per pass, %.2f MB/s, %.0f ns per token%n",
+				filename, label, passes, tokens / passes, megabytes / seconds, (double)elapsed / tokens);
+	}
+
+	// these return the number of tokens in the file, not counting the final NullToken.
+	private static int lexInParallel(String filename, ForkJoinPool pool) {
+		CompilationContext context = new CompilationContext();
+		return ParallelLexicalAnalyzer.tokenize(context, SourceBuffer.fromFilename(context, filename), pool).size() - 1;
+	}
+	private static int scanFile(String filename) {
+		Scanner scanner = LexicalAnalyzer.make(new CompilationContext(), filename);
+		int count = 0;
+		while(scanner.hasNext()) {
+			scanner.next();
+			count++;
+		}
+		return count;
+	}
+}
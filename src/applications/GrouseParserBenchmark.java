@@ -0,0 +1,99 @@
+package applications;
+
+import java.util.Random;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.TokenBuffer;
+import parser.Parser;
+
+public class GrouseParserBenchmark extends GrouseApplication {
+	private static final int WARMUP_PASSES = 20;
+	private static final int DEFAULT_PASSES = 200;
+	private static final String GENERATE_OPTION = "-expressions";
+
+	private static final String[] BINARY_OPERATORS = { "||", "&&", "<", "==", ">=", "+", "-", "*", "/" };
+	private static final String[] OPERANDS = { "a", "b", "c", "1", "2.5", "true", "\"s\"", "|a|", "a[1]" };
+
+	/** Measures parser speed on a Grouse file, in nanoseconds per token.  Each pass lexes the
+	 *  file into a TokenBuffer, which is not timed, and parses it, which is.
+	 *  With -expressions, parses a generated program of that many statements, each
+	 *  assigning a long expression.
+	 *  usage: GrouseParserBenchmark (filename | -expressions number of statements) [number of timed passes]
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		boolean generate = args.length >= 2 && args[0].equals(GENERATE_OPTION);
+		int firstOption = generate ? 2 : 1;
+		if(args.length < firstOption || args.length > firstOption + 1 || !(generate || fileExists(args[0]))) {
+			System.err.println("usage: " + className() +
+					" (filename | " + GENERATE_OPTION + " number of statements) [number of timed passes]");
+			System.exit(1);
+		}
+		CompilationContext context = new CompilationContext();
+		SourceBuffer source = generate ?
+				SourceBuffer.fromString(context, "generated", expressionProgram(Integer.parseInt(args[1]))) :
+				SourceBuffer.fromFilename(context, args[0]);
+		int passes = (args.length > firstOption) ? Integer.parseInt(args[firstOption]) : DEFAULT_PASSES;
+
+		for(int i = 0; i < WARMUP_PASSES; i++) {
+			Parser.parse(context, lex(context, source));
+		}
+		int tokens = 0;
+		long elapsed = 0;
+		for(int i = 0; i < passes; i++) {
+			TokenBuffer buffer = lex(context, source);
+			long startTime = System.nanoTime();
+			Parser.parse(context, buffer);
+			elapsed += System.nanoTime() - startTime;
+			tokens += buffer.size();
+		}
+
+		System.out.printf("%s: %d passes, %d tokens per pass, %.3f ms per pass, %.0f ns per token%n",
+				source.fileName(), passes, tokens / passes, elapsed / 1e6 / passes, (double)elapsed / tokens);
+	}
+
+	private static TokenBuffer lex(CompilationContext context, SourceBuffer source) {
+		return new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize();
+	}
+
+	// a program of var declarations with expressions of 32 operands, some parenthesized,
+	// some with a unary operator or a cast.
+	private static String expressionProgram(int statements) {
+		Random random = new Random(statements);
+		StringBuilder result = new StringBuilder("tuple t (int x);\nmain {\n");
+		for(int i = 0; i < statements; i++) {
+			result.append("\tvar v").append(i).append(" := ");
+			appendExpression(result, random, 32);
+			result.append(";\n");
+		}
+		return result.append("}\n").toString();
+	}
+	private static void appendExpression(StringBuilder result, Random random, int operands) {
+		if(operands > 4 && random.nextInt(4) == 0) {
+			int left = operands / 2;
+			result.append("(");
+			appendExpression(result, random, left);
+			result.append(") ").append(pick(BINARY_OPERATORS, random)).append(" ");
+			appendExpression(result, random, operands - left);
+			return;
+		}
+		for(int i = 0; i < operands; i++) {
+			if(i > 0) {
+				result.append(" ").append(pick(BINARY_OPERATORS, random)).append(" ");
+			}
+			if(random.nextInt(8) == 0) {
+				result.append("!");
+			}
+			result.append(pick(OPERANDS, random));
+			if(random.nextInt(8) == 0) {
+				result.append(" : int");
+			}
+		}
+	}
+	private static String pick(String[] choices, Random random) {
+		return choices[random.nextInt(choices.length)];
+	}
+}
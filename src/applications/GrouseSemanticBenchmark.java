@@ -0,0 +1,88 @@
+package applications;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.TokenBuffer;
+import parseTree.ParseNode;
+import parser.Parser;
+import semanticAnalyzer.SemanticAnalyzer;
+
+public class GrouseSemanticBenchmark extends GrouseApplication {
+	private static final int WARMUP_PASSES = 20;
+	private static final int DEFAULT_PASSES = 100;
+	private static final String GENERATE_OPTION = "-groups";
+
+	/** Measures semantic analysis speed on a Grouse file, in nanoseconds per token.  Each pass
+	 *  lexes and parses the file, which is not timed, and analyzes the tree, which is.
+	 *  With -groups, analyzes a generated program of that many groups of statements, each
+	 *  building and comparing arrays nested up to three deep, of ints and of tuples.
+	 *  usage: GrouseSemanticBenchmark (filename | -groups number of groups) [number of timed passes]
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		boolean generate = args.length >= 2 && args[0].equals(GENERATE_OPTION);
+		int firstOption = generate ? 2 : 1;
+		if(args.length < firstOption || args.length > firstOption + 1 || !(generate || fileExists(args[0]))) {
+			System.err.println("usage: " + className() +
+					" (filename | " + GENERATE_OPTION + " number of groups) [number of timed passes]");
+			System.exit(1);
+		}
+		CompilationContext context = new CompilationContext();
+		SourceBuffer source = generate ?
+				SourceBuffer.fromString(context, "generated", typeHeavyProgram(Integer.parseInt(args[1]))) :
+				SourceBuffer.fromFilename(context, args[0]);
+		int passes = (args.length > firstOption) ? Integer.parseInt(args[firstOption]) : DEFAULT_PASSES;
+
+		// a tree with syntax errors has error nodes in it, which the analyzer cannot take.
+		Parser parser = new Parser(context, lex(context, source));
+		parser.parse();
+		if(parser.foundSyntaxErrors()) {
+			System.err.println(source.fileName() + " has syntax errors.");
+			System.exit(1);
+		}
+		for(int i = 0; i < WARMUP_PASSES; i++) {
+			SemanticAnalyzer.analyze(context, Parser.parse(context, lex(context, source)));
+		}
+		int tokens = 0;
+		long elapsed = 0;
+		for(int i = 0; i < passes; i++) {
+			TokenBuffer buffer = lex(context, source);
+			ParseNode tree = Parser.parse(context, buffer);
+			long startTime = System.nanoTime();
+			SemanticAnalyzer.analyze(context, tree);
+			elapsed += System.nanoTime() - startTime;
+			tokens += buffer.size();
+		}
+
+		System.out.printf("%s: %d passes, %d tokens per pass, %.3f ms per pass, %.0f ns per token%n",
+				source.fileName(), passes, tokens / passes, elapsed / 1e6 / passes, (double)elapsed / tokens);
+	}
+
+	private static TokenBuffer lex(CompilationContext context, SourceBuffer source) {
+		return new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize();
+	}
+
+	// every group declares [[int]], [[[int]]], [point] and [[point]] values and compares
+	// them, so most operator lookups match array types against array types.
+	private static String typeHeavyProgram(int groups) {
+		StringBuilder result = new StringBuilder(
+				"tuple point (int x, int y);\n" +
+				"tuple shape ([point] corners, [[int]] grid, [[[float]]] cells, string name);\n" +
+				"main {\n");
+		for(int i = 0; i < groups; i++) {
+			String n = Integer.toString(i);
+			result.append("\tvar g" + n + " := fresh [[int]](3);\n");
+			result.append("\tvar f" + n + " := [[[1.5], [2.5]], fresh [[float]](2)];\n");
+			result.append("\tvar p" + n + " := fresh point(" + n + ", 2);\n");
+			result.append("\tvar s" + n + " := fresh shape([p" + n + ", p" + n + "], g" + n + ", f" + n + ", \"s\");\n");
+			result.append("\tvar a" + n + " := [g" + n + ", s" + n + ".grid, [[1, 2], [" + n + "]]];\n");
+			result.append("\tvar b" + n + " := [[p" + n + "], s" + n + ".corners];\n");
+			result.append("\tvar c" + n + " := (a" + n + " == [g" + n + "]) && (g" + n + " != s" + n + ".grid)" +
+					" && (|b" + n + "[0]| == |s" + n + ".corners|) && (a" + n + "[1][0] == g" + n + "[2])" +
+					" && (s" + n + ".cells[0] == f" + n + "[1]) && (b" + n + "[1] != [p" + n + "]);\n");
+		}
+		return result.append("}\n").toString();
+	}
+}
@@ -3,6 +3,7 @@ package applications;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 
+import context.CompilationContext;
 import lexicalAnalyzer.LexicalAnalyzer;
 import lexicalAnalyzer.Scanner;
 import parseTree.ParseNode;
@@ -26,16 +27,25 @@ public class GrouseSemanticChecker extends GrouseApplication {
 	}
 	
 	/** analyzes a file specified by filename and prints
-	 *  a decorated syntax tree for the file.
+	 *  a decorated syntax tree for the file.  A file with syntax errors is not
+	 *  analyzed, and its syntax tree is printed undecorated.
 	 *  
 	 * @param filename the name of the file to be analyzed.
 	 * @param out the PrintStream to print the decorated tree to.
 	 * @throws FileNotFoundException 
 	 */
 	public static void checkFileSemantics(String filename, PrintStream out) throws FileNotFoundException {
-		Scanner scanner         = LexicalAnalyzer.make(filename);
-		ParseNode syntaxTree    = Parser.parse(scanner);
-		ParseNode decoratedTree = SemanticAnalyzer.analyze(syntaxTree);
+		CompilationContext context = new CompilationContext();
+		Scanner scanner         = LexicalAnalyzer.make(context, filename);
+		Parser parser           = new Parser(context, scanner);
+		ParseNode syntaxTree    = parser.parse();
+		
+		// the tree the parser recovers from syntax errors with has error nodes in it.
+		if(parser.foundSyntaxErrors()) {
+			out.print(syntaxTree);
+			return;
+		}
+		ParseNode decoratedTree = SemanticAnalyzer.analyze(context, syntaxTree);
 		
 		out.print(decoratedTree);
 	}
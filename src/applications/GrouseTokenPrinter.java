@@ -3,6 +3,7 @@ package applications;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 
+import context.CompilationContext;
 import tokens.Token;
 import tokens.Tokens;
 
@@ -28,7 +29,7 @@ public class GrouseTokenPrinter extends GrouseApplication {
 	 * @throws FileNotFoundException 
 	 */
 	public static void scanFile(String filename, PrintStream out) throws FileNotFoundException {
-		Scanner scanner = LexicalAnalyzer.make(filename);
+		Scanner scanner = LexicalAnalyzer.make(new CompilationContext(), filename);
 		
 		while(scanner.hasNext()) {
 			printNextToken(out, scanner);
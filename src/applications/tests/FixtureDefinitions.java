@@ -15,4 +15,6 @@ public class FixtureDefinitions {
 
 	public static final String SEMANTIC_INPUT_FILENAME          = FIXTURE_DIRECTORY + "coinTest.grouse";
 	public static final String SEMANTIC_EXPECTED_FILENAME       = FIXTURE_DIRECTORY + "coinTestSemantics.txt";
+	public static final String SYNTAX_ERRORS_INPUT_FILENAME     = FIXTURE_DIRECTORY + "syntaxErrors.grouse";
+	public static final String TUPLE_PROGRAM_FILENAME           = FIXTURE_DIRECTORY + "tupleProgram.grouse";
 }
@@ -0,0 +1,182 @@
+package applications.tests;
+
+import static applications.tests.FixtureDefinitions.FIXTURE_DIRECTORY;
+import static applications.tests.FixtureDefinitions.SYNTAX_ERRORS_INPUT_FILENAME;
+import static applications.tests.FixtureDefinitions.TUPLE_PROGRAM_FILENAME;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import tests.FileFixturesTestCase;
+import applications.GrouseBatchCompiler;
+import applications.GrouseBatchCompiler.Result;
+import applications.GrouseBatchCompiler.Status;
+
+public class TestBatchCompiler extends FileFixturesTestCase {
+	private static final String SOURCE = FIXTURE_DIRECTORY + "coinTest.grouse";
+	private static final String OTHER_SOURCE = FIXTURE_DIRECTORY + "sampleFile.txt";
+	private static final int THREADS = 4;
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("grouse-batch").toFile();
+	}
+	@Override
+	protected void tearDown() throws Exception {
+		delete(directory);
+		super.tearDown();
+	}
+
+	public void testDirectoryGivesItsSourceFiles() throws IOException {
+		assertEquals(Arrays.asList(SOURCE, SYNTAX_ERRORS_INPUT_FILENAME, TUPLE_PROGRAM_FILENAME),
+				GrouseBatchCompiler.sourceFilenames(FIXTURE_DIRECTORY));
+	}
+
+	public void testGlobMatchesBelowItsBase() throws IOException {
+		assertEquals(Arrays.asList(SOURCE, SYNTAX_ERRORS_INPUT_FILENAME, TUPLE_PROGRAM_FILENAME),
+				GrouseBatchCompiler.sourceFilenames(FIXTURE_DIRECTORY + "*.grouse"));
+		String fixtureParent = new File(FIXTURE_DIRECTORY).getParent();
+		assertEquals(Arrays.asList(SOURCE), GrouseBatchCompiler.sourceFilenames(fixtureParent + "/**/coin*.grouse"));
+		assertTrue(GrouseBatchCompiler.sourceFilenames(FIXTURE_DIRECTORY + "*.none").isEmpty());
+	}
+
+	public void testListFileKeepsItsOrder() throws IOException {
+		File list = File.createTempFile("grouse", ".list");
+		try {
+			try(FileWriter writer = new FileWriter(list)) {
+				writer.write(OTHER_SOURCE + "\n\n  " + SOURCE + "\n");
+			}
+			assertEquals(Arrays.asList(OTHER_SOURCE, SOURCE), GrouseBatchCompiler.sourceFilenames("@" + list.getPath()));
+		}
+		finally {
+			list.delete();
+		}
+	}
+
+	// a file with errors and one that cannot be read leave no .asm, not even an old one.
+	public void testBadFileDoesNotStopOthers() throws IOException {
+		File output = new File(directory, "output");
+		List<String> filenames = mixedFilenames();
+		output.mkdirs();
+		writeFile(new File(output, "syntaxErrors.asm"), "old");
+		writeFile(new File(output, "missing.asm"), "old");
+
+		List<Result> results = GrouseBatchCompiler.compileAll(filenames, output.getPath(), THREADS);
+
+		assertEquals(Arrays.asList(Status.OK, Status.ERRORS, Status.FAILED, Status.OK), statuses(results));
+		assertEquals(filenames.get(2), results.get(2).getFilename());
+		assertTrue(new File(output, "coinTest.asm").exists());
+		assertFalse(new File(output, "syntaxErrors.asm").exists());
+		assertFalse(new File(output, "missing.asm").exists());
+		assertTrue(new File(output, "tupleProgram.asm").exists());
+	}
+
+	public void testSummaryCountsEachResult() throws IOException {
+		List<Result> results = GrouseBatchCompiler.compileAll(mixedFilenames(), outputPath("mixed"), THREADS);
+
+		ByteArrayOutputStream summary = new ByteArrayOutputStream();
+		assertFalse(GrouseBatchCompiler.printSummary(results, THREADS, 0, new PrintStream(summary, true)));
+		assertTrue(summary.toString().contains("4 files on 4 threads"));
+		assertTrue(summary.toString().contains(": 2 ok, 1 with errors, 1 failed."));
+
+		results = GrouseBatchCompiler.compileAll(Arrays.asList(SOURCE, TUPLE_PROGRAM_FILENAME), outputPath("good"), THREADS);
+		summary = new ByteArrayOutputStream();
+		assertTrue(GrouseBatchCompiler.printSummary(results, THREADS, 0, new PrintStream(summary, true)));
+		assertTrue(summary.toString().contains(": 2 ok, 0 with errors, 0 failed."));
+	}
+
+	// files compiled at once on several threads get the .asm each gets compiled alone.
+	public void testSameOutputAsSequential() throws IOException {
+		List<String> filenames = new ArrayList<String>();
+		for(int i = 0; i < 3; i++) {
+			filenames.add(copyOf(SOURCE, "coin" + i));
+			filenames.add(copyOf(TUPLE_PROGRAM_FILENAME, "tuples" + i));
+		}
+		String sequential = outputPath("sequential");
+		String parallel = outputPath("parallel");
+		List<Result> sequentialResults = GrouseBatchCompiler.compileAll(filenames, sequential, 1);
+		List<Result> parallelResults = GrouseBatchCompiler.compileAll(filenames, parallel, THREADS);
+
+		assertEquals(statuses(sequentialResults), statuses(parallelResults));
+		for(String filename: filenames) {
+			String asm = new File(filename).getName().replace(".grouse", ".asm");
+			assertEquals(filename, getContents(sequential + File.separator + asm), getContents(parallel + File.separator + asm));
+		}
+		for(Result result: parallelResults) {
+			assertSame(result.getFilename(), Status.OK, result.getStatus());
+		}
+	}
+
+	// each batch writes to its own directory while the other runs.
+	public void testConcurrentBatchesKeepTheirDirectories() throws Exception {
+		List<String> filenames = Arrays.asList(SOURCE, TUPLE_PROGRAM_FILENAME);
+		List<String> directories = Arrays.asList(outputPath("first"), outputPath("second"));
+		ExecutorService pool = Executors.newFixedThreadPool(directories.size());
+		try {
+			List<Future<List<Result>>> batches = new ArrayList<Future<List<Result>>>();
+			for(String output: directories) {
+				batches.add(pool.submit(() -> GrouseBatchCompiler.compileAll(filenames, output, THREADS)));
+			}
+			for(Future<List<Result>> batch: batches) {
+				batch.get();
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		for(String output: directories) {
+			for(String filename: filenames) {
+				String asm = new File(filename).getName().replace(".grouse", ".asm");
+				assertTrue(output + File.separator + asm, new File(output, asm).exists());
+			}
+		}
+	}
+
+	// a good file, one with errors, one that does not exist, and another good one.
+	private List<String> mixedFilenames() {
+		return Arrays.asList(SOURCE, SYNTAX_ERRORS_INPUT_FILENAME,
+				new File(directory, "missing.grouse").getPath(), TUPLE_PROGRAM_FILENAME);
+	}
+	private String copyOf(String filename, String name) throws IOException {
+		File file = new File(directory, name + ".grouse");
+		writeFile(file, getContents(filename));
+		return file.getPath();
+	}
+	private String outputPath(String name) {
+		return new File(directory, name).getPath();
+	}
+	private static void writeFile(File file, String contents) throws IOException {
+		try(FileWriter writer = new FileWriter(file)) {
+			writer.write(contents);
+		}
+	}
+	private static List<Status> statuses(List<Result> results) {
+		List<Status> statuses = new ArrayList<Status>();
+		for(Result result: results) {
+			statuses.add(result.getStatus());
+		}
+		return statuses;
+	}
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child: children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -2,6 +2,7 @@ package applications.tests;
 
 import static applications.tests.FixtureDefinitions.SEMANTIC_INPUT_FILENAME;
 import static applications.tests.FixtureDefinitions.SEMANTIC_EXPECTED_FILENAME;
+import static applications.tests.FixtureDefinitions.SYNTAX_ERRORS_INPUT_FILENAME;
 
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
@@ -11,6 +12,7 @@ import parseTree.ParseTreePrinter.Level;
 
 import tests.FileFixturesTestCase;
 import tokens.Tokens;
+import applications.GrouseAbstractSyntaxTree;
 import applications.GrouseSemanticChecker;
 
 public class TestSemanticChecker extends FileFixturesTestCase {
@@ -18,6 +20,16 @@ public class TestSemanticChecker extends FileFixturesTestCase {
 		semanticCheckerSingleTest(Level.FULL, Tokens.Level.FULL, SEMANTIC_EXPECTED_FILENAME);
 	}
 	
+	// a tree with syntax errors is printed as parsed, not analyzed.
+	public void testSyntaxErrorsNotAnalyzed() throws Exception {
+		ParseTreePrinter.setPrintLevel(Level.FULL);
+		Tokens.setPrintLevel(Tokens.Level.FULL);
+		String actualOutput = tokenPrinterOutput(SYNTAX_ERRORS_INPUT_FILENAME);
+		String expectedOutput = outputFor(out -> GrouseAbstractSyntaxTree.parseFileToAST(SYNTAX_ERRORS_INPUT_FILENAME, out));
+		assertTrue(expectedOutput.contains("ErrorNode"));
+		assertEquals(expectedOutput, actualOutput);
+	}
+	
 	public void semanticCheckerSingleTest(Level level, Tokens.Level tokenLevel, String string) throws Exception {
 		ParseTreePrinter.setPrintLevel(level);
 		Tokens.setPrintLevel(tokenLevel);
@@ -1,6 +1,8 @@
 package asmCodeGenerator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +13,7 @@ import asmCodeGenerator.runtime.MemoryManager;
 import asmCodeGenerator.runtime.RecordManager;
 import asmCodeGenerator.runtime.RunTime;
 import asmCodeGenerator.Header;
+import context.CompilationContext;
 import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
@@ -51,7 +54,6 @@ import parseTree.nodeTypes.TupleEntryNode;
 import parseTree.nodeTypes.UnaryOperatorNode;
 import parseTree.nodeTypes.WhileStatementNode;
 import parseTree.nodeTypes.ReassignmentNode;
-import semanticAnalyzer.SemanticAnalyzer;
 import semanticAnalyzer.types.ArrayType;
 import semanticAnalyzer.types.PrimitiveType;
 import semanticAnalyzer.types.TupleType;
@@ -65,32 +67,33 @@ import static asmCodeGenerator.codeStorage.ASMOpcode.*;
 
 // do not call the code generator if any errors have occurred during analysis.
 public class ASMCodeGenerator {
-	private static Labeller labeller = new Labeller();
-	private static Header header = new Header();
-
 	ParseNode root;
+	private final CompilationContext context;
+	private Labeller labeller;
+	private Header header;
 
-	public static ASMCodeFragment generate(ParseNode syntaxTree) {
-		ASMCodeGenerator codeGenerator = new ASMCodeGenerator(syntaxTree);
+	public static ASMCodeFragment generate(CompilationContext context, ParseNode syntaxTree) {
+		ASMCodeGenerator codeGenerator = new ASMCodeGenerator(context, syntaxTree);
 		return codeGenerator.makeASM();
 	}
-	public ASMCodeGenerator(ParseNode root) {
+	// labels are numbered per compilation; the runtime helpers number theirs along with ours.
+	public ASMCodeGenerator(CompilationContext context, ParseNode root) {
 		super();
 		this.root = root;
-	}
-	public static Labeller getLabeller() {
-		return labeller;
+		this.context = context;
+		this.labeller = context.getLabeller();
+		this.header = new Header();
 	}
 	
 	public ASMCodeFragment makeASM() {
 		ASMCodeFragment code = new ASMCodeFragment(GENERATES_VOID);
 		
-		code.append( MemoryManager.codeForInitialization());
-		code.append( RunTime.getEnvironment() );
-		code.append( RecordManager.codeForInitialization());
+		code.append( MemoryManager.codeForInitialization(context));
+		code.append( RunTime.getEnvironment(context) );
+		code.append( RecordManager.codeForInitialization(context));
 		code.append( globalVariableBlockASM() );
 		code.append( programASM() );
-		code.append( MemoryManager.codeForAfterApplication() );
+		code.append( MemoryManager.codeForAfterApplication(context) );
 		
 		return code;
 	}
@@ -225,7 +228,7 @@ public class ASMCodeGenerator {
 				}
 				if(child instanceof DeclarationNode) {
 					GlobalVariableDeclaraction.append(removeVoidCode(child));
-					GlobalVariableDeclaraction.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+					deallocateCheckListIfNeeded(GlobalVariableDeclaraction, child);
 				}
 				if(child instanceof FunctionDefinitionNode) {
 					code.append(removeVoidCode(child));
@@ -244,7 +247,7 @@ public class ASMCodeGenerator {
 				code.append(childCode);
 				
 				// deallocate after each statement ends
-				code.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+				deallocateCheckListIfNeeded(code, child);
 			}
 
 		}
@@ -255,29 +258,76 @@ public class ASMCodeGenerator {
 				code.append(childCode);
 				
 				// deallocate memory when a statements ends( includidng a block)
-				code.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+				deallocateCheckListIfNeeded(code, child);
 			}
 			
 			// add codes to decrement refcount of variables in scoope
 			// when leaves the scope
 			Scope localScope = node.getScope();
 			decrementRefcountInScope(code, localScope);
-			code.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+			if(hasReferenceVariables(localScope) || isBodyOfLoopWithAllocatingControl(node)) {
+				code.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+			}
 			
 		}
 		
-		private void decrementRefcountInScope(ASMCodeFragment code, Scope scope) {
+		// only a statement that allocates, releases a reference or calls a function
+		// can put records on the to-be-checked list, so only those are followed by
+		// a deallocation.  any of these has a node of reference type or a call in it.
+		private void deallocateCheckListIfNeeded(ASMCodeFragment code, ParseNode statement) {
+			if(mayAddToCheckList(statement)) {
+				code.add(Call, RecordManager.DEALLOCATE_CHECKLIST);
+			}
+		}
+		private boolean mayAddToCheckList(ParseNode statement) {
+			Deque<ParseNode> unchecked = new ArrayDeque<ParseNode>();
+			unchecked.push(statement);
+			while(!unchecked.isEmpty()) {
+				ParseNode node = unchecked.pop();
+				if(node instanceof FunctionInvocationNode || node instanceof FunctionCallNode) {
+					return true;
+				}
+				Type type = node.getType();
+				if(type != null && type.isReferenceType()) {
+					return true;
+				}
+				for(ParseNode child: node.getChildren()) {
+					unchecked.push(child);
+				}
+			}
+			return false;
+		}
+		// a while condition runs once per iteration, so whatever it allocates is
+		// released at the back-edge rather than once the whole loop has ended.
+		// (the array of a for loop is evaluated only once, before the loop.)
+		private boolean isBodyOfLoopWithAllocatingControl(BlockNode node) {
+			ParseNode parent = node.getParent();
+			if(!(parent instanceof WhileStatementNode) || parent.child(0) instanceof ForControlPhraseNode) {
+				return false;
+			}
+			return mayAddToCheckList(parent.child(0));
+		}
+		private boolean hasReferenceVariables(Scope scope) {
 			for(Binding binding: scope.getSymbolTable().values()) {
-				if(binding instanceof StaticBinding) {
-					continue;
+				if(isReleasedAtScopeExit(binding)) {
+					return true;
 				}
-				if(!binding.getType().isReferenceType()) {
+			}
+			return false;
+		}
+		private boolean isReleasedAtScopeExit(Binding binding) {
+			return !(binding instanceof StaticBinding) && binding.getType().isReferenceType();
+		}
+		
+		private void decrementRefcountInScope(ASMCodeFragment code, Scope scope) {
+			for(Binding binding: scope.getSymbolTable().values()) {
+				if(!isReleasedAtScopeExit(binding)) {
 					continue;
 				}
 				ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 				binding.generateAddress(frag);			// [...adr]
 				frag.add(LoadI);						// [...record]
-				RecordManager.decrementRefcount(frag);
+				RecordManager.decrementRefcount(frag, labeller);
 				frag.add(Pop);
 				
 				code.append(frag);
@@ -290,7 +340,7 @@ public class ASMCodeGenerator {
 		public void visitLeave(TupleDefinitionNode node) {
 			IdentifierNode tupleName = (IdentifierNode)node.child(0);
 			String lexeme = tupleName.getToken().getLexeme();
-			Binding tupleBinding = SemanticAnalyzer.getGlobalScope().getSymbolTable().lookup(lexeme);
+			Binding tupleBinding = context.getGlobalScope().getSymbolTable().lookup(lexeme);
 			
 			if(!(tupleBinding.getType() instanceof TupleType)) {
 				return;
@@ -380,7 +430,7 @@ public class ASMCodeGenerator {
 			// add print Tuple Label
 			IdentifierNode tupleName = (IdentifierNode)node.child(0);
 			String lexeme = tupleName.getToken().getLexeme();
-			Binding tupleBinding = SemanticAnalyzer.getGlobalScope().getSymbolTable().lookup(lexeme);
+			Binding tupleBinding = context.getGlobalScope().getSymbolTable().lookup(lexeme);
 			if(tupleBinding.getType() instanceof TupleType) {
 				addTuplePrintingSubRoutine((TupleType)tupleBinding.getType());
 			}
@@ -526,7 +576,7 @@ public class ASMCodeGenerator {
 				if(binding.getType().isReferenceType()) {
 					binding.generateAddress(code);
 					code.add(LoadI);
-					RecordManager.incrementRefcount(code);
+					RecordManager.incrementRefcount(code, labeller);
 					code.add(Pop);
 				}
 			}
@@ -539,7 +589,7 @@ public class ASMCodeGenerator {
 				if(binding.getType().isReferenceType()) {
 					binding.generateAddress(code);
 					code.add(LoadI);
-					RecordManager.decrementRefcount(code);
+					RecordManager.decrementRefcount(code, labeller);
 					code.add(Pop);
 				}
 			}
@@ -777,7 +827,7 @@ public class ASMCodeGenerator {
 			
 			// if reference type, increment refcount
 			if(type.isReferenceType()) {
-				RecordManager.incrementRefcount(code);
+				RecordManager.incrementRefcount(code, labeller);
 			}
 			// store
 			code.add(opcodeForStore(type));
@@ -817,14 +867,14 @@ public class ASMCodeGenerator {
 			if(node.getType().isReferenceType()) {
 				code.add(Duplicate);
 				code.add(LoadI);
-				RecordManager.decrementRefcount(code);
+				RecordManager.decrementRefcount(code, labeller);
 				code.add(Pop);
 			}
 			
 			code.append(rvalue);
 			// increment refcount of rvalue if reference type
 			if(node.getType().isReferenceType()) {
-				RecordManager.incrementRefcount(code);
+				RecordManager.incrementRefcount(code, labeller);
 			}
 			
 			
@@ -974,7 +1024,7 @@ public class ASMCodeGenerator {
 				code.add(StoreI);			// i = 0
 				code.append(arrayExpr);		// [...arrayStart]
 				// increment refcount of arrayExpr
-				RecordManager.incrementRefcount(code);
+				RecordManager.incrementRefcount(code, labeller);
 				// load array-length n
 				code.add(Duplicate);		// [...arrayStart arrayStart]
 				code.add(PushI, 13);
@@ -1017,7 +1067,7 @@ public class ASMCodeGenerator {
 				code.add(Jump, startLoopLabel);
 				code.add(Label, endLoopLabel);	// [...arrayStart n]
 				code.add(Pop);				// [...arrayStart]
-				RecordManager.decrementRefcount(code);
+				RecordManager.decrementRefcount(code, labeller);
 				code.add(Pop);
 				
 			} else if(forCtlNode.getToken().isLextant(Keyword.PAIR)) {
@@ -1050,7 +1100,7 @@ public class ASMCodeGenerator {
 				// put arrayExpr on stack
 				code.append(arrayExpr);
 				// increment refcount of arrayExpr
-				RecordManager.incrementRefcount(code);
+				RecordManager.incrementRefcount(code, labeller);
 				// load array length
 				code.add(Duplicate);
 				Macros.readIOffset(code, 13);		// [...arr n]
@@ -1095,7 +1145,7 @@ public class ASMCodeGenerator {
 				code.add(Label, endLoopLabel);		// [...arr n]
 				code.add(Pop);						// [...arr]
 				// decrement refcount of arrayExpr
-				RecordManager.decrementRefcount(code);
+				RecordManager.decrementRefcount(code, labeller);
 				code.add(Pop);
 				
 			} else if(forCtlNode.getToken().isLextant(Keyword.INDEX)) {
@@ -1698,7 +1748,7 @@ public class ASMCodeGenerator {
 			code.add(Exchange);				// [...adr n adr*]
 			code.add(Duplicate);
 			code.add(LoadI);				// [...adr n adr* record]
-			RecordManager.incrementRefcount(code);
+			RecordManager.incrementRefcount(code, labeller);
 			code.add(Pop);					// [...adr n adr*]
 			// increment loop invariant
 			code.add(PushI, 4);
@@ -1745,7 +1795,7 @@ public class ASMCodeGenerator {
 					
 					code.add(Duplicate);				// [...adr adr]
 					Macros.readIOffset(code, offset);	// [...adr record]
-					RecordManager.incrementRefcount(code);
+					RecordManager.incrementRefcount(code, labeller);
 				}
 			}
 		}
@@ -1895,7 +1945,7 @@ public class ASMCodeGenerator {
 				code.append(childCode);
 				// if reference type, incremnt refcount
 				if(child.getType().isReferenceType()) {
-					RecordManager.incrementRefcount(code);
+					RecordManager.incrementRefcount(code, labeller);
 				}
 				code.add(storeOpcode);
 				code.add(PushI, subTypeSize);
@@ -1987,7 +2037,7 @@ public class ASMCodeGenerator {
 			header.addHeader(code, node, lengthVariableLabel, nodeType);// [...adr]
 			
 			// add to TO_BE_CHECKED_LIST
-			RecordManager.addToCheckList(code);
+			RecordManager.addToCheckList(code, labeller);
 			
 			code.add(Duplicate);
 			code.add(PushI, 17);
@@ -2028,7 +2078,7 @@ public class ASMCodeGenerator {
 			header.addTupleHeader(code, nodeType);
 			
 			// add to TO_BE_CHECKED_LIST
-			RecordManager.addToCheckList(code);
+			RecordManager.addToCheckList(code, labeller);
 			
 			// [...adr]		
 			code.add(Duplicate);	
@@ -2044,7 +2094,7 @@ public class ASMCodeGenerator {
 				code.append(childValue);// [...adr adr* adr* val]
 				// if reference type, increment refcount of childValue
 				if(type.isReferenceType()) {
-					RecordManager.incrementRefcount(code);
+					RecordManager.incrementRefcount(code, labeller);
 				}
 				code.add(storeOpcode);	// [...adr adr*]
 				code.add(PushI, type.getSize());
@@ -2133,9 +2183,9 @@ public class ASMCodeGenerator {
 			
 			if(returnType.isReferenceType()) {
 				if(returnType instanceof TupleType) 
-					RecordManager.addToCheckList(code);
+					RecordManager.addToCheckList(code, labeller);
 				else	// string and array
-					RecordManager.decrementRefcount(code);
+					RecordManager.decrementRefcount(code, labeller);
 			}
 
 		}
@@ -2226,13 +2276,13 @@ public class ASMCodeGenerator {
 			}
 			if(forCtlNode.getToken().isLextant(Keyword.ELEMENT)) {
 				code.add(Pop);				// [...arrayStart]
-				RecordManager.decrementRefcount(code);
+				RecordManager.decrementRefcount(code, labeller);
 				code.add(Pop);
 			}
 			if(forCtlNode.getToken().isLextant(Keyword.PAIR)) {
 				code.add(Exchange);
 				code.add(Pop);				// [...arrayStart]
-				RecordManager.decrementRefcount(code);
+				RecordManager.decrementRefcount(code, labeller);
 				code.add(Pop);
 			}
 		}
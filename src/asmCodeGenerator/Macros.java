@@ -79,24 +79,24 @@ public class Macros {
     // debugging aids
 
 	// does not disturb stack.  Takes a format string - no %'s!
-	public static void printString(ASMCodeFragment code, String format) {
-		String stringLabel = ASMCodeGenerator.getLabeller().newLabel("pstring-", "");
+	public static void printString(ASMCodeFragment code, Labeller labeller, String format) {
+		String stringLabel = labeller.newLabel("pstring-", "");
 		code.add(DLabel, stringLabel);
 		code.add(DataS, format);
 		code.add(PushD, stringLabel);
 		code.add(Printf);
 	}
 	// does not disturb stack.  Takes a format string
-	public static void printStackTop(ASMCodeFragment code, String format) {
+	public static void printStackTop(ASMCodeFragment code, Labeller labeller, String format) {
 		code.add(Duplicate);
-		String stringLabel = ASMCodeGenerator.getLabeller().newLabel("ptop-", "");
+		String stringLabel = labeller.newLabel("ptop-", "");
 		code.add(DLabel, stringLabel);
 		code.add(DataS, format);
 		code.add(PushD, stringLabel);
 		code.add(Printf);
 	}
-	public static void printStack(ASMCodeFragment code, String string) {
-		String stringLabel = ASMCodeGenerator.getLabeller().newLabel("pstack-", "");
+	public static void printStack(ASMCodeFragment code, Labeller labeller, String string) {
+		String stringLabel = labeller.newLabel("pstack-", "");
 		code.add(DLabel, stringLabel);
 		code.add(DataS, string + " ");
 		code.add(PushD, stringLabel);
@@ -105,59 +105,59 @@ public class Macros {
 	}
 	
 	// [... ptr] -> [... ptr]
-	public static void printPtrAndRefcount(ASMCodeFragment code, String prefix) {
-		printStackTop(code, prefix + " ptr: %d ");		// ptr
+	public static void printPtrAndRefcount(ASMCodeFragment code, Labeller labeller, String prefix) {
+		printStackTop(code, labeller, prefix + " ptr: %d ");		// ptr
 		code.add(Duplicate);	// [... ptr ptr]
 		readCOffset(code, 8);
-		printStackTop(code, "refcount: <%d>\n");
+		printStackTop(code, labeller, "refcount: <%d>\n");
 		code.add(Pop);			// [... ptr]
 	}
 	
-	public static void printPtrAndStatusCode(ASMCodeFragment code, String prefix) {
-		printStackTop(code, prefix + " ptr: %d ");		// ptr
+	public static void printPtrAndStatusCode(ASMCodeFragment code, Labeller labeller, String prefix) {
+		printStackTop(code, labeller, prefix + " ptr: %d ");		// ptr
 		code.add(Duplicate);	// [... ptr ptr]
 		readIOffset(code, 4);
-		printStackTop(code, "status: <%d>\n");
+		printStackTop(code, labeller, "status: <%d>\n");
 		code.add(Pop);			// [... ptr]
 	}
 	
-	public static void printPtrAndTypeId(ASMCodeFragment code, String prefix) {
-		printStackTop(code, prefix + " ptr: %d ");		// ptr
+	public static void printPtrAndTypeId(ASMCodeFragment code, Labeller labeller, String prefix) {
+		printStackTop(code, labeller, prefix + " ptr: %d ");		// ptr
 		code.add(Duplicate);	// [... ptr ptr]
 		code.add(LoadI);
-		printStackTop(code, "typeId: <%d>\n");
+		printStackTop(code, labeller, "typeId: <%d>\n");
 		code.add(Pop);			// [... ptr]
 	}
 	
 	
 	
 	// [...] -> [...]
-	public static void printFramePointer(ASMCodeFragment code, String prefix) {
+	public static void printFramePointer(ASMCodeFragment code, Labeller labeller, String prefix) {
 		code.add(PushD, RunTime.FRAME_POINTER);
 		code.add(LoadI);
-		printString(code, prefix + " FramePointer: ");
-		printStackTop(code, "%d");
+		printString(code, labeller, prefix + " FramePointer: ");
+		printStackTop(code, labeller, "%d");
 		code.add(Pop);
-		printString(code, "\n");
+		printString(code, labeller, "\n");
 
 	}
 	
-	public static void printStackPointer(ASMCodeFragment code, String prefix) {
+	public static void printStackPointer(ASMCodeFragment code, Labeller labeller, String prefix) {
 		code.add(PushD, RunTime.STACK_POINTER);
 		code.add(LoadI);
-		printString(code, prefix + " StackPointer: ");
-		printStackTop(code, "%d");
+		printString(code, labeller, prefix + " StackPointer: ");
+		printStackTop(code, labeller, "%d");
 		code.add(Pop);
-		printString(code, "\n");
+		printString(code, labeller, "\n");
 	}
 	
-	public static void printPointer(ASMCodeFragment code, String location, String prefix) {
+	public static void printPointer(ASMCodeFragment code, Labeller labeller, String location, String prefix) {
 		code.add(PushD, location);
 		code.add(LoadI);
-		printString(code, prefix + ":");
-		printStackTop(code, "%d");
+		printString(code, labeller, prefix + ":");
+		printStackTop(code, labeller, "%d");
 		code.add(Pop);
-		printString(code, "\n");
+		printString(code, labeller, "\n");
 	}
 	
 }
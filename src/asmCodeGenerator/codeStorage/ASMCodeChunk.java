@@ -1,51 +1,261 @@
 package asmCodeGenerator.codeStorage;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 // a glorified list of instructions.
+// chunks are chained through next by ASMCodeFragment; once set, next is never changed.
+//
+// instructions are stored packed rather than as ASMInstruction objects:
+// INSTRUCTION_STRIDE ints apiece in code, holding
+//     [opcode ordinal, operand, comment]
+// where the operand is the integer argument itself, an index into floats
+// (raw bits of a float argument), or an index into strings (string argument).
+// comments are also indices into strings.  NO_STRING stands for null and
+// EMPTY_STRING for "", which between them cover most operands and comments.
+// strings is the chunk's constant pool: stringPool maps each string to its index,
+// so each distinct label or comment is stored once per chunk.
 public class ASMCodeChunk {
-	List<ASMInstruction> instructions;
+	private static final int INSTRUCTION_STRIDE = 3;
+	private static final int OPCODE = 0;
+	private static final int OPERAND = 1;
+	private static final int COMMENT = 2;
+	private static final int NO_STRING = -1;
+	private static final int EMPTY_STRING = -2;
+	private static final int INITIAL_CAPACITY = 8;
+	private static final ASMOpcode[] opcodes = ASMOpcode.values();
+	
+	private int[] code;
+	private int size;
+	private long[] floats;
+	private int numFloats;
+	private String[] strings;
+	private int numStrings;
+	private Map<String, Integer> stringPool;
+	ASMCodeChunk next;
 	
 	public ASMCodeChunk() {
-		instructions = new LinkedList<ASMInstruction>();
+		code = new int[INITIAL_CAPACITY * INSTRUCTION_STRIDE];
+		size = 0;
+		floats = null;
+		numFloats = 0;
+		strings = null;
+		numStrings = 0;
+		stringPool = null;
+		next = null;
 	}
 	public void add(ASMOpcode opcode, int operand, String comment) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand, comment);
-		instructions.add(instruction);
+		assert opcode.takesInteger() : opcode.toString();
+		addPacked(opcode, operand, stringIndex(comment));
 	}
 	public void add(ASMOpcode opcode, int operand) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand);
-		instructions.add(instruction);
+		add(opcode, operand, "");
 	}
 	public void add(ASMOpcode opcode, double operand, String comment) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand, comment);
-		instructions.add(instruction);
+		assert opcode.takesFloat() : opcode.toString();
+		addPacked(opcode, floatIndex(operand), stringIndex(comment));
 	}
 	public void add(ASMOpcode opcode, double operand) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand);
-		instructions.add(instruction);
+		add(opcode, operand, "");
 	}
 	public void add(ASMOpcode opcode, String operand, String comment) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand, comment);
-		instructions.add(instruction);
+		assert operand == null || operand.length() == 0 || opcode.takesString() : opcode.toString();
+		addPacked(opcode, stringIndex(operand), stringIndex(comment));
 	}
 	public void add(ASMOpcode opcode, String operand) {
-		ASMInstruction instruction = new ASMInstruction(opcode, operand);
-		instructions.add(instruction);
+		add(opcode, operand, "");
 	}
 	public void add(ASMOpcode opcode) {
-		ASMInstruction instruction = new ASMInstruction(opcode);
-		instructions.add(instruction);
+		add(opcode, (String)null, "");
+	}
+	/** Add copies of all of other's instructions to the end of this chunk.
+	 * @param other
+	 */
+	public void addAll(ASMCodeChunk other) {
+		for(int i = 0; i < other.size; i++) {
+			addCopyOf(other, i);
+		}
+	}
+	/** Add a copy of other's instruction at index to the end of this chunk.
+	 * @param other
+	 * @param index
+	 */
+	void addCopyOf(ASMCodeChunk other, int index) {
+		ASMOpcode opcode = other.opcode(index);
+		int operand = other.code[index * INSTRUCTION_STRIDE + OPERAND];
+		if(opcode.takesFloat()) {
+			operand = floatIndex(Double.longBitsToDouble(other.floats[operand]));
+		}
+		else if(!opcode.takesInteger()) {
+			operand = stringIndex(other.string(operand));
+		}
+		addPacked(opcode, operand, stringIndex(other.string(other.code[index * INSTRUCTION_STRIDE + COMMENT])));
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	////////////////////////////////////////////////////////////////////
+	// access and in-place editing, for ASMPeepholeOptimizer
+	
+	ASMOpcode opcode(int index) {
+		return opcodes[code[index * INSTRUCTION_STRIDE + OPCODE]];
+	}
+	int intOperand(int index) {
+		assert opcode(index).takesInteger();
+		return code[index * INSTRUCTION_STRIDE + OPERAND];
+	}
+	String stringOperand(int index) {
+		assert !opcode(index).takesInteger() && !opcode(index).takesFloat();
+		return string(code[index * INSTRUCTION_STRIDE + OPERAND]);
+	}
+	void setIntOperand(int index, int operand) {
+		assert opcode(index).takesInteger();
+		code[index * INSTRUCTION_STRIDE + OPERAND] = operand;
+	}
+	// removes the instruction at index, shifting later instructions down.
+	// (float and string table entries of removed instructions are not reclaimed.)
+	void remove(int index) {
+		assert 0 <= index && index < size;
+		int position = index * INSTRUCTION_STRIDE;
+		System.arraycopy(code, position + INSTRUCTION_STRIDE, code, position, (size - index - 1) * INSTRUCTION_STRIDE);
+		size--;
+	}
+	void removeLast(int count) {
+		assert 0 <= count && count <= size;
+		size -= count;
+	}
+	
+	/** Returns the instruction at index as an ASMInstruction object.
+	 *  Intended for inspection; the chunk itself does not keep these objects.
+	 * @param index
+	 * @return
+	 */
+	public ASMInstruction instructionAt(int index) {
+		ASMOpcode opcode = opcode(index);
+		int operand = code[index * INSTRUCTION_STRIDE + OPERAND];
+		String comment = string(code[index * INSTRUCTION_STRIDE + COMMENT]);
+		if(opcode.takesInteger()) {
+			return new ASMInstruction(opcode, operand, comment);
+		}
+		if(opcode.takesFloat()) {
+			return new ASMInstruction(opcode, Double.longBitsToDouble(floats[operand]), comment);
+		}
+		return new ASMInstruction(opcode, string(operand), comment);
+	}
+	
+	
+	////////////////////////////////////////////////////////////////////
+	// packed storage
+	
+	private void addPacked(ASMOpcode opcode, int operand, int comment) {
+		int position = size * INSTRUCTION_STRIDE;
+		if(position == code.length) {
+			code = Arrays.copyOf(code, code.length * 2);
+		}
+		code[position + OPCODE] = opcode.ordinal();
+		code[position + OPERAND] = operand;
+		code[position + COMMENT] = comment;
+		size++;
+	}
+	private int floatIndex(double value) {
+		if(floats == null) {
+			floats = new long[INITIAL_CAPACITY];
+		}
+		else if(numFloats == floats.length) {
+			floats = Arrays.copyOf(floats, floats.length * 2);
+		}
+		floats[numFloats] = Double.doubleToRawLongBits(value);
+		return numFloats++;
+	}
+	private int stringIndex(String string) {
+		if(string == null) {
+			return NO_STRING;
+		}
+		if(string.length() == 0) {
+			return EMPTY_STRING;
+		}
+		if(strings == null) {
+			strings = new String[INITIAL_CAPACITY];
+			stringPool = new HashMap<String, Integer>();
+		}
+		Integer index = stringPool.get(string);
+		if(index != null) {
+			return index;
+		}
+		if(numStrings == strings.length) {
+			strings = Arrays.copyOf(strings, strings.length * 2);
+		}
+		strings[numStrings] = string;
+		stringPool.put(string, numStrings);
+		return numStrings++;
+	}
+	private String string(int index) {
+		if(index == NO_STRING) {
+			return null;
+		}
+		if(index == EMPTY_STRING) {
+			return "";
+		}
+		return strings[index];
+	}
+	
+	
+	////////////////////////////////////////////////////////////////////
+	// output
+	
+	private void appendInstruction(StringBuilder builder, int index) {
+		ASMOpcode opcode = opcode(index);
+		int operand = code[index * INSTRUCTION_STRIDE + OPERAND];
+		String comment = string(code[index * INSTRUCTION_STRIDE + COMMENT]);
+		if(opcode.takesInteger()) {
+			ASMInstruction.appendInstruction(builder, opcode, operand, comment);
+		}
+		else if(opcode.takesFloat()) {
+			ASMInstruction.appendInstruction(builder, opcode, Double.longBitsToDouble(floats[operand]), comment);
+		}
+		else {
+			ASMInstruction.appendInstruction(builder, opcode, string(operand), comment);
+		}
 	}
 	
 	static private String terminator = System.getProperty("line.separator");
-	public String toString() {
-		StringBuffer buffer = new StringBuffer();
-		for(ASMInstruction instruction: instructions) {
-			buffer.append(instruction.toString());
+	
+	static private final int FLUSH_THRESHOLD = 8192;
+	
+	// streams the instructions through buffer, which is handed to out
+	// whenever it grows past FLUSH_THRESHOLD characters and at the end.
+	public void writeTo(Writer out) throws IOException {
+		writeTo(out, new StringBuilder());
+	}
+	void writeTo(Writer out, StringBuilder buffer) throws IOException {
+		for(int i = 0; i < size; i++) {
+			appendInstruction(buffer, i);
 			buffer.append(terminator);
+			if(buffer.length() >= FLUSH_THRESHOLD) {
+				flush(out, buffer);
+			}
 		}
-		return buffer.toString();
+		flush(out, buffer);
+	}
+	private static void flush(Writer out, StringBuilder buffer) throws IOException {
+		out.append(buffer);
+		buffer.setLength(0);
+	}
+	
+	void appendTo(StringBuilder builder) {
+		for(int i = 0; i < size; i++) {
+			appendInstruction(builder, i);
+			builder.append(terminator);
+		}
+	}
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		appendTo(builder);
+		return builder.toString();
 	}
 }
@@ -1,10 +1,18 @@
 package asmCodeGenerator.codeStorage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 
 public class ASMCodeFragment {
-	private List<ASMCodeChunk> chunks;
+	// the fragment's code is the chain of chunks from firstChunk through lastChunk.
+	// append links the argument's chain onto this one instead of copying it, so
+	// a fragment should only be appended once; a repeated append falls back to copying.
+	private ASMCodeChunk firstChunk;
+	private ASMCodeChunk lastChunk;
+	private boolean isLinkedIntoAnother;
 	
 	// these names refer to what the code in the fragment
 	// leaves on top of the stack: either nothing, a value
@@ -18,10 +26,19 @@ public class ASMCodeFragment {
 	CodeType codeType;
 	
 	public ASMCodeFragment(CodeType codeType) {
-		chunks = new ArrayList<ASMCodeChunk>();
+		this.firstChunk = null;
+		this.lastChunk = null;
+		this.isLinkedIntoAnother = false;
 		this.codeType = codeType;
 	}
 	
+	// a fragment whose code is exactly chunk.
+	static ASMCodeFragment withChunk(CodeType codeType, ASMCodeChunk chunk) {
+		ASMCodeFragment fragment = new ASMCodeFragment(codeType);
+		fragment.linkChunks(chunk);
+		return fragment;
+	}
+	
 	public void markAsVoid() {
 		codeType = CodeType.GENERATES_VOID;
 	}
@@ -47,7 +64,50 @@ public class ASMCodeFragment {
 	 * @param fragment
 	 */
 	public void append(ASMCodeFragment fragment) {
-		chunks.addAll(fragment.chunks);
+		if(fragment.isEmpty()) {
+			return;
+		}
+		if(fragment.isLinkedIntoAnother || fragment == this) {
+			linkChunks(fragment.copyOfCode());
+			return;
+		}
+		linkChunks(fragment.firstChunk, fragment.lastChunk);
+		fragment.isLinkedIntoAnother = true;
+	}
+	public boolean isEmpty() {
+		return firstChunk == null;
+	}
+	
+	private void linkChunks(ASMCodeChunk chunk) {
+		linkChunks(chunk, chunk);
+	}
+	private void linkChunks(ASMCodeChunk first, ASMCodeChunk last) {
+		if(isEmpty()) {
+			firstChunk = first;
+		}
+		else {
+			if(lastChunk.next != null) {		// our last chunk is shared and has been extended elsewhere
+				takePrivateCopyOfCode();
+			}
+			lastChunk.next = first;
+		}
+		lastChunk = last;
+	}
+	private void takePrivateCopyOfCode() {
+		ASMCodeChunk copy = copyOfCode();
+		firstChunk = copy;
+		lastChunk = copy;
+	}
+	// all of this fragment's code, copied into a single chunk.
+	ASMCodeChunk copyOfCode() {
+		ASMCodeChunk copy = new ASMCodeChunk();
+		for(ASMCodeChunk chunk = firstChunk; chunk != null; chunk = nextChunk(chunk)) {
+			copy.addAll(chunk);
+		}
+		return copy;
+	}
+	private ASMCodeChunk nextChunk(ASMCodeChunk chunk) {
+		return (chunk == lastChunk) ? null : chunk.next;
 	}
 	
 	public void add(ASMOpcode opcode, int operand, String comment) {
@@ -73,23 +133,47 @@ public class ASMCodeFragment {
 	}
 
 	private ASMCodeChunk lastChunk() {
-		if(chunks.size() == 0) {
+		if(isEmpty()) {
 			newChunk();
 		}
-		return chunks.get(chunks.size() - 1);
+		return lastChunk;
 	}
 
 	private void newChunk() {
 		ASMCodeChunk chunk = new ASMCodeChunk();
-		chunks.add(chunk);
+		linkChunks(chunk);
+	}
+	
+	/** Write the text of this fragment to out, chunk by chunk, without
+	 *  building the whole program as one string (as toString() does).
+	 *  The writer is not flushed or closed.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(Writer out) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for(ASMCodeChunk chunk = firstChunk; chunk != null; chunk = nextChunk(chunk)) {
+			chunk.writeTo(out, buffer);
+		}
+	}
+	/** Write the text of this fragment to channel, encoding through a single
+	 *  reusable byte buffer of WRITE_BUFFER_SIZE bytes.  The channel is not closed.
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		Writer out = Channels.newWriter(channel, Charset.defaultCharset().newEncoder(), WRITE_BUFFER_SIZE);
+		writeTo(out);
+		out.flush();
 	}
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
 	
 	public String toString() {
-		StringBuffer buffer = new StringBuffer();
-		for(ASMCodeChunk chunk: chunks) {
-			buffer.append(chunk.toString());
+		StringBuilder builder = new StringBuilder();
+		for(ASMCodeChunk chunk = firstChunk; chunk != null; chunk = nextChunk(chunk)) {
+			chunk.appendTo(builder);
 		}
-		return buffer.toString();
+		return builder.toString();
 	}
 
 }
@@ -1,5 +1,7 @@
 package asmCodeGenerator.codeStorage;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 public class ASMInstruction {
 	private ASMOpcode opcode;
@@ -51,45 +53,114 @@ public class ASMInstruction {
 /////////////////////////////////////////////////////////////////////////
 // toString ... particular attention paid to the DataS instruction, which
 //              the emulator doesn't handle.
+//
+// the text is appended directly to a caller-supplied StringBuilder so that
+// emitting a large program does not go through String.format or string +=
+// for every instruction.  Columns are the same as "%-12s %-25x".
 	
 	static private String indentation = "        ";
+	static private final int OPCODE_COLUMN_WIDTH = 12;
+	static private final int ARGUMENT_COLUMN_WIDTH = 25;
+	static private final String[] paddedOpcodes = paddedOpcodeNames();
+	
+	private static String[] paddedOpcodeNames() {
+		ASMOpcode[] opcodes = ASMOpcode.values();
+		String[] result = new String[opcodes.length];
+		StringBuilder builder = new StringBuilder();
+		for(ASMOpcode opcode: opcodes) {
+			builder.setLength(0);
+			builder.append(opcode.toString());
+			pad(builder, 0, OPCODE_COLUMN_WIDTH);
+			builder.append(' ');
+			result[opcode.ordinal()] = builder.toString();
+		}
+		return result;
+	}
+	
 	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		appendTo(builder);
+		return builder.toString();
+	}
+	/** Append the text of this instruction (without a final line terminator)
+	 *  to builder.  A DataS instruction expands to several DataC lines.
+	 * @param builder
+	 */
+	public void appendTo(StringBuilder builder) {
+		if(argument instanceof Integer) {
+			appendInstruction(builder, opcode, ((Integer)argument).intValue(), comment);
+		}
+		else if(argument instanceof Double) {
+			appendInstruction(builder, opcode, ((Double)argument).doubleValue(), comment);
+		}
+		else {
+			appendInstruction(builder, opcode, (String)argument, comment);
+		}
+	}
+	
+	// the static appenders below are also used by ASMCodeChunk, which
+	// stores instructions packed rather than as ASMInstruction objects.
+	static void appendInstruction(StringBuilder builder, ASMOpcode opcode, int argument, String comment) {
+		startLine(builder, opcode);
+		int start = builder.length();
+		builder.append(argument);
+		endLine(builder, start, comment);
+	}
+	static void appendInstruction(StringBuilder builder, ASMOpcode opcode, double argument, String comment) {
+		startLine(builder, opcode);
+		int start = builder.length();
+		appendFloat(builder, argument);
+		endLine(builder, start, comment);
+	}
+	// argument may be null (no argument) or "" for an opcode that takes none.
+	static void appendInstruction(StringBuilder builder, ASMOpcode opcode, String argument, String comment) {
 		if(opcode == ASMOpcode.DataS) {
-			return DataStoString();
+			appendDataS(builder, argument, comment);
+			return;
+		}
+		startLine(builder, opcode);
+		int start = builder.length();
+		if(opcode.takesString() || opcode.takesInteger() || opcode.takesFloat()) {
+			builder.append(argument);
+		}
+		endLine(builder, start, comment);
+	}
+	private static void startLine(StringBuilder builder, ASMOpcode opcode) {
+		builder.append(indentation);
+		builder.append(paddedOpcodes[opcode.ordinal()]);
+	}
+	private static void endLine(StringBuilder builder, int argumentStart, String comment) {
+		pad(builder, argumentStart, ARGUMENT_COLUMN_WIDTH);
+		if(comment != null) {
+			builder.append(' ').append(comment);
 		}
-		String result = indentation;	// indentation(8);
-		result += opcodeString();
-		result += argumentString();
-		if(comment != null)
-			result += " " + comment;
-		return result;
 	}
 	
 	static String terminator = System.getProperty("line.separator");
-	private String DataStoString() {
-		String string = (String)this.argument;
-		
+	private static void appendDataS(StringBuilder builder, String string, String comment) {
 		if(string.length() == 0) {
-			return NullDataStoString();
+			appendInstruction(builder, ASMOpcode.DataC, 0, comment);
+			return;
 		}
 		
-		if(comment == null || comment == "") {
-			comment = DataSComment();
+		String firstComment = comment;
+		if(firstComment == null || firstComment.isEmpty()) {
+			firstComment = DataSComment(string);
 		}
-		String result = dataCString((int)string.charAt(0), comment) + terminator;
+		appendInstruction(builder, ASMOpcode.DataC, (int)string.charAt(0), firstComment);
+		builder.append(terminator);
 		
 		for(int i=1; i<string.length(); i++) {
-			result += dataCString((int)string.charAt(i), "");
-			result += terminator;
+			appendInstruction(builder, ASMOpcode.DataC, (int)string.charAt(i), "");
+			builder.append(terminator);
 		}
 		
-		result += dataCString(0, "");	// no terminator
-		return result;
+		appendInstruction(builder, ASMOpcode.DataC, 0, "");	// no terminator
 	}
-	private String DataSComment() {
-		return "%% \"" + printable((String)argument) + "\"";
+	private static String DataSComment(String string) {
+		return "%% \"" + printable(string) + "\"";
 	}
-	private String printable(String string) {
+	private static String printable(String string) {
 		StringBuilder sb = new StringBuilder();
 		
 		for(int i=0 ; i<string.length(); i++) {
@@ -99,7 +170,7 @@ public class ASMInstruction {
 		
 		return sb.toString();
 	}
-	private String printable(char c) {
+	private static String printable(char c) {
 		switch(c) {
 		case '\n': return "\\n";
 		case '\r': return "\\r";
@@ -109,30 +180,36 @@ public class ASMInstruction {
 		default:   return String.valueOf(c);
 		}
 	}
-	private String NullDataStoString() {
-		return dataCString(0, this.comment);
-	}
-	private String dataCString(int charAt, String comment) {
-		ASMInstruction instruction = new ASMInstruction(ASMOpcode.DataC, charAt, comment);
-		return instruction.toString();
+	
+	// same digits as "%f": six places, rounded half-up from the shortest
+	// decimal representation of the double.  Always uses '.' as the separator.
+	private static void appendFloat(StringBuilder builder, double value) {
+		if(Double.isNaN(value) || Double.isInfinite(value)) {
+			builder.append(value);
+			return;
+		}
+		if(value < 0 || (value == 0 && 1/value < 0)) {
+			builder.append('-');
+			value = -value;
+		}
+		BigDecimal decimal = new BigDecimal(Double.toString(value));
+		builder.append(decimal.setScale(FLOAT_PRECISION, RoundingMode.HALF_UP).toPlainString());
 	}
+	static private final int FLOAT_PRECISION = 6;
 	
-	private String opcodeString() {
-		return String.format("%-12s ", opcode.toString());
+	/** Returns value as the assembler reads it back from a float operand: rounded to six places.
+	 * @param value
+	 * @return
+	 */
+	public static double emittedFloat(double value) {
+		StringBuilder builder = new StringBuilder();
+		appendFloat(builder, value);
+		return Double.parseDouble(builder.toString());
 	}
 	
-	private String argumentString() {
-		if(opcode.takesFloat()) {
-			return String.format("%-25f", (Double)argument);
-		}
-		
-		if(opcode.takesInteger()) {
-			return String.format("%-25d", (Integer)argument);
-		}
-		
-		if(opcode.takesString()) {
-			return String.format("%-25s", (String)argument);
+	private static void pad(StringBuilder builder, int start, int width) {
+		for(int length = builder.length() - start; length < width; length++) {
+			builder.append(' ');
 		}
-		return String.format("%-25s", "");		
 	}
 }
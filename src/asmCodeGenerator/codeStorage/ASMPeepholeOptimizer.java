@@ -0,0 +1,177 @@
+package asmCodeGenerator.codeStorage;
+
+import static asmCodeGenerator.codeStorage.ASMOpcode.*;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Set;
+
+// A peephole optimizer over finished code.  Instructions are copied one at a time
+// into an output chunk, and after each one the enabled rules are tried against the
+// end of the output, so that the result of one rewrite can feed the next one.
+// Since a Label is itself an instruction, no pattern ever matches across a Label.
+public class ASMPeepholeOptimizer {
+	public enum Rule {
+		ARITHMETIC_IDENTITY,		// PushI 0; Add|Subtract   or   PushI 1; Multiply|Divide    ->  (nothing)
+		FOLD_INTEGER_CONSTANTS,		// PushI a; PushI b; Add|Subtract|Multiply                  ->  PushI (a op b)
+		COMBINE_OFFSETS,			// PushI a; Add; PushI b; Add                               ->  PushI (a+b); Add
+		PUSH_POP,					// PushI|PushF|PushD|Duplicate; Pop                          ->  (nothing)
+		JUMP_TO_NEXT;				// Jump L; Label*; Label L                                  ->  Label*; Label L
+	}
+
+	private Set<Rule> enabledRules;
+	private EnumMap<Rule, Integer> removedCounts;
+
+	public ASMPeepholeOptimizer(Set<Rule> enabledRules) {
+		this.enabledRules = EnumSet.noneOf(Rule.class);
+		this.enabledRules.addAll(enabledRules);
+		this.removedCounts = new EnumMap<Rule, Integer>(Rule.class);
+		for(Rule rule: Rule.values()) {
+			removedCounts.put(rule, 0);
+		}
+	}
+	public static ASMPeepholeOptimizer withAllRules() {
+		return new ASMPeepholeOptimizer(EnumSet.allOf(Rule.class));
+	}
+
+
+	/** Returns an optimized copy of fragment, with the same CodeType.
+	 *  The removal counts accumulate over all fragments optimized by this object.
+	 * @param fragment
+	 * @return
+	 */
+	public ASMCodeFragment optimize(ASMCodeFragment fragment) {
+		ASMCodeChunk input = fragment.copyOfCode();
+		ASMCodeChunk output = new ASMCodeChunk();
+
+		for(int i = 0; i < input.size(); i++) {
+			output.addCopyOf(input, i);
+			while(applyOneRule(output)) {
+			}
+		}
+		return ASMCodeFragment.withChunk(fragment.codeType, output);
+	}
+	private boolean applyOneRule(ASMCodeChunk code) {
+		return (isEnabled(Rule.ARITHMETIC_IDENTITY)    && arithmeticIdentity(code))
+			|| (isEnabled(Rule.FOLD_INTEGER_CONSTANTS) && foldIntegerConstants(code))
+			|| (isEnabled(Rule.COMBINE_OFFSETS)        && combineOffsets(code))
+			|| (isEnabled(Rule.PUSH_POP)               && pushPop(code))
+			|| (isEnabled(Rule.JUMP_TO_NEXT)           && jumpToNext(code));
+	}
+
+
+	///////////////////////////////////////////////////////////////////
+	// statistics
+
+	public boolean isEnabled(Rule rule) {
+		return enabledRules.contains(rule);
+	}
+	public int removedBy(Rule rule) {
+		return removedCounts.get(rule);
+	}
+	public int totalRemoved() {
+		int result = 0;
+		for(int count: removedCounts.values()) {
+			result += count;
+		}
+		return result;
+	}
+	public String report() {
+		StringBuilder result = new StringBuilder("peephole optimization:\n");
+		for(Rule rule: enabledRules) {
+			result.append("    " + rule + " removed " + removedBy(rule) + " instructions\n");
+		}
+		result.append("    total removed: " + totalRemoved() + "\n");
+		return result.toString();
+	}
+	private void countRemoved(Rule rule, int count) {
+		removedCounts.put(rule, removedCounts.get(rule) + count);
+	}
+
+
+	///////////////////////////////////////////////////////////////////
+	// rules.  each looks at the end of code and returns true if it changed it.
+
+	private boolean arithmeticIdentity(ASMCodeChunk code) {
+		int n = code.size();
+		if(n < 2 || code.opcode(n-2) != PushI) {
+			return false;
+		}
+		int constant = code.intOperand(n-2);
+		ASMOpcode operation = code.opcode(n-1);
+
+		if((constant == 0 && (operation == Add || operation == Subtract)) ||
+		   (constant == 1 && (operation == Multiply || operation == Divide))) {
+			code.removeLast(2);
+			countRemoved(Rule.ARITHMETIC_IDENTITY, 2);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean foldIntegerConstants(ASMCodeChunk code) {
+		int n = code.size();
+		if(n < 3 || code.opcode(n-3) != PushI || code.opcode(n-2) != PushI) {
+			return false;
+		}
+		int a = code.intOperand(n-3);
+		int b = code.intOperand(n-2);
+
+		int result;
+		switch(code.opcode(n-1)) {
+		case Add:		result = a + b;		break;
+		case Subtract:	result = a - b;		break;
+		case Multiply:	result = a * b;		break;
+		default:		return false;		// Divide and Remainder keep their runtime divide-by-zero behaviour.
+		}
+		code.removeLast(2);
+		code.setIntOperand(n-3, result);
+		countRemoved(Rule.FOLD_INTEGER_CONSTANTS, 2);
+		return true;
+	}
+
+	private boolean combineOffsets(ASMCodeChunk code) {
+		int n = code.size();
+		if(n < 4 || code.opcode(n-4) != PushI || code.opcode(n-3) != Add
+				 || code.opcode(n-2) != PushI || code.opcode(n-1) != Add) {
+			return false;
+		}
+		code.setIntOperand(n-4, code.intOperand(n-4) + code.intOperand(n-2));
+		code.removeLast(2);
+		countRemoved(Rule.COMBINE_OFFSETS, 2);
+		return true;
+	}
+
+	private boolean pushPop(ASMCodeChunk code) {
+		int n = code.size();
+		if(n < 2 || code.opcode(n-1) != Pop) {
+			return false;
+		}
+		ASMOpcode pusher = code.opcode(n-2);
+		if(pusher == PushI || pusher == PushF || pusher == PushD || pusher == Duplicate) {
+			code.removeLast(2);
+			countRemoved(Rule.PUSH_POP, 2);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean jumpToNext(ASMCodeChunk code) {
+		int n = code.size();
+		if(n < 2 || code.opcode(n-1) != Label) {
+			return false;
+		}
+		String target = code.stringOperand(n-1);
+
+		int jump = n-2;
+		while(jump >= 0 && code.opcode(jump) == Label) {
+			jump--;
+		}
+		if(jump >= 0 && code.opcode(jump) == Jump && target.equals(code.stringOperand(jump))) {
+			code.remove(jump);
+			countRemoved(Rule.JUMP_TO_NEXT, 1);
+			return true;
+		}
+		return false;
+	}
+}
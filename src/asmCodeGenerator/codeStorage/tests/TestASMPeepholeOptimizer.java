@@ -0,0 +1,150 @@
+package asmCodeGenerator.codeStorage.tests;
+
+import static asmCodeGenerator.codeStorage.ASMCodeFragment.CodeType.GENERATES_VOID;
+import static asmCodeGenerator.codeStorage.ASMOpcode.*;
+
+import java.util.EnumSet;
+
+import asmCodeGenerator.codeStorage.ASMCodeFragment;
+import asmCodeGenerator.codeStorage.ASMPeepholeOptimizer;
+import asmCodeGenerator.codeStorage.ASMPeepholeOptimizer.Rule;
+import tests.FileFixturesTestCase;
+
+public class TestASMPeepholeOptimizer extends FileFixturesTestCase {
+
+	public void testArithmeticIdentity() {
+		ASMCodeFragment before = code();
+		before.add(PushI, 7);
+		before.add(PushI, 0);
+		before.add(Add);
+		before.add(PushI, 1);
+		before.add(Multiply);
+		before.add(PushI, 1);
+		before.add(Divide);
+		before.add(PushI, 2);
+		before.add(Multiply);
+		ASMCodeFragment after = code();
+		after.add(PushI, 7);
+		after.add(PushI, 2);
+		after.add(Multiply);
+		assertOptimizesTo(Rule.ARITHMETIC_IDENTITY, 6, before, after);
+	}
+
+	public void testFoldIntegerConstants() {
+		ASMCodeFragment before = code();
+		before.add(PushI, 2);
+		before.add(PushI, 3);
+		before.add(Add);
+		before.add(PushI, 4);
+		before.add(Multiply);
+		before.add(PushI, 5);
+		before.add(Subtract);
+		ASMCodeFragment after = code();
+		after.add(PushI, 15);
+		assertOptimizesTo(Rule.FOLD_INTEGER_CONSTANTS, 6, before, after);
+	}
+	public void testDivideNotFolded() {
+		ASMCodeFragment before = code();
+		before.add(PushI, 6);
+		before.add(PushI, 0);
+		before.add(Divide);
+		before.add(PushI, 6);
+		before.add(PushI, 2);
+		before.add(Divide);
+		assertOptimizesTo(Rule.FOLD_INTEGER_CONSTANTS, 0, before, before);
+	}
+	public void testNoFoldingAcrossLabel() {
+		ASMCodeFragment before = code();
+		before.add(PushI, 2);
+		before.add(Label, "join");
+		before.add(PushI, 3);
+		before.add(Add);
+		assertOptimizesTo(Rule.FOLD_INTEGER_CONSTANTS, 0, before, before);
+
+		ASMCodeFragment offsets = code();
+		offsets.add(PushI, 4);
+		offsets.add(Add);
+		offsets.add(Label, "join");
+		offsets.add(PushI, 8);
+		offsets.add(Add);
+		assertOptimizesTo(Rule.COMBINE_OFFSETS, 0, offsets, offsets);
+	}
+
+	public void testCombineOffsets() {
+		ASMCodeFragment before = code();
+		before.add(PushD, "record");
+		before.add(PushI, 4);
+		before.add(Add);
+		before.add(PushI, 8);
+		before.add(Add);
+		before.add(PushI, 1);
+		before.add(Add);
+		before.add(LoadI);
+		ASMCodeFragment after = code();
+		after.add(PushD, "record");
+		after.add(PushI, 13);
+		after.add(Add);
+		after.add(LoadI);
+		assertOptimizesTo(Rule.COMBINE_OFFSETS, 4, before, after);
+	}
+
+	public void testPushPop() {
+		ASMCodeFragment before = code();
+		before.add(PushI, 1);
+		before.add(PushI, 2);
+		before.add(Pop);
+		before.add(Duplicate);
+		before.add(Pop);
+		before.add(PushF, 1.5);
+		before.add(Pop);
+		before.add(LoadI);
+		before.add(Pop);
+		ASMCodeFragment after = code();
+		after.add(PushI, 1);
+		after.add(LoadI);
+		after.add(Pop);
+		assertOptimizesTo(Rule.PUSH_POP, 6, before, after);
+	}
+
+	public void testJumpToNext() {
+		ASMCodeFragment before = code();
+		before.add(Jump, "end");
+		before.add(Label, "other");
+		before.add(Label, "end");
+		before.add(Jump, "elsewhere");
+		before.add(Label, "end2");
+		ASMCodeFragment after = code();
+		after.add(Label, "other");
+		after.add(Label, "end");
+		after.add(Jump, "elsewhere");
+		after.add(Label, "end2");
+		assertOptimizesTo(Rule.JUMP_TO_NEXT, 1, before, after);
+	}
+
+	// a rule's rewrite can make room for another's.
+	public void testRulesFeedEachOther() {
+		ASMCodeFragment before = code();
+		before.add(PushD, "record");
+		before.add(PushI, 3);
+		before.add(PushI, 3);
+		before.add(Subtract);
+		before.add(Add);
+		before.add(LoadI);
+		ASMCodeFragment after = code();
+		after.add(PushD, "record");
+		after.add(LoadI);
+		ASMPeepholeOptimizer optimizer = ASMPeepholeOptimizer.withAllRules();
+		assertEquals(after.toString(), optimizer.optimize(before).toString());
+		assertEquals(4, optimizer.totalRemoved());
+	}
+
+
+	private static ASMCodeFragment code() {
+		return new ASMCodeFragment(GENERATES_VOID);
+	}
+	private void assertOptimizesTo(Rule rule, int removed, ASMCodeFragment before, ASMCodeFragment after) {
+		ASMPeepholeOptimizer optimizer = new ASMPeepholeOptimizer(EnumSet.of(rule));
+		assertEquals(after.toString(), optimizer.optimize(before).toString());
+		assertEquals(removed, optimizer.removedBy(rule));
+	}
+}
@@ -6,6 +6,7 @@ import static asmCodeGenerator.codeStorage.ASMOpcode.*;
 
 import asmCodeGenerator.Labeller;
 import asmCodeGenerator.codeStorage.ASMCodeFragment;
+import context.CompilationContext;
 
 public class MemoryManager {
 	// Debug Mode. DEBUGGING Adds debug code and executes insertDebugMain when the program is initiailzed.
@@ -19,6 +20,7 @@ public class MemoryManager {
 	private static final String MEM_MANAGER_MAKE_ONE_TAG = "-mem-manager-one-tag";
 	public  static final String MEM_MANAGER_ALLOCATE =     "-mem-manager-allocate";
 	public  static final String MEM_MANAGER_DEALLOCATE =   "-mem-manager-deallocate";
+	private static final String MEM_MANAGER_FREE_BLOCK =   "-mem-manager-free-block";
 	private static final String MEM_MANAGER_REMOVE_BLOCK = "-mem-manager-remove-block";
 	public  static final String MEM_MANAGER_GET_ID       = "-mem-manager-get-id";
 	public  static final String MEM_MANAGER_DIAGNOSTICS  = "-mem-manager-diagnostics";
@@ -27,6 +29,7 @@ public class MemoryManager {
 	private static final String MEM_MANAGER_HEAP_START_PTR =   "$heap-start-ptr";
 	private static final String MEM_MANAGER_HEAP_END_PTR =     "$heap-after-ptr";
 	private static final String MEM_MANAGER_FIRST_FREE_BLOCK = "$heap-first-free";
+	private static final String MEM_MANAGER_SIZE_CLASS_HEADS = "$heap-size-class-heads";
 	private static final String MEM_MANAGER_HEAP =             "$heap-memory";
 	
 	//
@@ -58,10 +61,19 @@ public class MemoryManager {
 	private static final String MMGR_ALLOC_TEST_BLOCK =  		"-mmgr-alloc-test-block";
 	private static final String MMGR_ALLOC_NO_BLOCK_WORKS = 	"-mmgr-alloc-no-block-works";
 	private static final String MMGR_ALLOC_RETURN_USERBLOCK =	"-mmgr-alloc-return-userblock";
+	private static final String MMGR_ALLOC_CLASS_HEAD =			"$mmgr-alloc-class-head";
+	private static final String MMGR_ALLOC_FIRST_FIT =			"-mmgr-alloc-first-fit";
 	
 	// locals and branch targets for DEALLOCATE	
 	private static final String MMGR_DEALLOC_RETURN_ADDRESS = 	"$mmgr-dealloc-return";
 	private static final String MMGR_DEALLOC_BLOCK = 			"$mmgr-dealloc-block";
+	private static final String MMGR_DEALLOC_FIRST_FIT =		"-mmgr-dealloc-first-fit";
+	private static final String MMGR_DEALLOC_RETURN =			"-mmgr-dealloc-return";
+	private static final String MMGR_DEALLOC_NEIGHBOUR =		"$mmgr-dealloc-neighbour";
+	private static final String MMGR_DEALLOC_SIZE =				"$mmgr-dealloc-size";
+	private static final String MMGR_DEALLOC_TRY_PREV =			"-mmgr-dealloc-try-prev";
+	private static final String MMGR_DEALLOC_INSERT =			"-mmgr-dealloc-insert";
+	private static final String MMGR_DEALLOC_EMPTY_LIST =		"-mmgr-dealloc-empty-list";
 
 	// locals and branch targets for REMOVE_BLOCK
 	private static final String MMGR_REMOVE_RETURN_ADDRESS = 	"$mmgr-remove-return";
@@ -99,11 +111,25 @@ public class MemoryManager {
 	
 	// the only tunable parameter.
 	private static final int MEM_MANAGER_WASTE_TOLERANCE = MMGR_TWICE_TAG_SIZE + 8;
+	
+	// size classes: a request for at most MMGR_SMALL_USABLE_MAX bytes is rounded up to a
+	// multiple of MMGR_SIZE_CLASS_GRANULARITY and served from that size's own free list.
+	// these blocks are never split, so allocate and deallocate just pop and push a list head.
+	// larger requests use the first-fit list.
+	private static final int MMGR_SIZE_CLASS_GRANULARITY = 8;
+	private static final int MMGR_SMALL_USABLE_MAX = 64;
+	private static final int MMGR_NUM_SIZE_CLASSES = MMGR_SMALL_USABLE_MAX / MMGR_SIZE_CLASS_GRANULARITY;
+	private static final int MMGR_BLOCK_OVERHEAD = MMGR_TWICE_TAG_SIZE + MMGR_RECORDNUM_SIZE_IN_BYTES;
+	private static final int MMGR_SMALL_BLOCK_MAX = MMGR_SMALL_USABLE_MAX + MMGR_BLOCK_OVERHEAD;
+	
+	// isAvailable values.  a free size-class block is not AVAILABLE, so it is never coalesced.
+	private static final int MMGR_IN_USE = 0;
+	private static final int MMGR_AVAILABLE = 1;
+	private static final int MMGR_AVAILABLE_IN_CLASS = 2;
 
-	static Labeller labeller = new Labeller();
 
 	// this code should reside on the executable pathway before the application.
-	public static ASMCodeFragment codeForInitialization() {
+	public static ASMCodeFragment codeForInitialization(CompilationContext context) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		frag.add(Label, MEM_MANAGER_INITIALIZE);
 		
@@ -111,6 +137,8 @@ public class MemoryManager {
 		declareI(frag, MEM_MANAGER_HEAP_END_PTR);	
 		declareI(frag, MEM_MANAGER_FIRST_FREE_BLOCK);
 		declareI(frag, MEM_MANAGER_NEXT_RECORDNUM);
+		frag.add(DLabel, MEM_MANAGER_SIZE_CLASS_HEADS);		// one list head per size class, all empty
+		frag.add(DataZ, 4 * MMGR_NUM_SIZE_CLASSES);
 		
 		declareI(frag, MMGR_NEWBLOCK_BLOCK);
 		declareI(frag, MMGR_NEWBLOCK_SIZE);
@@ -126,7 +154,7 @@ public class MemoryManager {
 
 		
 		if(DEBUGGING) {
-			insertDebugMain(frag);
+			insertDebugMain(frag, context.getMemoryManagerLabeller());
 		}
 		
 		return frag;
@@ -134,19 +162,20 @@ public class MemoryManager {
 
 
 	// this goes after the main program, so that MEM_MANAGER_HEAP is after all other variable declarations.
-	public static ASMCodeFragment codeForAfterApplication() {
+	public static ASMCodeFragment codeForAfterApplication(CompilationContext context) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);	
+		Labeller labeller = context.getMemoryManagerLabeller();
 		
 		frag.append(subroutineMakeTags());
 		frag.append(subroutineMakeOneTag());
-		frag.append(subroutineAllocate());
+		frag.append(subroutineAllocate(context));
 		frag.append(subroutineDeallocate());
 		frag.append(subroutineRemoveBlock());
 		frag.append(subroutineGetID());
-		frag.append(subroutineDiagnostics());
+		frag.append(subroutineDiagnostics(labeller));
 		if(DEBUGGING) {
 			frag.append(subroutineDebugPrintBlock());
-			frag.append(subroutineDebugPrintFreeList());
+			frag.append(subroutineDebugPrintFreeList(labeller));
 		}
 		
 		frag.add(DLabel, STRING_PRINT_FORMAT);
@@ -234,7 +263,7 @@ public class MemoryManager {
 		return frag;
 	}	
 
-	private static ASMCodeFragment subroutineAllocate() {
+	private static ASMCodeFragment subroutineAllocate(CompilationContext context) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		frag.add(Label, MEM_MANAGER_ALLOCATE);		// [... usableSize (return)]
 
@@ -243,16 +272,50 @@ public class MemoryManager {
 		declareI(frag, MMGR_ALLOC_CURRENT_BLOCK);
 		declareI(frag, MMGR_ALLOC_REMAINDER_BLOCK);
 		declareI(frag, MMGR_ALLOC_REMAINDER_SIZE);
+		declareI(frag, MMGR_ALLOC_CLASS_HEAD);
 		
 
 		//store return addr
 		storeITo(frag, MMGR_ALLOC_RETURN_ADDRESS);	// [... usableSize]
 		
 		if(DEBUGGING2) {
-			printStackTop(frag, "--allocate %d bytes\n");
+			printStackTop(frag, context.getLabeller(), "--allocate %d bytes\n");
 		}
+		
+		// if (usableSize > SMALL_USABLE_MAX) goto FIRST_FIT
+		frag.add(Duplicate);								// [... usableSize usableSize]
+		frag.add(PushI, MMGR_SMALL_USABLE_MAX);
+		frag.add(Subtract);
+		frag.add(JumpPos, MMGR_ALLOC_FIRST_FIT);			// [... usableSize]
+		
+		// small request: find its size class.  allocSize is the size of a block of that class.
+		sizeClassIndex(frag);								// [... index]
+		frag.add(Duplicate);
+		sizeClassHead(frag);								// [... index headLocation]
+		storeITo(frag, MMGR_ALLOC_CLASS_HEAD);				// [... index]
+		sizeClassBlockSize(frag);							// [... classBlockSize]
+		storeITo(frag, MMGR_ALLOC_SIZE);					// [...]
+		
+		// curblock = head; if (curblock == null) goto NO_BLOCK_WORKS
+		loadIFrom(frag, MMGR_ALLOC_CLASS_HEAD);
+		frag.add(LoadI);									// [... head]
+		frag.add(Duplicate);
+		storeITo(frag, MMGR_ALLOC_CURRENT_BLOCK);
+		frag.add(JumpFalse, MMGR_ALLOC_NO_BLOCK_WORKS);
+		
+		// head = curblock.nextPtr
+		loadIFrom(frag, MMGR_ALLOC_CURRENT_BLOCK);
+		readTagPointer(frag);								// [... next]
+		loadIFrom(frag, MMGR_ALLOC_CLASS_HEAD);				// [... next headLocation]
+		frag.add(Exchange);
+		frag.add(StoreI);									// [...]
+		
+		writeAvailableToBothTags(frag, MMGR_IN_USE, MMGR_ALLOC_CURRENT_BLOCK);
+		frag.add(Jump, MMGR_ALLOC_RETURN_USERBLOCK);
+		
 
 		//convert user size to mmgr size and store
+		frag.add(Label, MMGR_ALLOC_FIRST_FIT);				// [... usableSize]
 		frag.add(PushI, MMGR_TWICE_TAG_SIZE);			// [... usableSize 2*tagsize]
 		frag.add(Add);									// [... size]
 		frag.add(PushI, MMGR_RECORDNUM_SIZE_IN_BYTES); 	// [... size recordnumSize]
@@ -273,7 +336,7 @@ public class MemoryManager {
 		frag.add(Label, MMGR_ALLOC_TEST_BLOCK);
 			loadIFrom(frag, MMGR_ALLOC_CURRENT_BLOCK);		// [... block]
 			if(DEBUGGING2) {
-				printStackTop(frag, "--testing block %d\n");
+				printStackTop(frag, context.getLabeller(), "--testing block %d\n");
 			}
 			readTagSize(frag);								// [... block.size]
 			loadIFrom(frag, MMGR_ALLOC_SIZE);				// [... block.size allocSize]
@@ -298,6 +361,7 @@ public class MemoryManager {
 			// remove block from free list
 			loadIFrom(frag, MMGR_ALLOC_CURRENT_BLOCK);
 			frag.add(Call, MEM_MANAGER_REMOVE_BLOCK);
+			writeAvailableToBothTags(frag, MMGR_IN_USE, MMGR_ALLOC_CURRENT_BLOCK);
 			
 			// if (not wasting much memory) use this block as is
 			loadIFrom(frag, MMGR_ALLOC_CURRENT_BLOCK);		// [... block]
@@ -344,10 +408,11 @@ public class MemoryManager {
 			frag.add(Call, MEM_MANAGER_MAKE_TAGS);	
 			
 			// insert remainder block into free block list
+			// (free-block takes a user block, which starts after the tag and the record number)
 			loadIFrom(frag, MMGR_ALLOC_REMAINDER_BLOCK);
-			frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES);
+			frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES + MMGR_RECORDNUM_SIZE_IN_BYTES);
 			frag.add(Add);
-			frag.add(Call, MEM_MANAGER_DEALLOCATE);
+			frag.add(Call, MEM_MANAGER_FREE_BLOCK);
 			
 			// currentBlock is now usable.
 			frag.add(Jump, MMGR_ALLOC_RETURN_USERBLOCK);
@@ -356,7 +421,7 @@ public class MemoryManager {
 		
 		frag.add(Label, MMGR_ALLOC_NO_BLOCK_WORKS);
 			if(DEBUGGING2) {
-				debugPrintString(frag, "--NO BLOCK WORKS\n");
+				debugPrintString(frag, context.getMemoryManagerLabeller(), "--NO BLOCK WORKS\n");
 			}
 			loadIFrom(frag, MMGR_ALLOC_SIZE);			// [... size]
 //			debugPrintI(frag, "alloc ", MEM_MANAGER_HEAP_END_PTR);
@@ -445,27 +510,119 @@ public class MemoryManager {
 	}
 
 	// [... usableBlockPtr (return)]
+	// DEALLOCATE puts a size-class block back on its class list, any other block on the
+	// first-fit list.  FREE_BLOCK always uses the first-fit list; it is for the remainder
+	// of a split, whose size need not be that of a class.
 	private static ASMCodeFragment subroutineDeallocate() {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		frag.add(Label, MEM_MANAGER_DEALLOCATE);		// [... blockptr (return)]
 		
 		declareI(frag, MMGR_DEALLOC_RETURN_ADDRESS);
 		declareI(frag, MMGR_DEALLOC_BLOCK);
+		declareI(frag, MMGR_DEALLOC_NEIGHBOUR);
+		declareI(frag, MMGR_DEALLOC_SIZE);
 		
 		//store return addr
 		storeITo(frag, MMGR_DEALLOC_RETURN_ADDRESS);	// [... usableBlock]
+		userBlockToBlock(frag);							// [... block]
+		storeITo(frag, MMGR_DEALLOC_BLOCK);				// [...]
 		
-		// convert user block to mmgr block
-		frag.add(PushI, MMGR_RECORDNUM_SIZE_IN_BYTES); 	// [... recordnumSize]
-		frag.add(Subtract);								// [... usableBlock']
-		frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES);		// [... usableBlock' tagsize]
-		frag.add(Subtract);								// [... block]
+		// if (block.size > SMALL_BLOCK_MAX) goto FIRST_FIT
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		readTagSize(frag);								// [... size]
+		frag.add(PushI, MMGR_SMALL_BLOCK_MAX);
+		frag.add(Subtract);
+		frag.add(JumpPos, MMGR_DEALLOC_FIRST_FIT);
+		
+		// block.nextPtr = head; head = block
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		readTagSize(frag);
+		frag.add(PushI, MMGR_BLOCK_OVERHEAD);
+		frag.add(Subtract);								// [... usableSize]
+		sizeClassIndex(frag);
+		sizeClassHead(frag);							// [... headLocation]
+		frag.add(Duplicate);
+		frag.add(LoadI);								// [... headLocation head]
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);			// [... headLocation head block]
+		writeTagPointer(frag);							// [... headLocation]
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(StoreI);								// [...]
+		
+		writeAvailableToBothTags(frag, MMGR_AVAILABLE_IN_CLASS, MMGR_DEALLOC_BLOCK);
+		frag.add(Jump, MMGR_DEALLOC_RETURN);
+		
+		
+		frag.add(Label, MEM_MANAGER_FREE_BLOCK);		// [... blockptr (return)]
+		storeITo(frag, MMGR_DEALLOC_RETURN_ADDRESS);	// [... usableBlock]
+		userBlockToBlock(frag);							// [... block]
 		storeITo(frag, MMGR_DEALLOC_BLOCK);				// [...]
 		
-		// firstFree.prev = block
+		// coalesce with the following block if it is available
+		frag.add(Label, MMGR_DEALLOC_FIRST_FIT);
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(Duplicate);
+		readTagSize(frag);
+		frag.add(Add);									// [... next]
+		storeITo(frag, MMGR_DEALLOC_NEIGHBOUR);
+		
+		loadIFrom(frag, MEM_MANAGER_HEAP_END_PTR);
+		loadIFrom(frag, MMGR_DEALLOC_NEIGHBOUR);
+		frag.add(Subtract);
+		frag.add(JumpFalse, MMGR_DEALLOC_TRY_PREV);		// block is last in the heap
+		loadIFrom(frag, MMGR_DEALLOC_NEIGHBOUR);
+		readTagAvailable(frag);
+		frag.add(PushI, MMGR_AVAILABLE);
+		frag.add(Subtract);
+		frag.add(JumpTrue, MMGR_DEALLOC_TRY_PREV);
+		
+		loadIFrom(frag, MMGR_DEALLOC_NEIGHBOUR);
+		frag.add(Call, MEM_MANAGER_REMOVE_BLOCK);
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		readTagSize(frag);
+		loadIFrom(frag, MMGR_DEALLOC_NEIGHBOUR);
+		readTagSize(frag);
+		frag.add(Add);									// [... block.size+next.size]
+		storeITo(frag, MMGR_DEALLOC_SIZE);
+		resizeBlock(frag, MMGR_DEALLOC_BLOCK, MMGR_DEALLOC_SIZE);
+		
+		// coalesce with the preceding block if it is available
+		frag.add(Label, MMGR_DEALLOC_TRY_PREV);
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(PushD, MEM_MANAGER_HEAP);
+		frag.add(Subtract);
+		frag.add(JumpFalse, MMGR_DEALLOC_INSERT);		// block is first in the heap
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES);
+		frag.add(Subtract);								// [... prevTail]
+		readTagAvailable(frag);
+		frag.add(PushI, MMGR_AVAILABLE);
+		frag.add(Subtract);
+		frag.add(JumpTrue, MMGR_DEALLOC_INSERT);
+		
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(Duplicate);
+		frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES);
+		frag.add(Subtract);
+		readTagSize(frag);								// [... block prev.size]
+		frag.add(Duplicate);
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		readTagSize(frag);
+		frag.add(Add);
+		storeITo(frag, MMGR_DEALLOC_SIZE);				// [... block prev.size]
+		frag.add(Subtract);								// [... prev]
+		storeITo(frag, MMGR_DEALLOC_BLOCK);
+		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
+		frag.add(Call, MEM_MANAGER_REMOVE_BLOCK);
+		resizeBlock(frag, MMGR_DEALLOC_BLOCK, MMGR_DEALLOC_SIZE);
+		
+		frag.add(Label, MMGR_DEALLOC_INSERT);
+		// firstFree.prev = block, unless the free list is empty
+		loadIFrom(frag, MEM_MANAGER_FIRST_FREE_BLOCK);
+		frag.add(JumpFalse, MMGR_DEALLOC_EMPTY_LIST);
 		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
 		loadIFrom(frag, MEM_MANAGER_FIRST_FREE_BLOCK);	// [... block firstFree]
 		writeTagPointer(frag);											
+		frag.add(Label, MMGR_DEALLOC_EMPTY_LIST);
 
 		// block.prev = 0
 		frag.add(PushI, 0);
@@ -478,22 +635,15 @@ public class MemoryManager {
 		tailTag(frag);								// [... firstFree blockTail]
 		writeTagPointer(frag);
 				
-		// block.avail1 = 1;
-		frag.add(PushI, 1);						// [... 1]
-		loadIFrom(frag, MMGR_DEALLOC_BLOCK);	// [... 1 block]
-		writeTagAvailable(frag);
-
-		// block.avail2 = 1;
-		frag.add(PushI, 1);						// [... 1]
-		loadIFrom(frag, MMGR_DEALLOC_BLOCK);	// [... 1 block]
-		tailTag(frag);						// [... 1 blockTail]
-		writeTagAvailable(frag);
+		// block.avail1 = block.avail2 = 1;
+		writeAvailableToBothTags(frag, MMGR_AVAILABLE, MMGR_DEALLOC_BLOCK);
 
 		// firstFree = block
 		loadIFrom(frag, MMGR_DEALLOC_BLOCK);
 		storeITo(frag, MEM_MANAGER_FIRST_FREE_BLOCK);
 		
 		// return
+		frag.add(Label, MMGR_DEALLOC_RETURN);
 		loadIFrom(frag, MMGR_DEALLOC_RETURN_ADDRESS);
 		frag.add(Return);
 		return frag;
@@ -511,11 +661,11 @@ public class MemoryManager {
 		frag.add(Return);							// [... blockID]
 		return frag;
 	}
-	private static ASMCodeFragment subroutineDiagnostics() {
+	private static ASMCodeFragment subroutineDiagnostics(Labeller labeller) {
 		String MMGR_DIAG_TEST_PREFIX = "-$mmgr-diag-test-";
 		String MMGR_DIAG_JUMP_TABLE = "-$mmgr-diag-jump-table";
 		String MMGR_DIAG_END    = "-$mmgr-diag-end";
-		int MMGR_DIAG_MAXNUM = 4;
+		int MMGR_DIAG_MAXNUM = 5;
 		
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		
@@ -598,8 +748,127 @@ public class MemoryManager {
 		frag.add(Pop);
 		frag.add(Jump, MMGR_DIAG_END);
 		
+		// diag 5
+		// prints the size of the largest free block, the total size of free blocks,
+		// and the fragmentation ratio 100 - 100*largest/total, all in bytes including tags.
+		frag.add(Label, MMGR_DIAG_TEST_PREFIX + "5");
+		diagnosticFreeSpace(frag, labeller);
+		frag.add(Jump, MMGR_DIAG_END);
+		
 		return frag;
 	}
+	private static void diagnosticFreeSpace(ASMCodeFragment frag, Labeller labeller) {
+		String block = "$mmgr-diag-block";
+		String largest = "$mmgr-diag-largest";
+		String total = "$mmgr-diag-total";
+		String sizeClass = "$mmgr-diag-class";
+		String firstFitLoop = "-mmgr-diag-first-fit-loop";
+		String firstFitEnd = "-mmgr-diag-first-fit-end";
+		String classLoop = "-mmgr-diag-class-loop";
+		String classBlockLoop = "-mmgr-diag-class-block-loop";
+		String classNext = "-mmgr-diag-class-next";
+		String classEnd = "-mmgr-diag-class-end";
+		String noFreeSpace = "-mmgr-diag-no-free-space";
+		String printRatio = "-mmgr-diag-print-ratio";
+		
+		declareI(frag, block);
+		declareI(frag, largest);
+		declareI(frag, total);
+		declareI(frag, sizeClass);
+		
+		frag.add(PushI, 0);
+		storeITo(frag, largest);
+		frag.add(PushI, 0);
+		storeITo(frag, total);
+		
+		// first-fit list, linked through the tail tags
+		loadIFrom(frag, MEM_MANAGER_FIRST_FREE_BLOCK);
+		storeITo(frag, block);
+		frag.add(Label, firstFitLoop);
+		loadIFrom(frag, block);
+		frag.add(JumpFalse, firstFitEnd);
+		countFreeBlock(frag, labeller, block, largest, total);
+		loadIFrom(frag, block);
+		tailTag(frag);
+		readTagPointer(frag);
+		storeITo(frag, block);
+		frag.add(Jump, firstFitLoop);
+		frag.add(Label, firstFitEnd);
+		
+		// size-class lists, linked through the head tags
+		frag.add(PushI, 0);
+		storeITo(frag, sizeClass);
+		frag.add(Label, classLoop);
+		loadIFrom(frag, sizeClass);
+		frag.add(PushI, MMGR_NUM_SIZE_CLASSES);
+		frag.add(Subtract);
+		frag.add(JumpFalse, classEnd);
+		loadIFrom(frag, sizeClass);
+		sizeClassHead(frag);
+		frag.add(LoadI);
+		storeITo(frag, block);
+		frag.add(Label, classBlockLoop);
+		loadIFrom(frag, block);
+		frag.add(JumpFalse, classNext);
+		countFreeBlock(frag, labeller, block, largest, total);
+		loadIFrom(frag, block);
+		readTagPointer(frag);
+		storeITo(frag, block);
+		frag.add(Jump, classBlockLoop);
+		frag.add(Label, classNext);
+		incrementInteger(frag, sizeClass);
+		frag.add(Jump, classLoop);
+		frag.add(Label, classEnd);
+		
+		loadIFrom(frag, largest);
+		frag.add(PushD, RunTime.INTEGER_PRINT_FORMAT);
+		frag.add(Printf);
+		frag.add(PushD, RunTime.SEPARATOR_PRINT_FORMAT);
+		frag.add(Printf);
+		loadIFrom(frag, total);
+		frag.add(PushD, RunTime.INTEGER_PRINT_FORMAT);
+		frag.add(Printf);
+		frag.add(PushD, RunTime.SEPARATOR_PRINT_FORMAT);
+		frag.add(Printf);
+		
+		loadIFrom(frag, total);
+		frag.add(JumpFalse, noFreeSpace);
+		frag.add(PushI, 100);
+		loadIFrom(frag, largest);
+		frag.add(PushI, 100);
+		frag.add(Multiply);
+		loadIFrom(frag, total);
+		frag.add(Divide);
+		frag.add(Subtract);								// [... ratio]
+		frag.add(Jump, printRatio);
+		frag.add(Label, noFreeSpace);
+		frag.add(PushI, 0);
+		frag.add(Label, printRatio);
+		frag.add(PushD, RunTime.INTEGER_PRINT_FORMAT);
+		frag.add(Printf);
+		frag.add(PushD, RunTime.NEWLINE_PRINT_FORMAT);
+		frag.add(Printf);
+	}
+	// [...] -> [...]
+	// adds the size of the block at *block to *total, and keeps *largest the largest size seen.
+	private static void countFreeBlock(ASMCodeFragment frag, Labeller labeller, String block, String largest, String total) {
+		String newLargest = labeller.newLabel("-mmgr-diag-new-largest", "");
+		String counted = labeller.newLabelSameNumber("-mmgr-diag-counted", "");
+		
+		loadIFrom(frag, block);
+		readTagSize(frag);								// [... size]
+		frag.add(Duplicate);
+		addITo(frag, total);
+		frag.add(Duplicate);
+		loadIFrom(frag, largest);
+		frag.add(Subtract);
+		frag.add(JumpPos, newLargest);
+		frag.add(Pop);
+		frag.add(Jump, counted);
+		frag.add(Label, newLargest);
+		storeITo(frag, largest);
+		frag.add(Label, counted);
+	}
 
 	/*
 	 * [... baseAddr] -> [... baseAddr]
@@ -663,6 +932,61 @@ public class MemoryManager {
 		loadIFrom(frag, MMGR_NEWBLOCK_BLOCK);
 	}
 
+	// [...] -> [...]
+	// writes isAvailable to both tags of the block at *blockLocation.
+	private static void writeAvailableToBothTags(ASMCodeFragment frag, int isAvailable, String blockLocation) {
+		frag.add(PushI, isAvailable);
+		loadIFrom(frag, blockLocation);
+		writeTagAvailable(frag);
+		frag.add(PushI, isAvailable);
+		loadIFrom(frag, blockLocation);
+		tailTag(frag);
+		writeTagAvailable(frag);
+	}
+	// [...] -> [...]
+	// writes the size in *sizeLocation to both tags of the block at *blockLocation.
+	private static void resizeBlock(ASMCodeFragment frag, String blockLocation, String sizeLocation) {
+		loadIFrom(frag, sizeLocation);
+		loadIFrom(frag, blockLocation);
+		writeTagSize(frag);								// head tag first: tailTag reads it
+		loadIFrom(frag, sizeLocation);
+		loadIFrom(frag, blockLocation);
+		tailTag(frag);
+		writeTagSize(frag);
+	}
+	
+	// [... usableBlock] -> [... block]
+	private static void userBlockToBlock(ASMCodeFragment frag) {
+		frag.add(PushI, MMGR_RECORDNUM_SIZE_IN_BYTES); 	// [... usableBlock recordnumSize]
+		frag.add(Subtract);								// [... usableBlock']
+		frag.add(PushI, MMGR_TAG_SIZE_IN_BYTES);		// [... usableBlock' tagsize]
+		frag.add(Subtract);								// [... block]
+	}
+	
+	// [... usableSize] -> [... sizeClassIndex]			for 0 < usableSize <= SMALL_USABLE_MAX
+	private static void sizeClassIndex(ASMCodeFragment frag) {
+		frag.add(PushI, 1);
+		frag.add(Subtract);
+		frag.add(PushI, MMGR_SIZE_CLASS_GRANULARITY);
+		frag.add(Divide);
+	}
+	// [... sizeClassIndex] -> [... headLocation]
+	private static void sizeClassHead(ASMCodeFragment frag) {
+		frag.add(PushI, 4);
+		frag.add(Multiply);
+		frag.add(PushD, MEM_MANAGER_SIZE_CLASS_HEADS);
+		frag.add(Add);
+	}
+	// [... sizeClassIndex] -> [... blockSize]			block size includes tags and record number
+	private static void sizeClassBlockSize(ASMCodeFragment frag) {
+		frag.add(PushI, 1);
+		frag.add(Add);
+		frag.add(PushI, MMGR_SIZE_CLASS_GRANULARITY);
+		frag.add(Multiply);
+		frag.add(PushI, MMGR_BLOCK_OVERHEAD);
+		frag.add(Add);
+	}
+
 	// [... blockBaseLocation] -> [... blockTailTagLocation]
 	private static void tailTag(ASMCodeFragment frag) {
 		frag.add(Duplicate);						// [... block block]
@@ -709,7 +1033,7 @@ public class MemoryManager {
 	private static final String MMGRD_MAIN_BLOCK3 = "$$mmgrd-main-block3";
 	private static final String MMGRD_MAIN_BLOCK4 = "$$mmgrd-main-block4";
 	
-	private static void insertDebugMain(ASMCodeFragment frag) {
+	private static void insertDebugMain(ASMCodeFragment frag, Labeller labeller) {
 		frag.add(DLabel, MMGRD_FORMAT);
 		frag.add(DataS, "%s %d\n");	
 		frag.add(DLabel, MMGRD_FORMAT_FOR_STRING);
@@ -722,49 +1046,49 @@ public class MemoryManager {
 		frag.add(PushI, 30);					// request block of size 30 => 30+18=48
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK1);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK1);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK1);
 		
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK1);			// [... block1]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation done\n");
+		debugPrintString(frag, labeller, "deallocation done\n");
 		
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		frag.add(PushI, 40);
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK2);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK2);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK2);
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK2);			// [... block2]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation 2 done\n");
+		debugPrintString(frag, labeller, "deallocation 2 done\n");
 
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		frag.add(PushI, 150);
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK3);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK3);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK3);
 
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK3);			// [... block3]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation 3 done\n");
+		debugPrintString(frag, labeller, "deallocation 3 done\n");
 
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		frag.add(PushI, 30);
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK4);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK4);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK4);
 		
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK4);			// [... block4]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation 4 done\n");
+		debugPrintString(frag, labeller, "deallocation 4 done\n");
 
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
@@ -772,13 +1096,13 @@ public class MemoryManager {
 		frag.add(PushI, 25);
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK1);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK1);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK1);
 		
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK1);			// [... block4]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation 5 done\n");
+		debugPrintString(frag, labeller, "deallocation 5 done\n");
 
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
@@ -787,20 +1111,20 @@ public class MemoryManager {
 		frag.add(PushI, 40);
 		debugSystemBlockAllocate(frag);
 		storeITo(frag, MMGRD_MAIN_BLOCK1);
-		debugPrintBlockFromPointer(frag, MMGRD_MAIN_BLOCK1);
+		debugPrintBlockFromPointer(frag, labeller, MMGRD_MAIN_BLOCK1);
 		
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 		
 		loadIFrom(frag, MMGRD_MAIN_BLOCK1);			// [... block4]
 		debugSystemBlockDeallocate(frag);
-		debugPrintString(frag, "deallocation 6 done\n");
+		debugPrintString(frag, labeller, "deallocation 6 done\n");
 
 		frag.add(Call, MMGRD_PRINT_FREE_LIST);
 	}
-	private static void debugPrintBlockFromPointer(ASMCodeFragment frag, String pointerName) {
+	private static void debugPrintBlockFromPointer(ASMCodeFragment frag, Labeller labeller, String pointerName) {
 		loadIFrom(frag, pointerName);
 		frag.add(Call, MMGRD_PRINT_BLOCK);	
-		debugPrintString(frag, "\n");
+		debugPrintString(frag, labeller, "\n");
 	}
 
 	// [... size] -> [... block]
@@ -877,7 +1201,7 @@ public class MemoryManager {
 		
 		return frag;
 	}
-	private static ASMCodeFragment subroutineDebugPrintFreeList() {
+	private static ASMCodeFragment subroutineDebugPrintFreeList(Labeller labeller) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		frag.add(Label, MMGRD_PRINT_FREE_LIST);				// [... block (return)]
 
@@ -886,7 +1210,7 @@ public class MemoryManager {
 		
 		storeITo(frag, MMGRD_PFREE_RETURN_ADDRESS);
 		
-		debugPrintString(frag, "Free list:\n");
+		debugPrintString(frag, labeller, "Free list:\n");
 		
 		
 		loadIFrom(frag, MEM_MANAGER_FIRST_FREE_BLOCK);
@@ -898,10 +1222,10 @@ public class MemoryManager {
 			frag.add(JumpFalse, MMGRD_PFREE_LOOP_DONE);
 			
 			// print "    "+currentBlock;
-			debugPrintString(frag, "    ");						
+			debugPrintString(frag, labeller, "    ");						
 			loadIFrom(frag, MMGRD_PFREE_CURRENT_BLOCK);
 			frag.add(Call, MMGRD_PRINT_BLOCK);
-			debugPrintString(frag, "\n");
+			debugPrintString(frag, labeller, "\n");
 			
 			// currentBlock = currentBlock.next
 			loadIFrom(frag, MMGRD_PFREE_CURRENT_BLOCK);		// [... block]
@@ -912,12 +1236,12 @@ public class MemoryManager {
 			frag.add(Jump, MMGRD_PFREE_LOOP_TEST);
 
 			frag.add(Label, MMGRD_PFREE_LOOP_DONE);
-			debugPrintString(frag, "\n");
+			debugPrintString(frag, labeller, "\n");
 			loadIFrom(frag, MMGRD_PFREE_RETURN_ADDRESS);
 			frag.add(Return);
 		return frag;
 	}
-	public static void debugPrintString(ASMCodeFragment code, String string) {
+	public static void debugPrintString(ASMCodeFragment code, Labeller labeller, String string) {
 		String stringLabel = labeller.newLabel("debug-pstring", "");
 		code.add(DLabel, stringLabel);
 		code.add(DataS, string);
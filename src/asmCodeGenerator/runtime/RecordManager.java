@@ -6,17 +6,16 @@ import static asmCodeGenerator.codeStorage.ASMOpcode.*;
 import java.util.ArrayList;
 import java.util.List;
 
-import semanticAnalyzer.SemanticAnalyzer;
 import semanticAnalyzer.types.TupleType;
 import symbolTable.Binding;
 import symbolTable.FunctionBinding;
 import symbolTable.Scope;
 import symbolTable.SymbolTable;
 import symbolTable.TupleBinding;
-import asmCodeGenerator.ASMCodeGenerator;
 import asmCodeGenerator.Labeller;
 import asmCodeGenerator.Macros;
 import asmCodeGenerator.codeStorage.ASMCodeFragment;
+import context.CompilationContext;
 
 public class RecordManager {
 	/*
@@ -28,31 +27,33 @@ public class RecordManager {
 	
 	public static final String DEALLOCATE_CHECKLIST = "$$deallocate-checked-list-table";					// deallocate routinue
 	private static final String TUPLE_MASTER_TABLE = "$tuple-attribute-table-address-table";				// store offset
-	private static final String TO_BE_CHECKED_LIST = "$to-be-checked-list-table-start";
+	private static final String GROW_CHECKLIST = "$$grow-checked-list-table";							// grow routinue
+	private static final String TO_BE_CHECKED_LIST = "$to-be-checked-list-table-start";						// pointer to heap block, 0 until first add
 	private static final String TO_BE_CHECKED_LIST_SIZE = "$to-be-ckecked-list-table-size";					// in terms of 4byte
-	
-	private static Labeller labeller = ASMCodeGenerator.getLabeller();
+	private static final String TO_BE_CHECKED_LIST_CAPACITY = "$to-be-checked-list-table-capacity";		// in terms of 4byte
+	private static final int TO_BE_CHECKED_LIST_INITIAL_CAPACITY = 16;
 	
 	
 	// initialization
-	public static ASMCodeFragment codeForInitialization() {
+	public static ASMCodeFragment codeForInitialization(CompilationContext context) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		
-		frag.append(initializeTupleAttributeTable());
+		frag.append(initializeTupleAttributeTable(context.getGlobalScope()));
 		frag.append(initializeToBeCheckedTable());
-		frag.append(deallocateSubRoutine());
+		frag.append(growCheckListSubRoutine());
+		frag.append(deallocateSubRoutine(context.getLabeller()));
 		
 		return frag;
 	}
 	
-	private static ASMCodeFragment initializeTupleAttributeTable() {
+	private static ASMCodeFragment initializeTupleAttributeTable(Scope globalScope) {
 		/*
 		 * master table stores address of different Tables
 		 * tuple Attribute table entry = $master-table + (typeID-100)*4
 		 * each tuple attribute table stores the offset of reference type, -1 as terminator
 		 */
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
-		List<Binding> tupleBindings = getTupleBindings();
+		List<Binding> tupleBindings = getTupleBindings(globalScope);
 		if(tupleBindings.size() == 0 ) {
 			return frag;
 		}
@@ -87,14 +88,92 @@ public class RecordManager {
 		frag.add(DataI, 0);
 		
 		frag.add(DLabel, TO_BE_CHECKED_LIST);
-		frag.add(DataZ, 600);					// to-be-checked list capacity is 150
+		frag.add(DataI, 0);						// allocated from the heap on first add
+		
+		frag.add(DLabel, TO_BE_CHECKED_LIST_CAPACITY);
+		frag.add(DataI, 0);
+		
+		return frag;
+	}
+	
+	// [...(return)] -> [...]
+	// called when the to-be-checked list is full: moves it to a heap block twice its
+	// size and releases the old one.  The first add finds capacity 0 and gets a block of
+	// TO_BE_CHECKED_LIST_INITIAL_CAPACITY.  The list cannot be flushed early instead,
+	// since the records on it may still be temporaries on the stack.
+	private static ASMCodeFragment growCheckListSubRoutine() {
+		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
+		String oldListLocation = "$record-manager-grow-old-list";
+		String copyItrLocation = "$record-manager-grow-copy-itr";
+		
+		String returnLabel = "$record-manager-grow-return";
+		String doubleCapacity = "$record-manager-grow-double-capacity";
+		String storeCapacity = "$record-manager-grow-store-capacity";
+		String copyLoopStart = "$record-manager-grow-copy-loop-start";
+		String copyLoopEnd = "$record-manager-grow-copy-loop-end";
+		
+		Macros.declareI(frag, oldListLocation);
+		Macros.declareI(frag, copyItrLocation);
+		
+		frag.add(Label, GROW_CHECKLIST);				// [...R]
+		
+		// capacity = capacity*2, or the initial capacity if there is no block yet
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST);
+		Macros.storeITo(frag, oldListLocation);
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST_CAPACITY);
+		frag.add(Duplicate);
+		frag.add(JumpTrue, doubleCapacity);
+		frag.add(Pop);
+		frag.add(PushI, TO_BE_CHECKED_LIST_INITIAL_CAPACITY);
+		frag.add(Jump, storeCapacity);
+		frag.add(Label, doubleCapacity);
+		frag.add(PushI, 2);
+		frag.add(Multiply);
+		frag.add(Label, storeCapacity);					// [...R newCapacity]
+		Macros.storeITo(frag, TO_BE_CHECKED_LIST_CAPACITY);
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST_CAPACITY);
+		frag.add(PushI, 4);
+		frag.add(Multiply);
+		frag.add(Call, MemoryManager.MEM_MANAGER_ALLOCATE);
+		Macros.storeITo(frag, TO_BE_CHECKED_LIST);		// [...R]
+		
+		// copy the old entries, then release the old block
+		frag.add(PushI, 0);
+		Macros.storeITo(frag, copyItrLocation);
+		frag.add(Label, copyLoopStart);
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST_SIZE);
+		Macros.loadIFrom(frag, copyItrLocation);
+		frag.add(Subtract);
+		frag.add(JumpFalse, copyLoopEnd);
+		Macros.loadIFrom(frag, copyItrLocation);
+		frag.add(PushI, 4);
+		frag.add(Multiply);								// [...R offset]
+		frag.add(Duplicate);
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST);
+		frag.add(Add);									// [...R offset newAdr]
+		frag.add(Exchange);
+		Macros.loadIFrom(frag, oldListLocation);
+		frag.add(Add);
+		frag.add(LoadI);								// [...R newAdr entry]
+		frag.add(StoreI);
+		Macros.incrementInteger(frag, copyItrLocation);
+		frag.add(Jump, copyLoopStart);
+		frag.add(Label, copyLoopEnd);
+		
+		Macros.loadIFrom(frag, oldListLocation);
+		frag.add(JumpFalse, returnLabel);
+		Macros.loadIFrom(frag, oldListLocation);
+		frag.add(Call, MemoryManager.MEM_MANAGER_DEALLOCATE);
+		
+		frag.add(Label, returnLabel);
+		frag.add(Return);
 		
 		return frag;
 	}
 	
 	
 	// Deallocate Module
-	public static ASMCodeFragment deallocateSubRoutine() {
+	public static ASMCodeFragment deallocateSubRoutine(Labeller labeller) {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		String ItrLocation = "$record-manager-deallocate-itr-adr";
 		String checkListLoopStart = "$record-manager-deallocate-checklist-loop-start";
@@ -126,7 +205,7 @@ public class RecordManager {
 		frag.add(Subtract);
 		frag.add(JumpFalse, checkListLoopEnd);		
 		// real looping start
-		frag.add(PushD, TO_BE_CHECKED_LIST);
+		Macros.loadIFrom(frag, TO_BE_CHECKED_LIST);		// reloaded each time, as deallocating a tuple can grow the list
 		Macros.loadIFrom(frag, ItrLocation);
 		frag.add(PushI, 4);
 		frag.add(Multiply);							// record location: tableHead + 4*itr
@@ -173,12 +252,12 @@ public class RecordManager {
 		
 		// deallocate Array
 		frag.add(Label, deallocateArrayLabel);
-		deallocateArray(frag);
+		deallocateArray(frag, labeller);
 		frag.add(Jump, checkListLoopContinue);
 		
 		// deallocate Tuple
 		frag.add(Label, deallocateTupleLabel);
-		deallocateTuple(frag, deallocateTupleItrLabel);
+		deallocateTuple(frag, labeller, deallocateTupleItrLabel);
 		frag.add(Jump, checkListLoopContinue);
 		
 		// loop continue
@@ -200,7 +279,7 @@ public class RecordManager {
 		return frag;
 	}
 	
- 	private static void deallocateArray(ASMCodeFragment frag) {
+ 	private static void deallocateArray(ASMCodeFragment frag, Labeller labeller) {
 		String subElementLoopStart = "record-manager-deallocate-array-subelement-start";
 		String subElementLoopEnd = "record-manager-deallocate-array-subelement-end";
 		
@@ -231,7 +310,7 @@ public class RecordManager {
 		// decrement refcount of subElement
 		frag.add(Duplicate);						// [...adr n adr* adr*]
 		frag.add(LoadI);							// [...adr n adr* subElement]
-		decrementRefcount(frag);
+		decrementRefcount(frag, labeller);
 		frag.add(Pop);								// [...adr n adr*]
 		
 		// maintain loop invariant
@@ -256,7 +335,7 @@ public class RecordManager {
 		deallocateRecord(frag);
 	}
 	
-	private static void deallocateTuple(ASMCodeFragment frag, String itrLabel) {
+	private static void deallocateTuple(ASMCodeFragment frag, Labeller labeller, String itrLabel) {
 		String attributeLoopStart = "$$record-manager-deallocate-tuple-attribute-start";
 		String attributeLoopEnd = "$$record-manager-deallocate-tuple-attribute-end";
 		String JumpOverIfSubTypeNotReference = "$$record-manager-deallocate-tuple-subType not reference";
@@ -302,7 +381,7 @@ public class RecordManager {
 		// decrement refcount of attir
 		frag.add(Add);						// [...adr attriAdr]
 		frag.add(LoadI);					// [...adr attir]
-		decrementRefcount(frag);
+		decrementRefcount(frag, labeller);
 		frag.add(Pop);						// [...adr]
 		// increment itr
 		Macros.incrementInteger(frag, itrLabel);
@@ -336,7 +415,7 @@ public class RecordManager {
 	//------------------------------------------------------------
 	// Macros for reference counting
 	// compile time
-	public static void incrementRefcount(ASMCodeFragment code) {
+	public static void incrementRefcount(ASMCodeFragment code, Labeller labeller) {
 		/* 
 		 * increment refcount
 		 * if refcount reaches 128
@@ -384,7 +463,7 @@ public class RecordManager {
 		code.add(StoreI);
 	}
 	
-	public static void decrementRefcount(ASMCodeFragment code) {
+	public static void decrementRefcount(ASMCodeFragment code, Labeller labeller) {
 		/* decrement refcount by 1
 		 * add to checklist if refcount is 0
 		 * (skip if ref is null)
@@ -413,28 +492,34 @@ public class RecordManager {
 		Macros.readCOffset(code, 8);	// [...ref refcount]
 		code.add(JumpTrue, endLabel);
 		// if refcount is 0, do fllowing
-		addToCheckList(code);
+		addToCheckList(code, labeller);
 		
 		// end label
 		code.add(Label, endLabel);
 		
 	}
-	public static void addToCheckList(ASMCodeFragment code) {
-		/* [...ref]
-		 * add to checklist
-		 * increment checklist size by 1
+	public static void addToCheckList(ASMCodeFragment code, Labeller labeller) {
+		/* [...ref] -> [...ref]
+		 * list[size] = ref, size++.  Inline, since it runs for every record that
+		 * reaches refcount 0; only a full list calls out, to grow it.
 		 */
-		code.add(Duplicate);
-		code.add(PushD, TO_BE_CHECKED_LIST);
+		String storeLabel = labeller.newLabel("record-manager-add-to-checklist-store", "");
+		code.add(Duplicate);								// [...ref ref]
+		Macros.loadIFrom(code, TO_BE_CHECKED_LIST_SIZE);
+		Macros.loadIFrom(code, TO_BE_CHECKED_LIST_CAPACITY);
+		code.add(Subtract);
+		code.add(JumpTrue, storeLabel);
+		code.add(Call, GROW_CHECKLIST);
+		
+		code.add(Label, storeLabel);
+		Macros.loadIFrom(code, TO_BE_CHECKED_LIST);
 		Macros.loadIFrom(code, TO_BE_CHECKED_LIST_SIZE);
 		code.add(PushI, 4);
 		code.add(Multiply);
-		code.add(Add);										//[...ref ref adr]
-		code.add(Exchange);									//[...ref adr ref]
-		code.add(StoreI);
-		// increment size by 1
+		code.add(Add);										// [...ref ref adr]
+		code.add(Exchange);
+		code.add(StoreI);									// [...ref]
 		Macros.incrementInteger(code, TO_BE_CHECKED_LIST_SIZE);
-		
 	}
 	
 	
@@ -443,8 +528,7 @@ public class RecordManager {
 	
 	
 	// helper methods for initializion
-	private static List<Binding> getTupleBindings() {
-		Scope globalScope = SemanticAnalyzer.getGlobalScope();
+	private static List<Binding> getTupleBindings(Scope globalScope) {
 		SymbolTable globalSymbolTable = globalScope.getSymbolTable();
 		
 		List<Binding> bindings = new ArrayList<Binding>(globalSymbolTable.values());
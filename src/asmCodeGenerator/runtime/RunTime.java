@@ -4,11 +4,11 @@ import static asmCodeGenerator.codeStorage.ASMOpcode.*;
 
 import java.util.List;
 
-import semanticAnalyzer.SemanticAnalyzer;
 import symbolTable.Binding;
 import symbolTable.StaticBinding;
 import asmCodeGenerator.Macros;
 import asmCodeGenerator.codeStorage.ASMCodeFragment;
+import context.CompilationContext;
 
 public class RunTime {
 	public static final String EAT_LOCATION_ZERO      = "$eat-location-zero";		// helps us distinguish null pointers from real ones.
@@ -47,6 +47,12 @@ public class RunTime {
 	public static final String ARRAY_EMPTY_CREATION_SIZE_NEGATIVE_ERROR ="$$array-negative-size-creation";
 	public static final String NULL_POINTER_EXCEPTION_ERROR = "$$null-ptr-exception";
 
+	private final CompilationContext context;
+
+	private RunTime(CompilationContext context) {
+		this.context = context;
+	}
+
 	private ASMCodeFragment environmentASM() {
 		ASMCodeFragment result = new ASMCodeFragment(GENERATES_VOID);
 		
@@ -92,8 +98,8 @@ public class RunTime {
 	private ASMCodeFragment initializeStaticVariableBlock() {
 		ASMCodeFragment frag = new ASMCodeFragment(GENERATES_VOID);
 		
-		List<Binding> bindings = SemanticAnalyzer.getStaticBindings();
-		int blockSize = SemanticAnalyzer.getStaticAllocator().getMaxAllocatedSize();
+		List<Binding> bindings = context.getStaticBindings();
+		int blockSize = context.getStaticAllocator().getMaxAllocatedSize();
 		
 		
 		frag.add(DLabel, STATIC_VARIABLE_BLOCK);
@@ -272,7 +278,7 @@ public class RunTime {
 		frag.add(StoreC); 							// [...R C]
 		
 		// add to TO_BE_CHECKED_LIST
-		RecordManager.addToCheckList(frag);
+		RecordManager.addToCheckList(frag, context.getLabeller());
 		
 		// exchange and return
 		frag.add(Exchange); 						// [...C R]
@@ -437,7 +443,7 @@ public class RunTime {
 		
 		
 		// add to TO_BE_CHECKED_LIST
-		RecordManager.addToCheckList(frag);
+		RecordManager.addToCheckList(frag, context.getLabeller());
 		
 		// exchange and return
 		frag.add(Exchange);
@@ -530,7 +536,7 @@ public class RunTime {
 		frag.add(StoreI);
 		
 		// add to TO_BE_CHECKED_LIST
-		RecordManager.addToCheckList(frag);
+		RecordManager.addToCheckList(frag, context.getLabeller());
 		
 		// exchange and return
 		frag.add(Exchange);
@@ -601,7 +607,7 @@ public class RunTime {
 		frag.add(StoreI);		
 
 		// add to TO_BE_CHECKED_LIST
-		RecordManager.addToCheckList(frag);
+		RecordManager.addToCheckList(frag, context.getLabeller());
 		
 		// exchange and return
 		frag.add(Exchange);
@@ -687,8 +693,8 @@ public class RunTime {
 		frag.add(Jump, GENERAL_RUNTIME_ERROR);
 	}
 	
-	public static ASMCodeFragment getEnvironment() {
-		RunTime rt = new RunTime();
+	public static ASMCodeFragment getEnvironment(CompilationContext context) {
+		RunTime rt = new RunTime(context);
 		return rt.environmentASM();
 	}
 }
@@ -0,0 +1,125 @@
+package context;
+
+import java.util.List;
+
+import asmCodeGenerator.Labeller;
+import inputHandler.SourcePositions;
+import inputHandler.TextLocation;
+import lexicalAnalyzer.IdentifierTable;
+import symbolTable.Binding;
+import symbolTable.MemoryAllocator;
+import symbolTable.Scope;
+
+/** The state that belongs to one compilation: the sources it has read, the lexer's identifier
+ *  table, the message count, the global scope and static variables of the program, tuple
+ *  type ids, and the labellers of the code generator.
+ *  <p>
+ *  A compilation makes one context and hands it to each phase in turn: the lexer, the parser,
+ *  the semantic analyzer and the code generator all take it as an argument, and so do the
+ *  tasks they start on other threads.  Nothing else refers to it, so compilations with
+ *  different contexts do not see each other's state, and everything a compilation read
+ *  is garbage once its context is.
+ */
+public class CompilationContext {
+	private static final int FIRST_TUPLE_TYPE_ID = 100;
+
+
+	////////////////////////////////////////////////////////////////
+	// sources
+
+	private final SourcePositions sourcePositions = new SourcePositions();
+
+	/** The registry of the sources read in this compilation; see SourceBuffer. */
+	public SourcePositions getSourcePositions() {
+		return sourcePositions;
+	}
+	/** Returns the TextLocation of a packed position in one of this compilation's sources. */
+	public TextLocation locationOf(long position) {
+		return sourcePositions.locationOf(position);
+	}
+
+
+	////////////////////////////////////////////////////////////////
+	// lexical analysis
+
+	private final IdentifierTable identifierTable = new IdentifierTable();
+
+	public IdentifierTable getIdentifierTable() {
+		return identifierTable;
+	}
+
+
+	////////////////////////////////////////////////////////////////
+	// logging
+
+	private int numMessages = 0;
+	private int maxMessagesBeforeQuit = Integer.MAX_VALUE;
+
+	/** Counts one logged message, and returns true if that reaches the maximum. */
+	public boolean countMessage() {
+		numMessages++;
+		return numMessages >= maxMessagesBeforeQuit;
+	}
+	public int getNumMessages() {
+		return numMessages;
+	}
+	public boolean hasErrors() {
+		return numMessages != 0;
+	}
+	public void setMaximumErrorMessages(int numMessages) {
+		maxMessagesBeforeQuit = numMessages;
+	}
+
+
+	////////////////////////////////////////////////////////////////
+	// semantic analysis
+
+	private Scope globalScope;
+	private List<Binding> staticBindings;
+	private MemoryAllocator staticAllocator;
+	private int tupleTypeIdCount = FIRST_TUPLE_TYPE_ID;
+	private int staticBindingCount = 0;
+
+	public Scope getGlobalScope() {
+		return globalScope;
+	}
+	public void setGlobalScope(Scope globalScope) {
+		this.globalScope = globalScope;
+	}
+	public List<Binding> getStaticBindings() {
+		return staticBindings;
+	}
+	public MemoryAllocator getStaticAllocator() {
+		return staticAllocator;
+	}
+	public void setStaticStorage(List<Binding> staticBindings, MemoryAllocator staticAllocator) {
+		this.staticBindings = staticBindings;
+		this.staticAllocator = staticAllocator;
+	}
+
+	public int nextTupleTypeId() {
+		return tupleTypeIdCount++;
+	}
+	public int getTupleTypeIdCount() {
+		return tupleTypeIdCount;
+	}
+	public int nextStaticBindingNumber() {
+		return staticBindingCount++;
+	}
+
+
+	////////////////////////////////////////////////////////////////
+	// code generation
+
+	private final Labeller labeller = new Labeller();
+	private final Labeller memoryManagerLabeller = new Labeller();
+
+	/** The labeller of the generated program, shared by the code generator and its helpers. */
+	public Labeller getLabeller() {
+		return labeller;
+	}
+	/** The memory manager numbers its own labels, apart from the program's. */
+	public Labeller getMemoryManagerLabeller() {
+		return memoryManagerLabeller;
+	}
+}
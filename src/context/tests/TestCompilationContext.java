@@ -0,0 +1,128 @@
+package context.tests;
+
+import static applications.tests.FixtureDefinitions.TUPLE_PROGRAM_FILENAME;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import asmCodeGenerator.ASMCodeGenerator;
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import inputHandler.SourcePositions;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.ParallelLexicalAnalyzer;
+import lexicalAnalyzer.Punctuator;
+import lexicalAnalyzer.TokenBuffer;
+import parseTree.ParseNode;
+import parser.Parser;
+import semanticAnalyzer.SemanticAnalyzer;
+import semanticAnalyzer.signatures.FunctionSignature;
+import semanticAnalyzer.signatures.FunctionSignatures;
+import semanticAnalyzer.types.ArrayType;
+import semanticAnalyzer.types.PrimitiveType;
+import semanticAnalyzer.types.Type;
+import tests.FileFixturesTestCase;
+import tokens.Token;
+
+public class TestCompilationContext extends FileFixturesTestCase {
+	private static final int THREADS = 4;
+	private static final int COMPILATIONS = 16;
+
+	// a signature shared by all compilations binds its type variable afresh for each query.
+	public void testTypeVariableBoundPerQuery() {
+		ArrayType ints = ArrayType.arrayOf(PrimitiveType.INTEGER);
+		ArrayType floats = ArrayType.arrayOf(PrimitiveType.FLOATING);
+		List<Type> intIndexing = Arrays.<Type>asList(ArrayType.arrayOf(ints), PrimitiveType.INTEGER);
+		List<Type> floatIndexing = Arrays.<Type>asList(ArrayType.arrayOf(floats), PrimitiveType.INTEGER);
+
+		FunctionSignature signature = FunctionSignatures.signature(Punctuator.OPEN_SQUARE_BRACKET, intIndexing);
+		assertSame(signature, FunctionSignatures.signature(Punctuator.OPEN_SQUARE_BRACKET, floatIndexing));
+		assertSame(floats, signature.resultType(floatIndexing));
+		assertSame(ints, signature.resultType(intIndexing));
+	}
+
+	public void testErrorsCountedPerContext() {
+		CompilationContext context = new CompilationContext();
+		compile(context, "main { print undeclared; }");
+		assertTrue(context.hasErrors());
+		assertFalse(new CompilationContext().hasErrors());
+	}
+
+	// each context numbers its own sources, and finds locations in them only.
+	public void testSourcesRegisteredPerContext() {
+		CompilationContext first = new CompilationContext();
+		CompilationContext second = new CompilationContext();
+		Token firstToken = firstToken(first, "first", "main {}");
+		Token secondToken = firstToken(second, "second", "\n main {}");
+
+		assertEquals(SourcePositions.fileIdOf(firstToken.getPosition()), SourcePositions.fileIdOf(secondToken.getPosition()));
+		assertEquals("first", first.locationOf(firstToken.getPosition()).getFilename());
+		assertEquals("second", second.locationOf(secondToken.getPosition()).getFilename());
+	}
+
+	// the errors the parallel lexer's tasks find are logged in the context of the compilation they lex for.
+	public void testParallelLexerErrorsCountedInCallersContext() {
+		CompilationContext context = new CompilationContext();
+		ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try {
+			SourceBuffer source = SourceBuffer.fromString(context, "program", "main {\n print 1 ? 2;\n}\n");
+			TokenBuffer tokens = ParallelLexicalAnalyzer.tokenize(context, source, pool, 1);
+			tokens.token(tokens.size() - 1);
+			assertEquals(1, context.getNumMessages());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	// compilations on several threads at once generate what one compilation on its own does.
+	public void testConcurrentCompilationsGenerateSameCode() throws Exception {
+		final String program = getContents(TUPLE_PROGRAM_FILENAME);
+		final String expected = compileInNewContext(program);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for(int i = 0; i < COMPILATIONS; i++) {
+				results.add(pool.submit(new Callable<String>() {
+					public String call() {
+						return compileInNewContext(program);
+					}
+				}));
+			}
+			for(Future<String> result: results) {
+				assertEquals(expected, result.get());
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private static String compileInNewContext(String program) {
+		CompilationContext context = new CompilationContext();
+		String code = compile(context, program);
+		assertFalse(context.hasErrors());
+		return code;
+	}
+	private static Token firstToken(CompilationContext context, String filename, String program) {
+		SourceBuffer source = SourceBuffer.fromString(context, filename, program);
+		return new LexicalAnalyzer(context, PushbackCharStream.make(source)).next();
+	}
+	private static String compile(CompilationContext context, String program) {
+		SourceBuffer source = SourceBuffer.fromString(context, "program", program);
+		ParseNode tree = Parser.parse(context, new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize());
+		tree = SemanticAnalyzer.foldConstants(context, SemanticAnalyzer.analyze(context, tree));
+		if(context.hasErrors()) {
+			return "";
+		}
+		return ASMCodeGenerator.generate(context, tree).toString();
+	}
+}
@@ -2,28 +2,56 @@ package inputHandler;
 
 /** Value object for holding a character and its location in the input text.
  *  Contains delegates to select character operations.
+ *  <p>
+ *  A LocatedChar read from a SourceBuffer keeps the buffer and its packed SourcePositions
+ *  value, and finds its line and column the first time its location is asked for.
  *
  */
 public class LocatedChar {
-	Character character;
+	char character;
 	TextLocation location;
+	private long position;
+	private SourceBuffer source;		// null if not read from a SourceBuffer
 	
-	public LocatedChar(Character character, TextLocation location) {
+	public LocatedChar(char character, TextLocation location) {
 		super();
 		this.character = character;
 		this.location = location;
+		this.position = SourcePositions.NO_POSITION;
+	}
+	/** A character at a position outside any file, such as SourcePositions.END_OF_INPUT. */
+	public LocatedChar(char character, long position) {
+		super();
+		this.character = character;
+		this.location = null;
+		this.position = position;
+	}
+	public LocatedChar(char character, SourceBuffer source, int offset) {
+		super();
+		this.character = character;
+		this.location = null;
+		this.position = source.positionOf(offset);
+		this.source = source;
 	}
 
 	
 	//////////////////////////////////////////////////////////////////////////////
 	// getters
 	
-	public Character getCharacter() {
+	public char getCharacter() {
 		return character;
 	}
 	public TextLocation getLocation() {
+		if(location == null) {
+			location = (source == null) ? 
+					SourcePositions.locationOutsideFiles(position) :
+					source.locationOf(SourcePositions.offsetOf(position));
+		}
 		return location;
 	}
+	public long getPosition() {
+		return position;
+	}
 	public boolean isChar(char c) {
 		return character == c;
 	}
@@ -34,7 +62,7 @@ public class LocatedChar {
 	// toString
 	
 	public String toString() {
-		return "(" + charString() + ", " + location + ")";
+		return "(" + charString() + ", " + getLocation() + ")";
 	}
 	private String charString() {
 		if(Character.isWhitespace(character)) {
@@ -42,7 +70,7 @@ public class LocatedChar {
 			return String.format("'\\%d'", i);
 		}
 		else {
-			return character.toString();
+			return String.valueOf(character);
 		}
 	}
 
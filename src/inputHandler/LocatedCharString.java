@@ -13,12 +13,12 @@ public class LocatedCharString {
 	// string is interned.
 	private List<LocatedChar> locatedChars;
 	private String string;
-	protected TextLocation startingLocation;
+	protected long startingPosition;
 	
 	public LocatedCharString(LocatedChar c) {
 		locatedChars = new ArrayList<LocatedChar>(STARTING_SIZE);
 		string = "";
-		startingLocation = c.getLocation();
+		startingPosition = c.getPosition();
 		add(c);
 	}
 	
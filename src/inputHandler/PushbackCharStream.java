@@ -1,37 +1,73 @@
 package inputHandler;
 
-import java.util.Stack;
+import java.util.Iterator;
 
-public class PushbackCharStream extends LocatedCharStream {
-	private Stack<LocatedChar> pushedBack;
+import context.CompilationContext;
+
+/** A stream of LocatedChars over a SourceBuffer, with pushback.
+ *  The stream's place in the text is a single int cursor; the LocatedChars it hands out
+ *  compute their TextLocation only if asked.
+ *  Like LocatedCharStream, next() returns FLAG_END_OF_INPUT once the text is exhausted.
+ *  <p>
+ *  Pushback only rewinds the cursor, so characters must be pushed back in the reverse of
+ *  the order they were read.  Scanners that only need to look at characters can use
+ *  peekChar(k), nextChar() and advance(n), which work on the buffer directly and
+ *  create no LocatedChars.
+ *  <p>
+ *  A stream may cover only a range of its buffer; it then ends at the end of the range,
+ *  and positions are still those of the whole buffer.
+ */
+public class PushbackCharStream implements Iterator<LocatedChar> {
+	public static final LocatedChar FLAG_END_OF_INPUT = LocatedCharStream.FLAG_END_OF_INPUT;
+	public static final char NULL_CHAR = SourceBuffer.NULL_CHAR;
+	
+	private SourceBuffer source;
+	private int cursor;
+	private int limit;
 	
-	public PushbackCharStream(InputHandler handler) {
-		super(handler);
-		this.pushedBack = new Stack<LocatedChar>();
+	public PushbackCharStream(SourceBuffer source) {
+		this(source, 0, source.length());
+	}
+	/** A stream over the characters of source from start up to, but not including, end. */
+	public PushbackCharStream(SourceBuffer source, int start, int end) {
+		super();
+		assert 0 <= start && start <= end && end <= source.length();
+		this.source = source;
+		this.cursor = start;
+		this.limit = end;
 	}
 
 	@Override
 	public boolean hasNext() {
-		return !pushedBack.empty() || super.hasNext();
+		return cursor < limit;
 	}
 
 	@Override
 	public LocatedChar next() {
-		if(pushedBack.empty()) {
-			return super.next();
-		}
-		else {
-			return pushedBack.pop();
+		if(cursor >= limit) {
+			return FLAG_END_OF_INPUT;
 		}
+		LocatedChar result = locatedCharAt(cursor);
+		cursor++;
+		return result;
 	}
 	public LocatedChar peek() {
-		LocatedChar result = next();
-		pushback(result);
-		return result;
+		return peek(0);
+	}
+	/** Returns the LocatedChar k places ahead without consuming anything, or FLAG_END_OF_INPUT. */
+	public LocatedChar peek(int k) {
+		if(k >= available()) {
+			return FLAG_END_OF_INPUT;
+		}
+		return locatedCharAt(cursor + k);
 	}
 
 	public void pushback(LocatedChar locatedChar) {
-		pushedBack.push(locatedChar);
+		if(locatedChar == FLAG_END_OF_INPUT) {
+			return;
+		}
+		assert SourcePositions.offsetOf(locatedChar.getPosition()) == cursor - 1;
+		cursor--;
 	}
 
 	/**
@@ -42,8 +78,62 @@ public class PushbackCharStream extends LocatedCharStream {
 		throw new UnsupportedOperationException();
 	}
 	
-	public static PushbackCharStream make(InputHandler handler) {
-		return new PushbackCharStream(handler);
+	
+	//////////////////////////////////////////////////////////////////////////////
+	// character-level access: no LocatedChars are made.
+	
+	/** Returns the character k places ahead without consuming anything; peekChar(0) is the
+	 *  character next() would return.  Past the end of input, returns NULL_CHAR.
+	 */
+	public char peekChar(int k) {
+		return (cursor + k < limit) ? source.charAt(cursor + k) : NULL_CHAR;
+	}
+	/** Consumes and returns the next character.  At the end of input, returns NULL_CHAR
+	 *  and consumes nothing.
+	 */
+	public char nextChar() {
+		if(cursor >= limit) {
+			return NULL_CHAR;
+		}
+		return source.charAt(cursor++);
+	}
+	public void advance(int n) {
+		cursor = Math.min(cursor + n, limit);
+	}
+	
+	/** Returns the number of characters left to read. */
+	public int available() {
+		return limit - cursor;
+	}
+	public int cursor() {
+		return cursor;
+	}
+	public void rewind(int cursor) {
+		assert 0 <= cursor && cursor <= this.cursor;
+		this.cursor = cursor;
+	}
+	public long positionOf(int cursor) {
+		return source.positionOf(cursor);
+	}
+	public LocatedChar locatedCharAt(int cursor) {
+		return new LocatedChar(source.charAt(cursor), source, cursor);
+	}
+	public String text(int start, int end) {
+		return source.substring(start, end);
+	}
+	public CharSequence chars() {
+		return source.asCharSequence();
+	}
+	
+	
+	public static PushbackCharStream make(SourceBuffer source) {
+		return new PushbackCharStream(source);
+	}
+	public static PushbackCharStream make(SourceBuffer source, int start, int end) {
+		return new PushbackCharStream(source, start, end);
+	}
+	public static PushbackCharStream make(CompilationContext context, String filename) {
+		return new PushbackCharStream(SourceBuffer.fromFilename(context, filename));
 	}
 
 }
@@ -0,0 +1,160 @@
+package inputHandler;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import context.CompilationContext;
+
+/** The whole text of one source file, read once into a char array.
+ *  <p>
+ *  Line terminators ("\r\n", "\r" or "\n") are normalized to "\n", and a last line
+ *  without a terminator gets one, so the text is exactly what an InputHandler with
+ *  the default terminator would deliver line by line.
+ *  <p>
+ *  Characters are addressed by their int position in the text.  Line numbers and
+ *  columns are only computed when a TextLocation is asked for, from an index of
+ *  line-start positions that is built on first use.  Each buffer registers itself
+ *  with the SourcePositions of the compilation reading it, which packs its file id with
+ *  a position.
+ */
+public class SourceBuffer {
+	public static final char NULL_CHAR = LocatedCharStream.NULL_CHAR;
+
+	private String filename;
+	private int fileId;
+	private char[] text;
+	private int length;
+	private final CharSequence charSequence;
+	private int[] lineStarts = null;
+	private int lineCount;
+
+	private SourceBuffer(CompilationContext context, String filename, char[] text, int length) {
+		this.filename = filename;
+		this.text = text;
+		this.length = length;
+		this.charSequence = CharBuffer.wrap(text, 0, length).asReadOnlyBuffer();
+		this.fileId = context.getSourcePositions().register(this);
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// character access
+
+	public String fileName() {
+		return filename;
+	}
+	public int length() {
+		return length;
+	}
+	public boolean isInBounds(int position) {
+		return 0 <= position && position < length;
+	}
+	/** Returns the character at position, or NULL_CHAR if position is past the end of the text. */
+	public char charAt(int position) {
+		return position < length ? text[position] : NULL_CHAR;
+	}
+	public String substring(int start, int end) {
+		return new String(text, start, end - start);
+	}
+	/** A read-only view of the text, for code that works on character ranges.
+	 *  Only its absolute accessors are used, so lexers on different threads can share it.
+	 */
+	public CharSequence asCharSequence() {
+		return charSequence;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// locations
+
+	/** Returns the packed SourcePositions value for the character at position. */
+	public long positionOf(int position) {
+		return SourcePositions.pack(fileId, position);
+	}
+
+	/** Returns the location of the character at position: a one-based line number
+	 *  and a zero-based position within that line.
+	 */
+	public TextLocation locationOf(int position) {
+		int line = lineIndexOf(position);
+		return new TextLocation(filename, line + 1, position - lineStarts[line]);
+	}
+	public int lineNumberOf(int position) {
+		return lineIndexOf(position) + 1;
+	}
+	public int columnOf(int position) {
+		return position - lineStarts[lineIndexOf(position)];
+	}
+
+	private int lineIndexOf(int position) {
+		ensureLineStarts();
+		int index = Arrays.binarySearch(lineStarts, 0, lineCount, position);
+		return index >= 0 ? index : -index - 2;
+	}
+	// synchronized: segments of one buffer may be lexed, and their errors located, in parallel.
+	private synchronized void ensureLineStarts() {
+		if(lineStarts != null) {
+			return;
+		}
+		int[] starts = new int[16];
+		int count = 0;
+		starts[count++] = 0;
+		for(int i = 0; i < length - 1; i++) {
+			if(text[i] == '\n') {
+				if(count == starts.length) {
+					starts = Arrays.copyOf(starts, 2 * count);
+				}
+				starts[count++] = i + 1;
+			}
+		}
+		lineStarts = starts;
+		lineCount = count;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// factories
+
+	/** Maps the named file and decodes it with the platform's default charset,
+	 *  as the line-based readers do.
+	 */
+	public static SourceBuffer fromFilename(CompilationContext context, String filename) {
+		try(FileInputStream stream = new FileInputStream(filename);
+			FileChannel channel = stream.getChannel()) {
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			CharBuffer chars = Charset.defaultCharset().decode(bytes);
+			return fromChars(context, filename, chars);
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	public static SourceBuffer fromString(CompilationContext context, String filename, String contents) {
+		return fromChars(context, filename, CharBuffer.wrap(contents));
+	}
+
+	private static SourceBuffer fromChars(CompilationContext context, String filename, CharBuffer chars) {
+		int size = chars.remaining();
+		char[] text = new char[size + 1];
+		int length = 0;
+		for(int i = 0; i < size; i++) {
+			char c = chars.get(i);
+			if(c == '\r') {
+				c = '\n';
+				if(i + 1 < size && chars.get(i + 1) == '\n') {
+					i++;
+				}
+			}
+			text[length++] = c;
+		}
+		if(length > 0 && text[length - 1] != '\n') {
+			text[length++] = '\n';
+		}
+		return new SourceBuffer(context, filename, text, length);
+	}
+}
@@ -0,0 +1,58 @@
+package inputHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Packed source positions: a file id from a registry of SourceBuffers in the high
+ *  32 bits of a long, and a character offset into that file in the low 32 bits.
+ *  <p>
+ *  Tokens and bindings carry these instead of TextLocation objects; a TextLocation
+ *  is only built when someone asks for one, which is normally a diagnostic.
+ *  <p>
+ *  Each CompilationContext has a registry of its own, and a SourceBuffer registers with
+ *  the one of the compilation that reads it.  File ids are only meaningful to that registry.
+ */
+public class SourcePositions {
+	public static final long NO_POSITION = -1L;
+	public static final long END_OF_INPUT = -2L;
+	private static final TextLocation END_OF_INPUT_LOCATION = new TextLocation("null", -1, -1);
+
+	private final List<SourceBuffer> files = new ArrayList<SourceBuffer>();
+
+	synchronized int register(SourceBuffer source) {
+		files.add(source);
+		return files.size() - 1;
+	}
+
+
+	public static long pack(int fileId, int offset) {
+		return ((long)fileId << 32) | (offset & 0xffffffffL);
+	}
+	public static int fileIdOf(long position) {
+		return (int)(position >>> 32);
+	}
+	public static int offsetOf(long position) {
+		return (int)position;
+	}
+	public static boolean isInFile(long position) {
+		return position >= 0;
+	}
+
+	/** Returns the TextLocation for a packed position in one of the registered files. */
+	public TextLocation locationOf(long position) {
+		if(!isInFile(position)) {
+			return locationOutsideFiles(position);
+		}
+		return sourceFor(position).locationOf(offsetOf(position));
+	}
+	/** NO_POSITION gives TextLocation.nullInstance(), and END_OF_INPUT gives the location
+	 *  of LocatedCharStream.FLAG_END_OF_INPUT.
+	 */
+	public static TextLocation locationOutsideFiles(long position) {
+		assert !isInFile(position);
+		return (position == END_OF_INPUT) ? END_OF_INPUT_LOCATION : TextLocation.nullInstance();
+	}
+	private synchronized SourceBuffer sourceFor(long position) {
+		return files.get(fileIdOf(position));
+	}
+}
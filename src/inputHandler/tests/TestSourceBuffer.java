@@ -0,0 +1,103 @@
+package inputHandler.tests;
+
+import static inputHandler.tests.FixtureDefinitions.*;
+
+import context.CompilationContext;
+import inputHandler.InputHandler;
+import inputHandler.LocatedChar;
+import inputHandler.LocatedCharStream;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+
+import tests.FileFixturesTestCase;
+
+public class TestSourceBuffer extends FileFixturesTestCase {
+	private final CompilationContext context = new CompilationContext();
+
+	// the buffer-backed stream must deliver the same characters and locations as LocatedCharStream.
+	public void testSameAsLocatedCharStream() throws Exception {
+		String actualOutput =	pushbackStreamOutput(SIMPLE_FIXTURE_FILENAME);
+		String expectedOutput = locatedCharStreamOutput(SIMPLE_FIXTURE_FILENAME);
+		assertEquals(expectedOutput, actualOutput);
+	}
+
+	public void testLineTerminatorsNormalized() {
+		SourceBuffer buffer = SourceBuffer.fromString(context, "x", "ab\r\ncd\ref\ng");
+		assertEquals("ab\ncd\nef\ng\n", buffer.substring(0, buffer.length()));
+		assertEquals(3, buffer.lineNumberOf(6));
+		assertEquals(0, buffer.columnOf(6));
+		assertEquals(4, buffer.lineNumberOf(9));
+		assertEquals(1, buffer.columnOf(10));
+		assertEquals(SourceBuffer.NULL_CHAR, buffer.charAt(buffer.length()));
+	}
+
+	public void testEmptySource() {
+		SourceBuffer buffer = SourceBuffer.fromString(context, "x", "");
+		assertEquals(0, buffer.length());
+		assertFalse(PushbackCharStream.make(buffer).hasNext());
+	}
+
+	public void testPushback() {
+		PushbackCharStream stream = PushbackCharStream.make(SourceBuffer.fromString(context, "x", "ab"));
+		LocatedChar a = stream.next();
+		assertTrue(stream.peek().isChar('b'));
+		stream.pushback(a);
+		assertEquals(a.getPosition(), stream.next().getPosition());
+		assertTrue(stream.next().isChar('b'));
+		assertTrue(stream.next().isChar('\n'));
+		assertSame(PushbackCharStream.FLAG_END_OF_INPUT, stream.next());
+	}
+
+	public void testPeekChar() {
+		PushbackCharStream stream = PushbackCharStream.make(SourceBuffer.fromString(context, "x", "1.5e+3"));
+		assertEquals('1', stream.peekChar(0));
+		assertEquals('+', stream.peekChar(4));
+		assertEquals(PushbackCharStream.NULL_CHAR, stream.peekChar(7));
+		stream.advance(3);
+		assertEquals('e', stream.nextChar());
+		assertEquals("1.5e", stream.text(0, stream.cursor()));
+		stream.rewind(1);
+		assertTrue(stream.next().isChar('.'));
+	}
+
+	public void testNextCharAtEndOfInput() {
+		PushbackCharStream stream = PushbackCharStream.make(SourceBuffer.fromString(context, "x", "a"));
+		assertEquals('a', stream.nextChar());
+		assertEquals('\n', stream.nextChar());
+		assertEquals(PushbackCharStream.NULL_CHAR, stream.nextChar());
+		assertEquals(PushbackCharStream.NULL_CHAR, stream.nextChar());
+		assertEquals(0, stream.available());
+	}
+
+
+	public String pushbackStreamOutput(String filename) throws Exception {
+		PushbackCharStream stream = PushbackCharStream.make(context, filename);
+		Command printCommand = new PrintStreamCommand(stream);
+		return outputFor(printCommand);
+	}
+
+	public String locatedCharStreamOutput(String filename) throws Exception {
+		LocatedCharStream stream = new LocatedCharStream(InputHandler.fromFilename(filename, "\n"));
+		return outputFor(out -> {
+			while(stream.hasNext()) {
+				out.println(stream.next());
+			}
+		});
+	}
+
+	public class PrintStreamCommand implements Command {
+		PushbackCharStream stream;
+		public PrintStreamCommand(PushbackCharStream stream) {
+			this.stream = stream;
+		}
+
+		public void run(PrintStream out) throws FileNotFoundException {
+			while(stream.hasNext()) {
+				out.println(stream.next());
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package lexicalAnalyzer;
+
+/** A table of identifier lexemes.  A compilation's table is kept in its CompilationContext.
+ *  <p>
+ *  Every identifier lexeme the lexer finds goes through intern(), so all occurrences of an
+ *  identifier in a compilation share one String instance.
+ *  Lookups by character range make no String unless the identifier has not been seen before.
+ *  <p>
+ *  A table is not thread-safe.  A lexer running on another thread, as the segments of
+ *  ParallelLexicalAnalyzer do, uses a table of its own, and the segments' identifiers are
+ *  interned in the compilation's table when their tokens are appended.
+ */
+public class IdentifierTable {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private String[] entries = new String[INITIAL_CAPACITY];
+	private int size = 0;
+
+	public String intern(String lexeme) {
+		return intern(lexeme, 0, lexeme.length(), lexeme.hashCode());
+	}
+	/** Returns the shared instance of the lexeme text[start..end). */
+	public String intern(CharSequence text, int start, int end) {
+		return intern(text, start, end, hash(text, start, end));
+	}
+	private String intern(CharSequence text, int start, int end, int hash) {
+		int mask = entries.length - 1;
+		for(int index = hash & mask; ; index = (index + 1) & mask) {
+			String entry = entries[index];
+			if(entry == null) {
+				return insert(index, text.subSequence(start, end).toString());
+			}
+			if(entry.hashCode() == hash && ((entry == text && start == 0 && end == entry.length()) || matches(entry, text, start, end))) {
+				return entry;
+			}
+		}
+	}
+	public int size() {
+		return size;
+	}
+
+
+	// the same hash as String.hashCode, so an entry's cached hash can be compared.
+	private static int hash(CharSequence text, int start, int end) {
+		int hash = 0;
+		for(int i = start; i < end; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return hash;
+	}
+	private static boolean matches(String entry, CharSequence text, int start, int end) {
+		if(entry.length() != end - start) {
+			return false;
+		}
+		for(int i = 0; i < entry.length(); i++) {
+			if(entry.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String insert(int index, String lexeme) {
+		entries[index] = lexeme;
+		size++;
+		if(2 * size > entries.length) {
+			rehash(2 * entries.length);
+		}
+		return lexeme;
+	}
+	private void rehash(int capacity) {
+		String[] oldEntries = entries;
+		entries = new String[capacity];
+		int mask = capacity - 1;
+		for(String entry: oldEntries) {
+			if(entry != null) {
+				int index = entry.hashCode() & mask;
+				while(entries[index] != null) {
+					index = (index + 1) & mask;
+				}
+				entries[index] = entry;
+			}
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package lexicalAnalyzer;
 
+import inputHandler.SourcePositions;
 import tokens.LextantToken;
 import tokens.Token;
 
@@ -48,7 +49,7 @@ public enum Keyword implements Lextant {
 	
 	private Keyword(String lexeme) {
 		this.lexeme = lexeme;
-		this.prototype = LextantToken.make(null, lexeme, this);
+		this.prototype = LextantToken.make(SourcePositions.NO_POSITION, lexeme, this);
 	}
 	public String getLexeme() {
 		return lexeme;
@@ -58,21 +59,99 @@ public enum Keyword implements Lextant {
 	}
 	
 	public static Keyword forLexeme(String lexeme) {
-		for(Keyword keyword: values()) {
-			if(keyword.lexeme.equals(lexeme)) {
-				return keyword;
-			}
-		}
-		return NULL_KEYWORD;
+		return forLexeme(lexeme, 0, lexeme.length());
 	}
 	public static boolean isAKeyword(String lexeme) {
 		return forLexeme(lexeme) != NULL_KEYWORD;
 	}
 	
-	/*   the following hashtable lookup can replace the serial-search implementation of forLexeme above. It is faster but less clear. 
-	private static LexemeMap<Keyword> lexemeToKeyword = new LexemeMap<Keyword>(values(), NULL_KEYWORD);
-	public static Keyword forLexeme(String lexeme) {
-		return lexemeToKeyword.forLexeme(lexeme);
+	/** Returns the keyword whose lexeme is text[start..end), or NULL_KEYWORD.  No String is made. */
+	public static Keyword forLexeme(CharSequence text, int start, int end) {
+		int length = end - start;
+		if(length == 0) {
+			return NULL_KEYWORD;
+		}
+		Keyword candidate = keywordTable[hash(text.charAt(start), text.charAt(end - 1), length, keywordTable.length)];
+		if(candidate != null && candidate.isLexeme(text, start, length)) {
+			return candidate;
+		}
+		return NULL_KEYWORD;
+	}
+	private boolean isLexeme(CharSequence text, int start, int length) {
+		if(lexeme.length() != length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(lexeme.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	// perfect hash of the lexemes on their first and last characters and their length.
+	// The multipliers and table size are searched for when the class is loaded.
+	private static final int MIN_TABLE_SIZE = 32;
+	private static final int MAX_TABLE_SIZE = 4096;
+	private static final int MAX_MULTIPLIER = 128;
+	private static Keyword[] keywordTable;
+	private static int firstCharMultiplier;
+	private static int lastCharMultiplier;
+	static {
+		makeKeywordTable();
+	}
+	
+	private static int hash(char first, char last, int length, int tableSize) {
+		return (first * firstCharMultiplier + last * lastCharMultiplier + length) & (tableSize - 1);
+	}
+	private static void makeKeywordTable() {
+		String sameKey = keywordsWithSameKey();
+		if(sameKey != null) {
+			throw new IllegalStateException("keywords " + sameKey +
+					" have the same first character, last character, and length, so no hash table can separate them");
+		}
+		for(int tableSize = MIN_TABLE_SIZE; tableSize <= MAX_TABLE_SIZE; tableSize *= 2) {
+			int maxMultiplier = Math.min(tableSize, MAX_MULTIPLIER);
+			for(firstCharMultiplier = 1; firstCharMultiplier < maxMultiplier; firstCharMultiplier++) {
+				for(lastCharMultiplier = 1; lastCharMultiplier < maxMultiplier; lastCharMultiplier++) {
+					keywordTable = tableWithoutCollisions(tableSize);
+					if(keywordTable != null) {
+						return;
+					}
+				}
+			}
+		}
+		throw new IllegalStateException("no collision-free keyword table of at most " + MAX_TABLE_SIZE + " entries found");
+	}
+	// returns two keywords that every table would put in the same slot, as "a and b", or null.
+	private static String keywordsWithSameKey() {
+		Keyword[] keywords = values();
+		for(int i = 0; i < keywords.length; i++) {
+			for(int j = i + 1; j < keywords.length; j++) {
+				String a = keywords[i].lexeme;
+				String b = keywords[j].lexeme;
+				if(!a.isEmpty() && a.length() == b.length() &&
+						a.charAt(0) == b.charAt(0) && a.charAt(a.length() - 1) == b.charAt(b.length() - 1)) {
+					return "\"" + a + "\" and \"" + b + "\"";
+				}
+			}
+		}
+		return null;
+	}
+	private static Keyword[] tableWithoutCollisions(int tableSize) {
+		Keyword[] table = new Keyword[tableSize];
+		for(Keyword keyword: values()) {
+			String lexeme = keyword.lexeme;
+			if(lexeme.isEmpty()) {
+				continue;
+			}
+			int index = hash(lexeme.charAt(0), lexeme.charAt(lexeme.length() - 1), lexeme.length(), tableSize);
+			if(table[index] != null) {
+				return null;
+			}
+			table[index] = keyword;
+		}
+		return table;
 	}
-	*/
 }
@@ -0,0 +1,291 @@
+package lexicalAnalyzer;
+
+import java.util.Arrays;
+
+/** Transition tables for the Grouse lexer: a character-class table and a state transition
+ *  array, generated when the class is loaded.  The punctuator states are a trie of the
+ *  lexemes of the Punctuator constants, so the tables follow any change to Punctuator.
+ *  <p>
+ *  The automaton is run from START for the longest match: the lexer remembers the last
+ *  accepting state it passed and backs up to it when the automaton dies.  Identifiers and
+ *  keywords share the WORD states; the lexer tells them apart from the matched text.
+ */
+public class LexerDFA {
+	public static final int DEAD = 0;
+	public static final int START = 1;
+
+	// what an accepting state accepts
+	public static final int NOT_ACCEPTING = 0;
+	public static final int WHITESPACE = 1;
+	public static final int COMMENT = 2;
+	public static final int WORD = 3;
+	public static final int INTEGER = 4;
+	public static final int FLOATING = 5;
+	public static final int FLOATING_WITH_PLUS = 6;		// exponent written "e+": the '+' is not part of the lexeme
+	public static final int CHARACTER = 7;
+	public static final int STRING = 8;
+	public static final int PUNCTUATOR = 9;
+
+	// character classes.  Characters in one class have the same transitions in every state.
+	private static final int ASCII_LIMIT = 128;
+	private static int numClasses = 0;
+	private static final int CONTROL         = numClasses++;		// nonprinting, not whitespace
+	private static final int NEWLINE         = numClasses++;
+	private static final int OTHER_SPACE     = numClasses++;		// nonprinting whitespace other than '\n'
+	private static final int SPACE           = numClasses++;
+	private static final int LETTER          = numClasses++;
+	private static final int DIGIT           = numClasses++;
+	private static final int PRINTABLE_OTHER = numClasses++;
+	private static final int UNICODE_LETTER  = numClasses++;
+	private static final int UNICODE_DIGIT   = numClasses++;
+	private static final int UNICODE_SPACE   = numClasses++;
+	private static final int UNICODE_OTHER   = numClasses++;
+	private static final char[] UNICODE_REPRESENTATIVES = { '\u00e9', '\u0660', '\u2003', '\u00a7' };
+	private static final String SPECIAL_CHARACTERS = "e_~'\"";
+
+	private static byte[] asciiClass = new byte[ASCII_LIMIT];
+	private static int[] transitions;
+	private static int[] accepts;
+	private static Punctuator[] punctuators;
+	private static int numStates;
+	private static int firstPunctuatorState;
+	private static int endPunctuatorStates;
+
+	// Each transition is made for every character that satisfies a predicate; since a
+	// class never splits on a predicate, this is a transition per class.
+	private interface CharPredicate {
+		boolean test(char c);
+	}
+	private static final CharPredicate IS_WHITESPACE  = c -> Character.isWhitespace(c);
+	private static final CharPredicate IS_DIGIT       = c -> Character.isDigit(c);
+	private static final CharPredicate STARTS_WORD    = c -> Character.isLowerCase(c) || Character.isUpperCase(c) || c == '_';
+	private static final CharPredicate CONTINUES_WORD = c -> STARTS_WORD.test(c) || Character.isDigit(c) || c == '~';
+	private static final CharPredicate IS_PRINTABLE   = c -> isPrintable(c);
+
+	static {
+		makeCharacterClasses();
+		makeStates();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// public static interface
+
+	public static int characterClass(char c) {
+		if(c < ASCII_LIMIT) {
+			return asciiClass[c];
+		}
+		if(Character.isLowerCase(c) || Character.isUpperCase(c)) {
+			return UNICODE_LETTER;
+		}
+		if(Character.isDigit(c)) {
+			return UNICODE_DIGIT;
+		}
+		if(Character.isWhitespace(c)) {
+			return UNICODE_SPACE;
+		}
+		return UNICODE_OTHER;
+	}
+	public static int transition(int state, int characterClass) {
+		return transitions[state * numClasses + characterClass];
+	}
+	public static int accepts(int state) {
+		return accepts[state];
+	}
+	/** The punctuator accepted by a state whose accepts() is PUNCTUATOR. */
+	public static Punctuator punctuator(int state) {
+		return punctuators[state];
+	}
+	/** True if c is the first character of some punctuator lexeme. */
+	public static boolean isPunctuatorStart(char c) {
+		int state = transition(START, characterClass(c));
+		return firstPunctuatorState <= state && state < endPunctuatorStates;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// character classes
+
+	private static void makeCharacterClasses() {
+		String singletons = SPECIAL_CHARACTERS + punctuatorCharacters();
+		for(char c = 0; c < ASCII_LIMIT; c++) {
+			int index = singletons.indexOf(c);
+			if(index >= 0) {
+				asciiClass[c] = (byte)(numClasses + index);
+			}
+			else {
+				asciiClass[c] = (byte)generalClass(c);
+			}
+		}
+		numClasses += singletons.length();
+	}
+	private static int generalClass(char c) {
+		if(c == '\n') {
+			return NEWLINE;
+		}
+		if(c == ' ') {
+			return SPACE;
+		}
+		if(Character.isWhitespace(c)) {
+			return OTHER_SPACE;
+		}
+		if(Character.isLowerCase(c) || Character.isUpperCase(c)) {
+			return LETTER;
+		}
+		if(Character.isDigit(c)) {
+			return DIGIT;
+		}
+		return isPrintable(c) ? PRINTABLE_OTHER : CONTROL;
+	}
+	private static String punctuatorCharacters() {
+		StringBuilder result = new StringBuilder();
+		for(Punctuator punctuator: Punctuator.values()) {
+			for(char c: punctuator.getLexeme().toCharArray()) {
+				if(result.indexOf(String.valueOf(c)) < 0 && SPECIAL_CHARACTERS.indexOf(c) < 0) {
+					result.append(c);
+				}
+			}
+		}
+		return result.toString();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// states
+
+	private static void makeStates() {
+		transitions = new int[64 * numClasses];
+		accepts = new int[64];
+		punctuators = new Punctuator[64];
+		numStates = 2;				// DEAD and START
+
+		int whitespace = newState(WHITESPACE);
+		addTransitions(START, IS_WHITESPACE, whitespace);
+		addTransitions(whitespace, IS_WHITESPACE, whitespace);
+
+		int word = newState(WORD);
+		addTransitions(START, STARTS_WORD, word);
+		addTransitions(word, CONTINUES_WORD, word);
+
+		int integer = makeNumberStates();
+		addTransitions(START, IS_DIGIT, integer);
+
+		makeCharacterStates();
+		makeStringStates();
+
+		firstPunctuatorState = numStates;
+		makePunctuatorStates();
+		endPunctuatorStates = numStates;
+
+		// exceptions to longest-match among punctuators: "-" before a digit starts a number,
+		// and "//" starts a comment.
+		addTransitions(transition(START, characterClass('-')), IS_DIGIT, integer);
+		addTransition(transition(START, characterClass('/')), '/', makeCommentStates());
+	}
+
+	// returns the state for the digits of an integer.
+	private static int makeNumberStates() {
+		int integer = newState(INTEGER);
+		int point = newState(NOT_ACCEPTING);
+		int fraction = newState(FLOATING);
+		int exponentMark = newState(NOT_ACCEPTING);
+		int negativeExponentSign = newState(NOT_ACCEPTING);
+		int positiveExponentSign = newState(NOT_ACCEPTING);
+		int exponent = newState(FLOATING);
+		int positiveExponent = newState(FLOATING_WITH_PLUS);
+
+		addTransitions(integer, IS_DIGIT, integer);
+		addTransition(integer, '.', point);
+		addTransitions(point, IS_DIGIT, fraction);
+		addTransitions(fraction, IS_DIGIT, fraction);
+		addTransition(fraction, 'e', exponentMark);
+		addTransitions(exponentMark, IS_DIGIT, exponent);
+		addTransition(exponentMark, '-', negativeExponentSign);
+		addTransitions(negativeExponentSign, IS_DIGIT, exponent);
+		addTransitions(exponent, IS_DIGIT, exponent);
+		addTransition(exponentMark, '+', positiveExponentSign);
+		addTransitions(positiveExponentSign, IS_DIGIT, positiveExponent);
+		addTransitions(positiveExponent, IS_DIGIT, positiveExponent);
+		return integer;
+	}
+	private static void makeCharacterStates() {
+		int quote = newState(NOT_ACCEPTING);
+		int character = newState(CHARACTER);
+		addTransition(START, '\'', quote);
+		addTransitions(quote, IS_PRINTABLE, character);
+	}
+	private static void makeStringStates() {
+		int body = newState(NOT_ACCEPTING);
+		int string = newState(STRING);
+		addTransition(START, '"', body);
+		addTransitions(body, c -> c != '"' && c != '\n', body);
+		addTransition(body, '"', string);
+	}
+	// a comment runs from "//" to the next "//" or the end of the line, both included.
+	// returns the state after the opening "//".
+	private static int makeCommentStates() {
+		int body = newState(NOT_ACCEPTING);
+		int slash = newState(NOT_ACCEPTING);
+		int end = newState(COMMENT);
+		addTransitions(body, c -> c != '\n' && c != '/', body);
+		addTransition(body, '/', slash);
+		addTransitions(slash, c -> c != '\n' && c != '/', body);
+		addTransition(slash, '/', end);
+		addTransition(body, '\n', end);
+		addTransition(slash, '\n', end);
+		return body;
+	}
+	// a trie of the punctuator lexemes.
+	private static void makePunctuatorStates() {
+		for(Punctuator punctuator: Punctuator.values()) {
+			String lexeme = punctuator.getLexeme();
+			if(lexeme.isEmpty()) {
+				continue;
+			}
+			int state = START;
+			for(char c: lexeme.toCharArray()) {
+				int target = transition(state, characterClass(c));
+				if(target == DEAD) {
+					target = newState(NOT_ACCEPTING);
+					addTransition(state, c, target);
+				}
+				state = target;
+			}
+			accepts[state] = PUNCTUATOR;
+			punctuators[state] = punctuator;
+		}
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// table building
+
+	private static int newState(int accepting) {
+		if(numStates == accepts.length) {
+			transitions = Arrays.copyOf(transitions, 2 * transitions.length);
+			accepts = Arrays.copyOf(accepts, 2 * accepts.length);
+			punctuators = Arrays.copyOf(punctuators, 2 * punctuators.length);
+		}
+		accepts[numStates] = accepting;
+		return numStates++;
+	}
+	private static void addTransition(int state, char c, int target) {
+		transitions[state * numClasses + characterClass(c)] = target;
+	}
+	private static void addTransitions(int state, CharPredicate predicate, int target) {
+		for(char c = 0; c < ASCII_LIMIT; c++) {
+			if(predicate.test(c)) {
+				addTransition(state, c, target);
+			}
+		}
+		for(char c: UNICODE_REPRESENTATIVES) {
+			if(predicate.test(c)) {
+				addTransition(state, c, target);
+			}
+		}
+	}
+
+	private static boolean isPrintable(char c) {
+		return c >= 32 && c <= 126;
+	}
+}
@@ -1,318 +1,206 @@
 package lexicalAnalyzer;
 
 
+import context.CompilationContext;
 import logging.GrouseLogger;
-import inputHandler.InputHandler;
 import inputHandler.LocatedChar;
-import inputHandler.LocatedCharStream;
 import inputHandler.PushbackCharStream;
-import inputHandler.TextLocation;
-import tokens.CharacterToken;
-import tokens.FloatingToken;
-import tokens.IdentifierToken;
-import tokens.IntegerToken;
-import tokens.LextantToken;
-import tokens.NullToken;
-import tokens.StringToken;
+import inputHandler.SourcePositions;
 import tokens.Token;
 
-import static lexicalAnalyzer.PunctuatorScanningAids.*;
+import static lexicalAnalyzer.LexerDFA.*;
 
 public class LexicalAnalyzer extends ScannerImp implements Scanner {
+	private static final int MAX_IDENTIFIER_LENGTH = 32;
 	
-	public static LexicalAnalyzer make(String filename) {
-		InputHandler handler = InputHandler.fromFilename(filename);
-		PushbackCharStream charStream = PushbackCharStream.make(handler);
-		return new LexicalAnalyzer(charStream);
+	// the token found by scan(), as a TokenBuffer holds it.
+	private int kind;
+	private long position;
+	private String lexeme;
+	private TokenBuffer tokenizing = null;		// while tokenize() runs: keeps the errors
+	private final CompilationContext context;
+	private final IdentifierTable identifiers;
+	
+	public static LexicalAnalyzer make(CompilationContext context, String filename) {
+		PushbackCharStream charStream = PushbackCharStream.make(context, filename);
+		return new LexicalAnalyzer(context, charStream);
 	}
 
-	public LexicalAnalyzer(PushbackCharStream input) {
+	public LexicalAnalyzer(CompilationContext context, PushbackCharStream input) {
+		this(context, input, context.getIdentifierTable());
+	}
+	public LexicalAnalyzer(CompilationContext context, PushbackCharStream input, IdentifierTable identifiers) {
 		super(input);
+		this.context = context;
+		this.identifiers = identifiers;
+	}
+	
+	/** Lexes the input into a TokenBuffer, up to and including the first NullToken, without
+	 *  making Token objects.  Lexical errors are kept in the buffer instead of being logged.
+	 *  Use either this or the Scanner interface on one LexicalAnalyzer, not both.
+	 */
+	public TokenBuffer tokenize() {
+		TokenBuffer result = new TokenBuffer(context);
+		tokenizing = result;
+		do {
+			scan();
+			result.add(kind, position, lexeme);
+		} while(kind != TokenBuffer.END);
+		tokenizing = null;
+		return result;
 	}
-
 	
-	//////////////////////////////////////////////////////////////////////////////
-	// Token-finding main dispatch	
-
 	@Override
 	protected Token findNextToken() {
-		LocatedChar ch = nextNonWhitespaceChar();
-		
-		if(isNumberStart(ch)) {
-			return scanNumber(ch);
-		}
-		else if(isIdentifierStart(ch)) {
-			return scanIdentifier(ch);
-		}
-		else if(isPunctuatorStart(ch)) {
-			return scanPunctuatorAndComments(ch);
-		}
-		else if(isCharacterConstantStart(ch)) {
-			return scanCharacterConstant(ch);
-		}
-		else if(isStringConstantStart(ch)) {
-			return scanStringConstant(ch);
-		}
-		else if(isEndOfInput(ch)) {
-			return NullToken.make(ch.getLocation());
-		}
-		else {
-			lexicalError(ch);
-			return findNextToken();
-		}
+		scan();
+		return TokenBuffer.makeToken(kind, position, lexeme);
 	}
 
-   
-
-	private LocatedChar nextNonWhitespaceChar() {
-		LocatedChar ch = input.next();
-		while(ch.isWhitespace()) {
-			ch = input.next();
-		}
-		return ch;
-	}
-	
-	
-	// Integer lexical analysis	
-	private Token scanNumber(LocatedChar firstChar) {
-		StringBuffer buffer = new StringBuffer();
-		buffer.append(firstChar.getCharacter());
-		//appendSubsequentDigits(buffer);
-		if(CompleteNumber(buffer))	//true for floating, false for integer
-			return FloatingToken.make(firstChar.getLocation(), buffer.toString());
-		else
-			return IntegerToken.make(firstChar.getLocation(), buffer.toString());			
-	}
 	
-	private boolean CompleteNumber(StringBuffer buffer) {
-		appendSubsequentDigits(buffer);
-		LocatedChar c = input.next();
-		if(c.getCharacter() == '.') {
-			LocatedChar nextChar = input.next();
-			if(nextChar.isDigit()) {
-				buffer.append(c.getCharacter());
-				buffer.append(nextChar.getCharacter());
-				appendSubsequentDigits(buffer);
-				scanExponentOfFloating(buffer);
-				return true;
-			} else {
-				input.pushback(nextChar);
+	//////////////////////////////////////////////////////////////////////////////
+	// Token-finding main loop.
+	// Runs LexerDFA from the cursor for the longest match, then turns the match into a
+	// token.  Whitespace, comments and erroneous input are skipped in the same loop.
+
+	private void scan() {
+		while(true) {
+			if(input.available() == 0) {
+				found(TokenBuffer.END, SourcePositions.END_OF_INPUT, null);
+				return;
+			}
+			
+			int acceptingState = DEAD;
+			int length = 0;
+			int state = START;
+			int available = input.available();
+			for(int i = 0; i < available; i++) {
+				state = transition(state, characterClass(input.peekChar(i)));
+				if(state == DEAD) {
+					break;
+				}
+				if(accepts(state) != NOT_ACCEPTING) {
+					acceptingState = state;
+					length = i + 1;
+				}
+			}
+			
+			boolean isToken = (acceptingState == DEAD) ? noMatch() : match(acceptingState, length);
+			if(isToken) {
+				return;
 			}
 		}
-		
-		input.pushback(c);
-		
-		return false;
 	}
-	
-	private void appendSubsequentDigits(StringBuffer buffer) {
-		LocatedChar c = input.next();
-		while(c.isDigit()) {
-			buffer.append(c.getCharacter());
-			c = input.next();
-		}
-		input.pushback(c);
+	// records the token found; returns true.
+	private boolean found(int kind, long position, String lexeme) {
+		this.kind = kind;
+		this.position = position;
+		this.lexeme = lexeme;
+		return true;
 	}
 	
-	private void scanExponentOfFloating(StringBuffer buffer) {
-		LocatedChar c = input.next();
-		if(c.getCharacter()=='e') {
-			LocatedChar nextChar = input.next();
-			if(isNumberStart(nextChar)) {
-				buffer.append(c.getCharacter());
-				buffer.append(nextChar.getCharacter());
-				appendSubsequentDigits(buffer);
-				return;
-			} else if(nextChar.getCharacter() == '+') {
-				LocatedChar nextAfterNextChar = input.next();
-				if(nextAfterNextChar.isDigit()) {
-					// '+' being ignored
-					buffer.append(c.getCharacter());
-					buffer.append(nextAfterNextChar.getCharacter());
-					appendSubsequentDigits(buffer);
-					return;
-				} else 
-					input.pushback(nextAfterNextChar);
-			} 
-			input.pushback(nextChar);
-		}
+	// returns false if the match is skipped.
+	private boolean match(int acceptingState, int length) {
+		int start = input.cursor();
+		long position = input.positionOf(start);
+		input.advance(length);
 		
-		input.pushback(c);
+		switch(accepts(acceptingState)) {
+		case WORD:
+			return wordToken(start, length);
+		case INTEGER:
+			return found(TokenBuffer.INTEGER, position, input.text(start, start + length));
+		case FLOATING:
+			return found(TokenBuffer.FLOATING, position, input.text(start, start + length));
+		case FLOATING_WITH_PLUS:
+			return found(TokenBuffer.FLOATING, position, withoutPlusSign(start, start + length));
+		case CHARACTER:
+			return found(TokenBuffer.CHARACTER, position, input.text(start + 1, start + 2));
+		case STRING:
+			return found(TokenBuffer.STRING, position, input.text(start + 1, start + length - 1));
+		case PUNCTUATOR:
+			return found(TokenBuffer.kindOf(punctuator(acceptingState)), position, null);
+		default:					// WHITESPACE and COMMENT
+			return false;
+		}
 	}
 	
 	
 	//////////////////////////////////////////////////////////////////////////////
-	// Identifier and keyword lexical analysis	
-	
-	private Token scanIdentifier(LocatedChar firstChar) {
-		StringBuffer buffer = new StringBuffer();
-		buffer.append(firstChar.getCharacter());
-		//appendSubsequentLowercase(buffer);
-		findWholeIdentifier(buffer);
-
-		String lexeme = buffer.toString();
+	// Identifiers and keywords
+	
+	// keywords are found and identifiers interned on the character range, so a String is
+	// only made for an identifier the first time it is seen.
+	private boolean wordToken(int start, int length) {
+		CharSequence text = input.chars();
+		int end = start + length;
+		long position = input.positionOf(start);
 		
 		//whether identifier length exceeds 32
-		if(lexeme.length() > 32) {
-			//which char to issue error is to be considered
-			lexicalError_identifierTooLong(lexeme, firstChar);
-			return findNextToken();
+		if(length > MAX_IDENTIFIER_LENGTH) {
+			lexicalError_identifierTooLong(input.text(start, end), input.locatedCharAt(start));
+			return false;
 		}
 		
-		if(Keyword.isAKeyword(lexeme)) {
-			return LextantToken.make(firstChar.getLocation(), lexeme, Keyword.forLexeme(lexeme));
+		Keyword keyword = Keyword.forLexeme(text, start, end);
+		if(keyword != Keyword.NULL_KEYWORD) {
+			return found(TokenBuffer.kindOf(keyword), position, null);
 		}
 		else {
-			return IdentifierToken.make(firstChar.getLocation(), lexeme);
+			return found(TokenBuffer.IDENTIFIER, position, identifiers.intern(text, start, end));
 		}
 	}
 	
-	private void findWholeIdentifier(StringBuffer buffer) {
-		LocatedChar c = input.next();
-		while(isIdentifierChar(c)) {
-			buffer.append(c.getCharacter());
-			c = input.next();
-		}
-		input.pushback(c);
-	}
 	
-	private boolean isIdentifierChar(LocatedChar ch) {
-		if(ch.isLowerCase())
-			return true;
-		else if(ch.isUpperCase())
-			return true;
-		else if(ch.isDigit())
-			return true;
-		else if(ch.getCharacter()=='_' || ch.getCharacter()=='~')
-			return true;
-		else 
-			return false;
-	}
-	
-	@SuppressWarnings("unused")
-	// old method to find whole identifier
-	private void appendSubsequentLowercase(StringBuffer buffer) {
-		LocatedChar c = input.next();
-		while(c.isLowerCase()) {
-			buffer.append(c.getCharacter());
-			c = input.next();
-		}
-		input.pushback(c);
-	}
-
-	
-	//////////////////////////////////////////////////////////////////////////////
-	// Punctuator lexical analysis	
-	// old method left in to show a simple scanning method.
-	// current method is the algorithm object PunctuatorScanner.java
-	// judge whether there exists comments at the same time
-	private Token scanPunctuatorAndComments(LocatedChar ch)
-	{
-		LocatedChar tempC = input.next();
-		if(ch.getCharacter() == '/' && tempC.getCharacter() == '/') {		// double '/' = comments starter
-			return eliminateComments(tempC, input);
-		} else {
-			input.pushback(tempC);
-			return PunctuatorScanner.scan(ch, input);
-		}
-	}
-	@SuppressWarnings("unused")
-	private Token oldScanPunctuator(LocatedChar ch) {
-		TextLocation location = ch.getLocation();
-		
-		switch(ch.getCharacter()) {
-		case '*':
-			return LextantToken.make(location, "*", Punctuator.MULTIPLY);
-		case '+':
-			return LextantToken.make(location, "+", Punctuator.ADD); 
-		case '>':
-			return LextantToken.make(location, ">", Punctuator.GREATER);
-		case ':':
-			if(ch.getCharacter()=='=') {
-				return LextantToken.make(location, ":=", Punctuator.ASSIGN);
-			}
-			else {
-				throw new IllegalArgumentException("found : not followed by = in scanOperator");
-			}
-		case ',':
-			return LextantToken.make(location, ",", Punctuator.SEPARATOR);
-		case ';':
-			return LextantToken.make(location, ";", Punctuator.TERMINATOR);
-		default:
-			throw new IllegalArgumentException("bad LocatedChar " + ch + "in scanOperator");
-		}
-	}
-
 	//////////////////////////////////////////////////////////////////////////////
-	//Character Constant lexical analysis
+	// Floating constants: "e+" exponents are written without the '+'
 	
-	private Token scanCharacterConstant(LocatedChar ch) {
-		LocatedChar nextChar = input.next();
-		if(!nextChar.isPrintableChar()) {
-			input.pushback(nextChar);
-			issueLexicalError("Lexical Error: unvalid char " + nextChar);
+	private String withoutPlusSign(int start, int end) {
+		CharSequence chars = input.chars();
+		int plusSign = start;
+		while(chars.charAt(plusSign) != '+') {
+			plusSign++;
 		}
-		return CharacterToken.make(ch.getLocation(), nextChar.getCharacter().toString());
-	}
-	//////////////////////////////////////////////////////////////////////////////
-	//String Constant lexical analysis
-	
-	private Token scanStringConstant(LocatedChar ch) {
-		StringBuffer buffer = new StringBuffer();
-		LocatedChar nextChar = input.next();
-
-		while(true) {
-			
-			if(nextChar.getCharacter() == '\"') {
-				return StringToken.make(ch.getLocation(), buffer.toString());
-			}
-			if(nextChar.getCharacter() == '\n') {
-				break;
-			} else {
-				buffer.append(nextChar.getCharacter());
-				nextChar = input.next();
-			}
-
-		}	
-			issueLexicalError("Lexical Error: unclosed double quotes " + ch);
-			return findNextToken();		
+		return input.text(start, plusSign) + input.text(plusSign + 1, end);
 	}
 	
-
 	
-	/*----------------------------------------------------------------------------------------*/
 	//////////////////////////////////////////////////////////////////////////////
-	// Character-classification routines specific to Grouse scanning.	
+	// Input that LexerDFA does not accept.
+	// returns false if the input is skipped.
 
-	private boolean isNumberStart(LocatedChar ch) {
-		return ch.isDigit() || isMinusNumberStart(ch);
-	}
-	private boolean isMinusNumberStart(LocatedChar ch) {
-		if(ch.getCharacter() == '-') {
-			LocatedChar nextChar = input.next();
-			input.pushback(nextChar);
-			if(nextChar.isDigit()) 
-				return true;
-		}
+	private boolean noMatch() {
+		LocatedChar ch = input.peek();
+		char c = ch.getCharacter();
 		
-		return false;
-	}	
-	private boolean isIdentifierStart(LocatedChar ch) {
-		return ch.isLowerCase() || ch.isUpperCase() || ch.getCharacter() == '_';
-
-	}
-	private boolean isPunctuatorStart(LocatedChar lc) {
-		char c = lc.getCharacter();
-		return isPunctuatorStartingCharacter(c);
+		if(isPunctuatorStart(c)) {
+			return found(TokenBuffer.END, ch.getPosition(), null);		// no punctuator here; nothing is consumed
+		}
+		else if(c == '\'') {
+			return badCharacterConstant(ch);
+		}
+		else if(c == '"') {
+			unclosedStringConstant(ch);
+			return false;
+		}
+		else {
+			input.advance(1);
+			lexicalError(ch);
+			return false;
+		}
 	}
-	private boolean isCharacterConstantStart(LocatedChar ch) {
-		return ch.getCharacter() == '\'';
-				}
-	private boolean isStringConstantStart(LocatedChar ch) {
-		return ch.getCharacter() == '\"';
+	// only the quote is consumed; the character after it is scanned again.
+	private boolean badCharacterConstant(LocatedChar quote) {
+		LocatedChar nextChar = input.peek(1);
+		input.advance(1);
+		issueLexicalError("Lexical Error: unvalid char " + nextChar);
+		return found(TokenBuffer.CHARACTER, quote.getPosition(), String.valueOf(nextChar.getCharacter()));
 	}
-	private boolean isEndOfInput(LocatedChar lc) {
-		return lc == LocatedCharStream.FLAG_END_OF_INPUT;
+	// the rest of the line is consumed.
+	private void unclosedStringConstant(LocatedChar quote) {
+		input.advance(1);
+		while(input.available() > 0 && input.nextChar() != '\n') {
+		}
+		issueLexicalError("Lexical Error: unclosed double quotes " + quote);
 	}
 	
 	
@@ -320,36 +208,20 @@ public class LexicalAnalyzer extends ScannerImp implements Scanner {
 	// Error-reporting	
 
 	private void lexicalError(LocatedChar ch) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.lexicalAnalyzer");
-		log.severe("Lexical error: invalid character " + ch);
+		issueLexicalError("Lexical error: invalid character " + ch);
 	}
 	
 	private void lexicalError_identifierTooLong(String identifier, LocatedChar ch) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.lexicalAnalyzer");
-		log.severe("Lexical error: identifier too long : " + identifier + "(" + ch + ")");
+		issueLexicalError("Lexical error: identifier too long : " + identifier + "(" + ch + ")");
 	}
 	
+	// every lexical error comes through here.
 	private void issueLexicalError(String errorString) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.lexicalAnalyzer");
-		log.severe(errorString);
-	}
-	//////////////////////////////////////////////////////////////////////////////
-	// Comment elimination
-	private Token eliminateComments(LocatedChar ch, PushbackCharStream input){
-		
-		//System.out.println("comments found here");
-		LocatedChar ch1 = ch;
-		LocatedChar ch2 = input.next();
-		
-		if(ch2.getCharacter()!='\n'){	
-			while(true){
-				ch1 = ch2;
-				ch2 = input.next();
-				if((ch1.getCharacter()=='/' && ch2.getCharacter()=='/') || ch2.getCharacter() == '\n')
-					break;
-			}
+		if(tokenizing != null) {
+			tokenizing.addError(errorString);
+			return;
 		}
-		return findNextToken();
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.lexicalAnalyzer");
+		log.severe(errorString);
 	}
-	
 }
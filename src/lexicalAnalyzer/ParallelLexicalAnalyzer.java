@@ -0,0 +1,109 @@
+package lexicalAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import inputHandler.SourcePositions;
+
+/** Lexes a whole source into a TokenBuffer, in segments on a ForkJoinPool.  The buffer holds
+ *  the same tokens, and the same lexical errors at the same places, as
+ *  LexicalAnalyzer.tokenize() on the whole source.
+ *  <p>
+ *  Segments are split just after a newline.  String constants and comments cannot contain
+ *  a newline (an unclosed string or a comment ends with the line), so every newline is
+ *  outside them, and no token but whitespace runs on past one.  Each segment is lexed by
+ *  a LexicalAnalyzer on its own range of the buffer, with an IdentifierTable of its own but
+ *  the caller's CompilationContext, and the segments' TokenBuffers are appended in order,
+ *  their identifiers interned in the context's IdentifierTable as they go.
+ *  As in sequential lexing, the tokens stop at the first NullToken.
+ */
+public class ParallelLexicalAnalyzer {
+	public static final int MINIMUM_SEGMENT_SIZE = 1 << 14;
+	private static final int SEGMENTS_PER_THREAD = 4;
+
+	public static TokenBuffer tokenize(CompilationContext context, String filename) {
+		return tokenize(context, SourceBuffer.fromFilename(context, filename), ForkJoinPool.commonPool());
+	}
+	public static TokenBuffer tokenize(CompilationContext context, SourceBuffer source, ForkJoinPool pool) {
+		int segmentSize = source.length() / (SEGMENTS_PER_THREAD * pool.getParallelism());
+		return tokenize(context, source, pool, Math.max(segmentSize, MINIMUM_SEGMENT_SIZE));
+	}
+	/** Lexes source in segments of about segmentSize characters each, using pool. */
+	public static TokenBuffer tokenize(CompilationContext context, SourceBuffer source, ForkJoinPool pool, int segmentSize) {
+		int[] splits = splitPoints(source, segmentSize);
+		List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<ForkJoinTask<TokenBuffer>>();
+		for(int i = 0; i + 1 < splits.length; i++) {
+			PushbackCharStream segment = PushbackCharStream.make(source, splits[i], splits[i + 1]);
+			tasks.add(pool.submit(() -> new LexicalAnalyzer(context, segment, new IdentifierTable()).tokenize()));
+		}
+
+		TokenBuffer result = new TokenBuffer(context);
+		boolean ended = false;
+		for(int i = 0; i < tasks.size() && !ended; i++) {
+			boolean isLast = (i == tasks.size() - 1);
+			ended = append(context.getIdentifierTable(), result, tasks.get(i).join(), isLast);
+		}
+		for(ForkJoinTask<TokenBuffer> task: tasks) {
+			task.cancel(false);
+		}
+		return result;
+	}
+
+
+	// segment boundaries: 0, the character after the first newline at least segmentSize
+	// characters past the previous boundary, ..., and the end of the source.
+	private static int[] splitPoints(SourceBuffer source, int segmentSize) {
+		int length = source.length();
+		List<Integer> points = new ArrayList<Integer>();
+		points.add(0);
+		int split = 0;
+		while(true) {
+			split = Math.min(split + segmentSize, length);
+			while(split < length && source.charAt(split - 1) != '\n') {
+				split++;
+			}
+			if(split >= length) {
+				break;
+			}
+			points.add(split);
+		}
+		points.add(length);
+
+		int[] result = new int[points.size()];
+		for(int i = 0; i < result.length; i++) {
+			result[i] = points.get(i);
+		}
+		return result;
+	}
+
+	// A segment that is not the last ends with the end-of-input NullToken of its range; that
+	// token is dropped, and its errors go with the next token appended.  Any other NullToken
+	// ends the whole token stream.
+	// returns true if the token stream has ended.
+	private static boolean append(IdentifierTable identifiers, TokenBuffer result, TokenBuffer segment, boolean isLast) {
+		for(int i = 0; i < segment.size(); i++) {
+			String[] errors = segment.errorsBefore(i);
+			if(errors != null) {
+				for(String error: errors) {
+					result.addError(error);
+				}
+			}
+			int kind = segment.kind(i);
+			long position = segment.position(i);
+			if(kind == TokenBuffer.END && position == SourcePositions.END_OF_INPUT && !isLast) {
+				return false;
+			}
+			String lexeme = segment.lexeme(i);
+			result.add(kind, position, (kind == TokenBuffer.IDENTIFIER) ? identifiers.intern(lexeme) : lexeme);
+			if(kind == TokenBuffer.END) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -1,5 +1,6 @@
 package lexicalAnalyzer;
 
+import inputHandler.SourcePositions;
 import tokens.LextantToken;
 import tokens.Token;
 
@@ -42,7 +43,7 @@ public enum Punctuator implements Lextant {
 	
 	private Punctuator(String lexeme) {
 		this.lexeme = lexeme;
-		this.prototype = LextantToken.make(null, lexeme, this);
+		this.prototype = LextantToken.make(SourcePositions.NO_POSITION, lexeme, this);
 	}
 	public String getLexeme() {
 		return lexeme;
@@ -4,8 +4,10 @@ import inputHandler.PushbackCharStream;
 import tokens.NullToken;
 import tokens.Token;
 
+// The scanner stays one token ahead of next(); the first token is found on first use,
+// so a subclass is fully constructed before findNextToken() runs.
 public abstract class ScannerImp implements Scanner {
-	private Token nextToken;
+	private Token nextToken = null;
 	protected final PushbackCharStream input;
 	
 	protected abstract Token findNextToken();
@@ -13,21 +15,26 @@ public abstract class ScannerImp implements Scanner {
 	public ScannerImp(PushbackCharStream input) {
 		super();
 		this.input = input;
-		nextToken = findNextToken();
 	}
 
 	// Iterator<Token> implementation
 	@Override
 	public boolean hasNext() {
-		return !(nextToken instanceof NullToken);
+		return !(lookahead() instanceof NullToken);
 	}
 
 	@Override
 	public Token next() {
-		Token result = nextToken;
+		Token result = lookahead();
 		nextToken = findNextToken();
 		return result;
 	}
+	private Token lookahead() {
+		if(nextToken == null) {
+			nextToken = findNextToken();
+		}
+		return nextToken;
+	}
 
 	@Override
 	public void remove() {
@@ -0,0 +1,264 @@
+package lexicalAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import context.CompilationContext;
+import logging.GrouseLogger;
+import tokens.CharacterToken;
+import tokens.FloatingToken;
+import tokens.IdentifierToken;
+import tokens.IntegerToken;
+import tokens.LextantToken;
+import tokens.NullToken;
+import tokens.StringToken;
+import tokens.Token;
+
+/** The tokens of a source in struct-of-arrays form: a kind, a packed source position and a
+ *  lexeme index for each token, in parallel arrays indexed by token number.
+ *  <p>
+ *  A kind is one of the constants below, or FIRST_LEXTANT plus the number of a Keyword or
+ *  Punctuator (see kindOf).  Lexeme indexes refer to the buffer's table of distinct lexemes;
+ *  lextants and NullTokens have no entry there.  Token objects are made only when token(i) is
+ *  called, and are kept after that.
+ *  <p>
+ *  The last token is a NullToken, of kind END: the end of input, or a place where no token
+ *  starts.  Indexes past it give that token again, as a Scanner's next() does.
+ *  <p>
+ *  The lexical errors found before each token are kept with it.  A Scanner finds its tokens
+ *  one ahead of next(), so token(i) logs the errors kept with tokens up to i+1; a parser
+ *  reading the buffer logs them at the same points as one reading the Scanner.
+ *  A buffer made by reading(scanner) fills itself from the scanner as tokens are asked for,
+ *  and the scanner logs its own errors.
+ */
+public class TokenBuffer {
+	public static final int END = 0;
+	public static final int IDENTIFIER = 1;
+	public static final int INTEGER = 2;
+	public static final int FLOATING = 3;
+	public static final int CHARACTER = 4;
+	public static final int STRING = 5;
+	public static final int FIRST_LEXTANT = 6;
+	private static final int NO_LEXEME = -1;
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final Keyword[] KEYWORDS = Keyword.values();
+	private static final Punctuator[] PUNCTUATORS = Punctuator.values();
+	public static final int NUMBER_OF_KINDS = FIRST_LEXTANT + KEYWORDS.length + PUNCTUATORS.length;
+
+	private short[] kinds = new short[INITIAL_CAPACITY];
+	private long[] positions = new long[INITIAL_CAPACITY];
+	private int[] lexemeIndexes = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	private List<String> lexemes = new ArrayList<String>();
+	private Map<String, Integer> lexemeTable = new HashMap<String, Integer>();
+
+	private Token[] tokens = null;
+	private String[][] errors = null;			// errors[i]: the errors before token i, or null
+	private List<String> pendingErrors = null;	// the errors before the next token added
+	private int errorsLogged = 0;				// the number of tokens whose errors have been logged
+	// a buffer filled from a Scanner never has errors: the scanner logs them.
+
+	private Scanner scanner = null;
+	private final CompilationContext context;	// the errors are logged in this compilation
+
+	public TokenBuffer(CompilationContext context) {
+		super();
+		this.context = context;
+	}
+	/** A buffer that is filled from scanner as its tokens are asked for. */
+	public static TokenBuffer reading(CompilationContext context, Scanner scanner) {
+		TokenBuffer result = new TokenBuffer(context);
+		result.scanner = scanner;
+		return result;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// filling
+
+	/** Adds a token.  lexeme is ignored for lextants and END. */
+	public void add(int kind, long position, String lexeme) {
+		ensureCapacity(size + 1);
+		kinds[size] = (short)kind;
+		positions[size] = position;
+		lexemeIndexes[size] = hasLexemeEntry(kind) ? lexemeIndex(lexeme) : NO_LEXEME;
+		if(pendingErrors != null) {
+			errors = (errors == null) ? new String[kinds.length][] : errors;
+			errors[size] = pendingErrors.toArray(new String[pendingErrors.size()]);
+			pendingErrors = null;
+		}
+		size++;
+	}
+	/** Keeps a lexical error with the next token added. */
+	public void addError(String message) {
+		if(pendingErrors == null) {
+			pendingErrors = new ArrayList<String>();
+		}
+		pendingErrors.add(message);
+	}
+
+	private void add(Token token) {
+		add(kindOf(token), token.getPosition(), token.getLexeme());
+		ensureTokens();
+		tokens[size - 1] = token;
+	}
+	private void fillThrough(int index) {
+		while(scanner != null && size <= index) {
+			Token token = scanner.next();
+			add(token);
+			if(token instanceof NullToken) {
+				scanner = null;
+			}
+		}
+	}
+	private void ensureCapacity(int capacity) {
+		if(capacity <= kinds.length) {
+			return;
+		}
+		int newLength = 2 * kinds.length;
+		kinds = Arrays.copyOf(kinds, newLength);
+		positions = Arrays.copyOf(positions, newLength);
+		lexemeIndexes = Arrays.copyOf(lexemeIndexes, newLength);
+		if(tokens != null) {
+			tokens = Arrays.copyOf(tokens, newLength);
+		}
+		if(errors != null) {
+			errors = Arrays.copyOf(errors, newLength);
+		}
+	}
+	private void ensureTokens() {
+		if(tokens == null) {
+			tokens = new Token[kinds.length];
+		}
+	}
+	private int lexemeIndex(String lexeme) {
+		Integer index = lexemeTable.get(lexeme);
+		if(index == null) {
+			index = lexemes.size();
+			lexemes.add(lexeme);
+			lexemeTable.put(lexeme, index);
+		}
+		return index;
+	}
+	private static boolean hasLexemeEntry(int kind) {
+		return kind != END && kind < FIRST_LEXTANT;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// access by token number
+
+	/** The number of tokens in the buffer so far, up to and including the final NullToken. */
+	public int size() {
+		return size;
+	}
+	public int kind(int index) {
+		return kinds[clamp(index)];
+	}
+	public long position(int index) {
+		return positions[clamp(index)];
+	}
+	public String lexeme(int index) {
+		index = clamp(index);
+		int kind = kinds[index];
+		if(kind >= FIRST_LEXTANT) {
+			return lextantOf(kind).getLexeme();
+		}
+		return (kind == END) ? "" : lexemes.get(lexemeIndexes[index]);
+	}
+	/** The errors kept with a token, or null if there are none.  They are not logged. */
+	public String[] errorsBefore(int index) {
+		index = clamp(index);
+		return (errors == null) ? null : errors[index];
+	}
+	/** The Token object for a token; see the class comment for the errors this logs. */
+	public Token token(int index) {
+		index = clamp(index);
+		if(errors != null) {
+			logErrorsThrough(Math.min(index + 1, size - 1));
+		}
+		ensureTokens();
+		if(tokens[index] == null) {
+			tokens[index] = makeToken(kinds[index], positions[index], lexeme(index));
+		}
+		return tokens[index];
+	}
+
+	private int clamp(int index) {
+		fillThrough(index);
+		return Math.min(index, size - 1);
+	}
+	private void logErrorsThrough(int index) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.lexicalAnalyzer");
+		for( ; errorsLogged <= index; errorsLogged++) {
+			if(errors[errorsLogged] != null) {
+				for(String error: errors[errorsLogged]) {
+					log.severe(error);
+				}
+			}
+		}
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////
+	// kinds
+
+	public static int kindOf(Lextant lextant) {
+		if(lextant instanceof Keyword) {
+			return FIRST_LEXTANT + ((Keyword)lextant).ordinal();
+		}
+		return FIRST_LEXTANT + KEYWORDS.length + ((Punctuator)lextant).ordinal();
+	}
+	public static Lextant lextantOf(int kind) {
+		int number = kind - FIRST_LEXTANT;
+		return (number < KEYWORDS.length) ? KEYWORDS[number] : PUNCTUATORS[number - KEYWORDS.length];
+	}
+	private static int kindOf(Token token) {
+		if(token instanceof LextantToken) {
+			return kindOf(((LextantToken)token).getLextant());
+		}
+		if(token instanceof IdentifierToken) {
+			return IDENTIFIER;
+		}
+		if(token instanceof IntegerToken) {
+			return INTEGER;
+		}
+		if(token instanceof FloatingToken) {
+			return FLOATING;
+		}
+		if(token instanceof CharacterToken) {
+			return CHARACTER;
+		}
+		if(token instanceof StringToken) {
+			return STRING;
+		}
+		assert token instanceof NullToken : "unknown token " + token;
+		return END;
+	}
+
+	/** Makes the Token object for a token of the given kind. */
+	public static Token makeToken(int kind, long position, String lexeme) {
+		switch(kind) {
+		case END:
+			return NullToken.make(position);
+		case IDENTIFIER:
+			return IdentifierToken.make(position, lexeme);
+		case INTEGER:
+			return IntegerToken.make(position, lexeme);
+		case FLOATING:
+			return FloatingToken.make(position, lexeme);
+		case CHARACTER:
+			return CharacterToken.make(position, lexeme);
+		case STRING:
+			return StringToken.make(position, lexeme);
+		default:
+			Lextant lextant = lextantOf(kind);
+			return LextantToken.make(position, lextant.getLexeme(), lextant);
+		}
+	}
+}
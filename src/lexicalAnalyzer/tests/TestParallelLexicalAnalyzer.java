@@ -0,0 +1,81 @@
+package lexicalAnalyzer.tests;
+
+import static applications.tests.FixtureDefinitions.TOKEN_PRINTER_INPUT_FILENAME;
+
+import java.util.concurrent.ForkJoinPool;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.ParallelLexicalAnalyzer;
+import lexicalAnalyzer.TokenBuffer;
+import tests.FileFixturesTestCase;
+
+public class TestParallelLexicalAnalyzer extends FileFixturesTestCase {
+	private static final String SPLIT_SOURCE =
+			"imm s := \"a // b\" // comment \"\n" +
+			"var x := 1.5e+3 + -2 // comment // y\n" +
+			"\n" +
+			"   print x, s ;;\n";
+	private static final int THREADS = 4;
+
+	private ForkJoinPool pool;
+	private CompilationContext context;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		pool = new ForkJoinPool(THREADS);
+		context = new CompilationContext();
+	}
+	@Override
+	protected void tearDown() throws Exception {
+		pool.shutdown();
+		super.tearDown();
+	}
+
+	public void testSameAsSequentialOnFixture() {
+		SourceBuffer source = SourceBuffer.fromFilename(context, TOKEN_PRINTER_INPUT_FILENAME);
+		for(int segmentSize: new int[] {1, 7, 64, source.length()}) {
+			assertEquals(sequentialTokens(source), parallelTokens(source, segmentSize));
+		}
+	}
+
+	// strings, comments and whitespace on either side of every split point.
+	public void testSameAsSequentialAtEverySplit() {
+		SourceBuffer source = SourceBuffer.fromString(context, "x", SPLIT_SOURCE);
+		assertEquals(sequentialTokens(source), parallelTokens(source, 1));
+	}
+
+	// the sequential scanner stops at a NullToken that is not the end of input.
+	public void testStopsAtFirstNullToken() {
+		SourceBuffer source = SourceBuffer.fromString(context, "x", "a\n&b\nc\n");
+		String expected = sequentialTokens(source);
+		assertEquals(expected, parallelTokens(source, 1));
+		assertFalse(expected.contains("(Identifier, c,"));
+	}
+
+	// identifiers from different segments share the instance in the compilation's table.
+	public void testIdentifiersSharedAcrossSegments() {
+		SourceBuffer source = SourceBuffer.fromString(context, "x", "abc\nabc\n");
+		TokenBuffer tokens = ParallelLexicalAnalyzer.tokenize(context, source, pool, 1);
+		String lexeme = context.getIdentifierTable().intern("abc");
+		assertSame(lexeme, tokens.token(0).getLexeme());
+		assertSame(lexeme, tokens.token(1).getLexeme());
+	}
+
+	private String sequentialTokens(SourceBuffer source) {
+		return tokenStrings(new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize());
+	}
+	private String parallelTokens(SourceBuffer source, int segmentSize) {
+		return tokenStrings(ParallelLexicalAnalyzer.tokenize(context, source, pool, segmentSize));
+	}
+	private String tokenStrings(TokenBuffer tokens) {
+		StringBuilder result = new StringBuilder();
+		for(int i = 0; i < tokens.size(); i++) {
+			result.append(tokens.token(i).fullString(context.getSourcePositions())).append("\n");
+		}
+		return result.toString();
+	}
+}
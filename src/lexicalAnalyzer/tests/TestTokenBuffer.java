@@ -0,0 +1,61 @@
+package lexicalAnalyzer.tests;
+
+import static applications.tests.FixtureDefinitions.TOKEN_PRINTER_INPUT_FILENAME;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourcePositions;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.Keyword;
+import lexicalAnalyzer.LexicalAnalyzer;
+import lexicalAnalyzer.Punctuator;
+import lexicalAnalyzer.Scanner;
+import lexicalAnalyzer.TokenBuffer;
+import tests.FileFixturesTestCase;
+import tokens.NullToken;
+
+public class TestTokenBuffer extends FileFixturesTestCase {
+	private final CompilationContext context = new CompilationContext();
+
+	// tokenize() must give the tokens the Scanner interface gives.
+	public void testSameAsScanner() {
+		SourceBuffer source = SourceBuffer.fromFilename(context, TOKEN_PRINTER_INPUT_FILENAME);
+		SourcePositions sources = context.getSourcePositions();
+		Scanner scanner = new LexicalAnalyzer(context, PushbackCharStream.make(source));
+		TokenBuffer tokens = new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize();
+
+		int i = 0;
+		while(scanner.hasNext()) {
+			assertEquals(scanner.next().fullString(sources), tokens.token(i++).fullString(sources));
+		}
+		assertEquals(scanner.next().fullString(sources), tokens.token(i).fullString(sources));
+		assertEquals(i + 1, tokens.size());
+	}
+
+	public void testReadingScanner() {
+		SourceBuffer source = SourceBuffer.fromString(context, "x", "main { print 1; }");
+		TokenBuffer tokens = TokenBuffer.reading(context, new LexicalAnalyzer(context, PushbackCharStream.make(source)));
+		assertTrue(tokens.token(2).isLextant(Keyword.PRINT));
+		assertEquals(TokenBuffer.INTEGER, tokens.kind(3));
+		assertEquals("1", tokens.lexeme(3));
+		assertTrue(tokens.token(0).isLextant(Keyword.MAIN));
+	}
+
+	public void testPastTheEnd() {
+		SourceBuffer source = SourceBuffer.fromString(context, "x", "a b");
+		TokenBuffer tokens = new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize();
+		assertEquals(3, tokens.size());
+		assertTrue(tokens.token(2) instanceof NullToken);
+		assertSame(tokens.token(2), tokens.token(10));
+		assertEquals(TokenBuffer.END, tokens.kind(10));
+	}
+
+	public void testLextantKinds() {
+		for(Keyword keyword: Keyword.values()) {
+			assertSame(keyword, TokenBuffer.lextantOf(TokenBuffer.kindOf(keyword)));
+		}
+		for(Punctuator punctuator: Punctuator.values()) {
+			assertSame(punctuator, TokenBuffer.lextantOf(TokenBuffer.kindOf(punctuator)));
+		}
+	}
+}
@@ -1,43 +1,44 @@
 package logging;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import context.CompilationContext;
+
 /** This class is a Facade for java.util.logging.
  * It also retains the number of messages that have been logged.
  * Optionally, one may configure this logger to throw an exception
  * when a certain message count is reached.
  * <p>
- * Retains hard references to all loggers created.
+ * The count and the limit are those of the CompilationContext the logger
+ * is gotten for, so each compilation counts only its own messages.
+ * <p>
+ * Retains hard references to all java.util.logging loggers used.
  */ 
 
 public class GrouseLogger {
-	private static Map<String, GrouseLogger> loggers = new HashMap<String, GrouseLogger>();
-	private static int numMessages = 0;
-	private static int maxMessagesBeforeQuit = Integer.MAX_VALUE;
+	private static ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
 	
 	////////////////////////////////////////////////////////////////
 	// static interface
-	public static GrouseLogger getLogger(String loggerName) {
-		if(!loggers.containsKey(loggerName)) {
-			loggers.put(loggerName, new GrouseLogger(loggerName)); 
+	public static GrouseLogger getLogger(CompilationContext context, String loggerName) {
+		Logger logger = loggers.get(loggerName);
+		if(logger == null) {
+			loggers.putIfAbsent(loggerName, Logger.getLogger(loggerName));
+			logger = loggers.get(loggerName);
 		}
-		return loggers.get(loggerName);
-	}
-	public static boolean hasErrors() {
-		return numMessages != 0;
-	}
-	public static void setMaximumErrorMessages(int numMessages) {
-		maxMessagesBeforeQuit = numMessages;
+		return new GrouseLogger(context, logger);
 	}
 	
 	////////////////////////////////////////////////////////////////
 	// per-instance code
+	private CompilationContext context;
 	private Logger logger;
-	private GrouseLogger(String loggerName) {
-		logger = Logger.getLogger(loggerName);
+	private GrouseLogger(CompilationContext context, Logger logger) {
+		this.context = context;
+		this.logger = logger;
 	}
 	
 	public void log(Level level, String message) {
@@ -48,8 +49,7 @@ public class GrouseLogger {
 		log(Level.SEVERE, message);
 	}
 	private void incrementNumMessages() {
-		numMessages++;
-		if(numMessages >= maxMessagesBeforeQuit) {
+		if(context.countMessage()) {
 			throw new GrouseLoggerException("Too many error messages.  Aborting.");
 		}
 	}
@@ -1,9 +1,9 @@
 package parseTree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import semanticAnalyzer.signatures.FunctionSignatures;
 import semanticAnalyzer.types.*;
 import symbolTable.Binding;
 import symbolTable.Scope;
@@ -42,14 +42,7 @@ public class ParseNode {
 // attributes
 	
 	public void setType(Type type) {
-		if(type instanceof TypeVariable) {
-			this.type = ((TypeVariable)type).getType();
-			//FunctionSignatures.resetTypeVar();	//both place would work
-		} else
-			this.type = type;
-		
-		FunctionSignatures.resetTypeVar();		
-
+		this.type = type;
 	}
 	public Type getType() {
 		return type;
@@ -61,19 +54,26 @@ public class ParseNode {
 	public Scope getScope() {
 		return scope;
 	}
+	// scopes are set top-down, so the scope enclosing this one is already in place.
 	public void setScope(Scope scope) {
+		ParseNode enclosing = scopedAncestor();
+		scope.setEnclosingScope(enclosing == null ? null : enclosing.getScope());
 		this.scope = scope;
 	}
 	public boolean hasScope() {
 		return scope != null;
 	}
 	public Scope getLocalScope() {
-		for(ParseNode current : pathToRoot()) {
+		ParseNode scoped = scopedAncestor();
+		return (scoped == null) ? Scope.nullInstance() : scoped.getScope();
+	}
+	private ParseNode scopedAncestor() {
+		for(ParseNode current = parent; current != NO_PARENT; current = current.parent) {
 			if(current.hasScope()) {
-				return current.getScope();
+				return current;
 			}
 		}
-		return Scope.nullInstance();
+		return null;
 	}
 	public boolean containsBindingOf(String identifier) {
 		if(!hasScope()) {
@@ -121,13 +121,12 @@ public class ParseNode {
 		children.add(child);
 		child.setParent(this);
 	}
-	// do not do this in the middle of a visit; the children list traversal may be zapped if you do.
-	// (throws a ConcurrentModificationException.)
+	// replaces in place (the children list does not change size), so a visitor may
+	// replace the node it is leaving without zapping its parent's traversal.
 	public void replaceChild(ParseNode oldChild, ParseNode newChild) {
 		for(int index = 0; index < nChildren(); index++) {
 			if(child(index) == oldChild) {
-				children.remove(index);
-				children.add(index, newChild);
+				children.set(index, newChild);
 				newChild.setParent(this);
 				break;
 			}
@@ -154,16 +153,44 @@ public class ParseNode {
 	
 ////////////////////////////////////////////////////////////////////////////////////
 // for visitors
-			
+//
+// accept visits the subtree in the same order as a recursive enter, children, leave
+// traversal, but keeps the path down to the current node in an explicit stack.  Children
+// are read by index as they are reached, so a visitor may replace the node it is leaving.
+	
 	public void accept(ParseNodeVisitor visitor) {
+		if(!enter(visitor)) {
+			return;
+		}
+		List<ParseNode> path = new ArrayList<ParseNode>();
+		int[] nextChild = new int[16];
+		path.add(this);
+		while(!path.isEmpty()) {
+			int top = path.size() - 1;
+			ParseNode node = path.get(top);
+			if(nextChild[top] == node.nChildren()) {
+				path.remove(top);
+				node.leave(visitor);
+				continue;
+			}
+			ParseNode child = node.child(nextChild[top]++);
+			if(child.enter(visitor)) {
+				if(path.size() == nextChild.length) {
+					nextChild = Arrays.copyOf(nextChild, 2 * nextChild.length);
+				}
+				nextChild[path.size()] = 0;
+				path.add(child);
+			}
+		}
+	}
+	// visitEnter this node, or visit it if the visitor treats it as a leaf.
+	// returns whether its children and visitLeave are to follow.
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
-		visitor.visitLeave(this);
+		return true;
 	}
-	protected void visitChildren(ParseNodeVisitor visitor) {
-		for(ParseNode child : children) {
-			child.accept(visitor);
-		}
+	protected void leave(ParseNodeVisitor visitor) {
+		visitor.visitLeave(this);
 	}
 
 }
@@ -1,5 +1,8 @@
 package parseTree;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Through the static method <code>print</code>, this class will create
  * a string that corresponds to a pretty-printing of the AST subtree rooted
@@ -66,12 +69,22 @@ public class ParseTreePrinter {
 		return result.toString();
 	}
 
-	// main logic for printing indented trees.
-	private void appendIndentedSubtree(ParseNode node, int indentAmount) {
-		appendIndentedLineFor(node, indentAmount);
-		
-		for(ParseNode child : node.children) {
-			appendIndentedSubtree(child, indentAmount+INDENT_INCREMENT);
+	// main logic for printing indented trees.  Nodes waiting to be printed are kept
+	// on a stack, children pushed last-first so they come off in order.
+	private void appendIndentedSubtree(ParseNode root, int indentAmount) {
+		Deque<ParseNode> nodes = new ArrayDeque<ParseNode>();
+		Deque<Integer> indents = new ArrayDeque<Integer>();
+		nodes.push(root);
+		indents.push(indentAmount);
+		while(!nodes.isEmpty()) {
+			ParseNode node = nodes.pop();
+			int indent = indents.pop();
+			appendIndentedLineFor(node, indent);
+			
+			for(int i = node.nChildren() - 1; i >= 0; i--) {
+				nodes.push(node.child(i));
+				indents.push(indent + INDENT_INCREMENT);
+			}
 		}
 	}
 	
@@ -23,9 +23,11 @@ public class ArrayConcatenationNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 	
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
 		visitor.visitLeave(this);
 	}
 }
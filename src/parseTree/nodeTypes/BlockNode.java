@@ -21,9 +21,11 @@ public class BlockNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 	
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
 		visitor.visitLeave(this);
 	}
 	
@@ -57,7 +57,8 @@ public class BreakContinueStatementNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 	
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visit(this);
+		return false;
 	}
 }
\ No newline at end of file
@@ -17,7 +17,8 @@ public class ErrorNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 			
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visit(this);
+		return false;
 	}
 }
@@ -37,9 +37,11 @@ public class ForControlPhraseNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 			
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
 		visitor.visitLeave(this);
 	}
 }
\ No newline at end of file
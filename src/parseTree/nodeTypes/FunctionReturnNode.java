@@ -46,7 +46,8 @@ public class FunctionReturnNode extends ParseNode {
 	
 	///////////////////////////////////////////////////////////
 	// accept 
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visit(this);
+		return false;
 	}
 }
\ No newline at end of file
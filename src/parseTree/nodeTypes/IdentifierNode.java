@@ -1,5 +1,6 @@
 package parseTree.nodeTypes;
 
+import context.CompilationContext;
 import parseTree.ParseNode;
 import parseTree.ParseNodeVisitor;
 import logging.GrouseLogger;
@@ -14,6 +15,7 @@ import tokens.Token;
 public class IdentifierNode extends ParseNode {
 	private Binding binding;
 	private Scope declarationScope;
+	private boolean resolved;		// findVariableBinding has looked this identifier up
 
 	public IdentifierNode(Token token) {
 		super(token);
@@ -57,61 +59,62 @@ public class IdentifierNode extends ParseNode {
 ////////////////////////////////////////////////////////////
 // Speciality functions
 
-	public Binding findVariableBinding() {
+	// looks the identifier up through the enclosing scopes the first time only; 
+	// later calls return the binding found then, without logging again.
+	public Binding findVariableBinding(CompilationContext context) {
+		if(!resolved) {
+			binding = resolveVariableBinding(context);
+			resolved = true;
+		}
+		return binding;
+	}
+	private Binding resolveVariableBinding(CompilationContext context) {
 		String identifier = token.getLexeme();
-
-		for(ParseNode current : pathToRoot()) {	
-			if(current.containsBindingOf(identifier)) {
-				declarationScope = current.getScope();
-				Binding binding = current.bindingOf(identifier);
-				if((binding instanceof TupleBinding) || (binding instanceof FunctionBinding)) {
-					break;
-				}
-				return current.bindingOf(identifier);
+		
+		Scope scope = getLocalScope().declaringScopeOf(identifier);
+		if(scope != null) {
+			declarationScope = scope;
+			Binding binding = scope.getSymbolTable().lookup(identifier);
+			if(!(binding instanceof TupleBinding) && !(binding instanceof FunctionBinding)) {
+				return binding;
 			}
 		}
-		useBeforeDefineError();
+		useBeforeDefineError(context);
 		return Binding.nullInstance();
 	}
 	
-	public boolean canBeShadowed() {
-		String identifier = token.getLexeme();
-		
-		for(ParseNode current : pathToRoot()) {
-			if(current.containsBindingOf(identifier)) {
-				if(!current.bindingOf(identifier).canBeShadowed()) {
-					cannotBeShadowedError();
-					return false;
-				}
-			}
+	public boolean canBeShadowed(CompilationContext context) {
+		if(!getLocalScope().allowsShadowingOf(token.getLexeme())) {
+			cannotBeShadowedError(context);
+			return false;
 		}
-		
 		return true;
 	}
 
-	public Scope getDeclarationScope() {
-		findVariableBinding();
+	public Scope getDeclarationScope(CompilationContext context) {
+		findVariableBinding(context);
 		return declarationScope;
 	}
 	
 	/////////////////////////////////////////////////////////////////////////
 	// error logging
-	public void useBeforeDefineError() {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer.identifierNode");
+	public void useBeforeDefineError(CompilationContext context) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer.identifierNode");
 		Token token = getToken();
-		log.severe("identifier " + token.getLexeme() + " used before defined at " + token.getLocation());
+		log.severe("identifier " + token.getLexeme() + " used before defined at " + context.locationOf(token.getPosition()));
 	}
 	
-	public void cannotBeShadowedError() {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer.identifierNode");
+	public void cannotBeShadowedError(CompilationContext context) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer.identifierNode");
 		Token token = getToken();
-		log.severe("identifier " + token.getLexeme() + " cannot be shadowed at " + token.getLocation());
+		log.severe("identifier " + token.getLexeme() + " cannot be shadowed at " + context.locationOf(token.getPosition()));
 	}
 	
 ///////////////////////////////////////////////////////////
 // accept a visitor
 		
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visit(this);
+		return false;
 	}
 }
@@ -28,8 +28,9 @@ public class IntegerConstantNode extends ParseNode {
 ///////////////////////////////////////////////////////////
 // accept a visitor
 	
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visit(this);
+		return false;
 	}
 
 }
@@ -24,9 +24,11 @@ public class PrintStatementNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 		
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
 		visitor.visitLeave(this);
 	}
 
@@ -1,5 +1,6 @@
 package parseTree.nodeTypes;
 
+import context.CompilationContext;
 import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
@@ -9,7 +10,6 @@ import parseTree.ParseNodeVisitor;
 import tokens.IdentifierToken;
 import tokens.LextantToken;
 import tokens.Token;
-import semanticAnalyzer.SemanticAnalyzer;
 import semanticAnalyzer.types.*;
 import symbolTable.Binding;
 import symbolTable.FunctionBinding;
@@ -40,9 +40,9 @@ public class TypeNode extends ParseNode {
 		return (LextantToken)token;
 	}	
 	
-	public Type getTerminalType() {
+	public Type getTerminalType(CompilationContext context) {
 		if(token instanceof IdentifierToken)
-			return getTupleType();
+			return getTupleType(context);
 		else
 			return getPrimitiveType();
 	}
@@ -64,19 +64,19 @@ public class TypeNode extends ParseNode {
 		return null;
 	}
 	
-	private Type getTupleType() {
-		Scope globalScope = SemanticAnalyzer.getGlobalScope();
+	private Type getTupleType(CompilationContext context) {
+		Scope globalScope = context.getGlobalScope();
 		SymbolTable globalSymbolTable = globalScope.getSymbolTable();
 		String tupleName = token.getLexeme();
 		
 		if(!globalSymbolTable.containsKey(tupleName)) {
-			useBeforeDefineError();
+			useBeforeDefineError(context);
 		}
 		
 		Binding binding = globalSymbolTable.lookup(tupleName);
 		
 		if(!(binding instanceof TupleBinding) && !(binding instanceof FunctionBinding)) {
-			useBeforeDefineError();
+			useBeforeDefineError(context);
 		}
 		
 		return binding.getType();
@@ -93,23 +93,24 @@ public class TypeNode extends ParseNode {
 	
 	///////////////////////////////////////////////////////////////
 	// Error Logger
-	public void useBeforeDefineError() {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer.TypeNode");
+	public void useBeforeDefineError(CompilationContext context) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer.TypeNode");
 		Token token = getToken();
-		log.severe("TupleType " + token.getLexeme() + " used before defined at " + token.getLocation());
+		log.severe("TupleType " + token.getLexeme() + " used before defined at " + context.locationOf(token.getPosition()));
 	}
 	
 	///////////////////////////////////////////////////////////
 	// accept a visitor
 	
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		if(this.nChildren() == 0) {
 			visitor.visit(this);
-		} 
-		else {
-			visitor.visitEnter(this);
-			visitChildren(visitor);
-			visitor.visitLeave(this);
-		}		
+			return false;
+		}
+		visitor.visitEnter(this);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
+		visitor.visitLeave(this);
 	}
 }
@@ -25,16 +25,6 @@ public class UnaryOperatorNode extends ParseNode {
 	////////////////////////////////////////////////////////////
 	// attributes
 	
-	@Override
-	public void setType(Type type) {
-		if(type instanceof ArrayType) {
-			assert ((ArrayType)type).getSubType() instanceof TypeVariable;
-			TypeVariable var = (TypeVariable)((ArrayType)type).getSubType();
-			super.setType(new ArrayType(var.getType())); 
-		} else 
-			super.setType(type);
-	}
-	
 	public Lextant getOperator() {
 		return lextantToken().getLextant();
 	}
@@ -57,9 +47,11 @@ public class UnaryOperatorNode extends ParseNode {
 	///////////////////////////////////////////////////////////
 	// boilerplate for visitors
 			
-	public void accept(ParseNodeVisitor visitor) {
+	protected boolean enter(ParseNodeVisitor visitor) {
 		visitor.visitEnter(this);
-		visitChildren(visitor);
+		return true;
+	}
+	protected void leave(ParseNodeVisitor visitor) {
 		visitor.visitLeave(this);
 	}
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package parser;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Vector;
 
+import context.CompilationContext;
 import logging.GrouseLogger;
 import parseTree.*;
 import parseTree.nodeTypes.*;
@@ -12,26 +15,41 @@ import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
 import lexicalAnalyzer.Scanner;
+import lexicalAnalyzer.TokenBuffer;
 
 
 public class Parser {
-	private Scanner scanner;
+	private CompilationContext context;
+	private TokenBuffer tokens;
+	private int index = -1;				// the token number of nowReading
 	private Token nowReading;
 	private Token previouslyRead;
+	private boolean recovering = false;		// after a syntax error, until the parser synchronizes
+	private boolean foundSyntaxErrors = false;
 	
-	public static ParseNode parse(Scanner scanner) {
-		Parser parser = new Parser(scanner);
+	public static ParseNode parse(CompilationContext context, Scanner scanner) {
+		return parse(context, TokenBuffer.reading(context, scanner));
+	}
+	public static ParseNode parse(CompilationContext context, TokenBuffer tokens) {
+		Parser parser = new Parser(context, tokens);
 		return parser.parse();
 	}
-	public Parser(Scanner scanner) {
+	public Parser(CompilationContext context, Scanner scanner) {
+		this(context, TokenBuffer.reading(context, scanner));
+	}
+	public Parser(CompilationContext context, TokenBuffer tokens) {
 		super();
-		this.scanner = scanner;
+		this.context = context;
+		this.tokens = tokens;
 	}
 	
 	public ParseNode parse() {
 		readToken();
 		return parseProgram();
 	}
+	public boolean foundSyntaxErrors() {
+		return foundSyntaxErrors;
+	}
 
 	////////////////////////////////////////////////////////////
 	// "program" is the start symbol S
@@ -43,9 +61,20 @@ public class Parser {
 		}
 		ParseNode program = new ProgramNode(nowReading);
 		
-		while(startsGlobalDefinition(nowReading)) {
-			ParseNode globalDef = parseGlobalDefinition();
-			program.appendChild(globalDef);
+		while(true) {
+			synchronizeGlobalDefinitions();
+			if(startsGlobalDefinition(nowReading)) {
+				ParseNode globalDef = parseGlobalDefinition();
+				program.appendChild(globalDef);
+			}
+			else if(nowReading.isLextant(Keyword.MAIN) || nowReading instanceof NullToken) {
+				break;
+			}
+			else {
+				program.appendChild(new ErrorNode(nowReading));
+				syntaxError(nowReading, "expecting global definition or main");
+				readToken();
+			}
 		}
 		
 		expect(Keyword.MAIN);
@@ -194,13 +223,7 @@ public class Parser {
 		}
 		ParseNode mainBlock = new MainBlockNode(nowReading);
 		expect(Punctuator.OPEN_BRACE);
-		
-		while(startsStatement(nowReading)) {
-			ParseNode statement = parseStatement();
-			mainBlock.appendChild(statement);
-		}
-		expect(Punctuator.CLOSE_BRACE);
-		return mainBlock;
+		return parseBlockContents(mainBlock);
 	}
 	private boolean startsMainBlock(Token token) {
 		return token.isLextant(Punctuator.OPEN_BRACE);
@@ -215,24 +238,74 @@ public class Parser {
 		}
 		ParseNode Block = new BlockNode(nowReading);
 		expect(Punctuator.OPEN_BRACE);
-		
-		while(startsStatement(nowReading)) {
-			ParseNode statement = parseStatement();
-			Block.appendChild(statement);
-		}
-		expect(Punctuator.CLOSE_BRACE);
-		return Block;
+		return parseBlockContents(Block);
 	}
 	
 	private boolean startsBlock(Token token) {
 		return token.isLextant(Punctuator.OPEN_BRACE);
 	}
 	
+	// statement* } for a block whose open brace has been read.  Blocks nest through block
+	// statements and the blocks of if, while and for statements; rather than recursing, this
+	// keeps the blocks still open on a stack, each with the statement it belongs to.
+	private ParseNode parseBlockContents(ParseNode outermostBlock) {
+		Deque<OpenBlock> enclosing = new ArrayDeque<OpenBlock>();
+		OpenBlock current = new OpenBlock(outermostBlock, null);
+		while(true) {
+			synchronizeStatements();
+			NestingStatement statement;
+			if(startsNestingStatement(nowReading)) {
+				statement = parseNestingStatementHead();
+			}
+			else if(startsStatement(nowReading)) {
+				current.block.appendChild(parseStatement());
+				continue;
+			}
+			else if(!nowReading.isLextant(Punctuator.CLOSE_BRACE) && !(nowReading instanceof NullToken)) {
+				current.block.appendChild(new ErrorNode(nowReading));
+				syntaxError(nowReading, "expecting statement");
+				readToken();
+				continue;
+			}
+			else {
+				expect(Punctuator.CLOSE_BRACE);
+				if(enclosing.isEmpty()) {
+					return current.block;
+				}
+				statement = current.statement;
+				statement.addBlock(current.block);
+				current = enclosing.pop();
+			}
+			
+			while(statement.needsBlock() && !startsBlock(nowReading)) {
+				statement.addBlock(syntaxErrorNode("Block"));
+			}
+			if(statement.needsBlock()) {
+				enclosing.push(current);
+				current = new OpenBlock(new BlockNode(nowReading), statement);
+				expect(Punctuator.OPEN_BRACE);
+			}
+			else {
+				current.block.appendChild(statement.node());
+			}
+		}
+	}
+	private static class OpenBlock {
+		private final ParseNode block;
+		private final NestingStatement statement;		// null for the outermost block
+		
+		OpenBlock(ParseNode block, NestingStatement statement) {
+			this.block = block;
+			this.statement = statement;
+		}
+	}
+	
 	
 	///////////////////////////////////////////////////////////
 	// statements
 	
 	// statement-> declaration | printStmt
+	// parseStatement takes the statements that do not nest; see parseBlockContents for the rest.
 	private ParseNode parseStatement() {
 		if(!startsStatement(nowReading)) {
 			return syntaxErrorNode("statement");
@@ -246,15 +319,6 @@ public class Parser {
 		if(startsPrintStatement(nowReading)) {
 			return parsePrintStatement();
 		}
-		if(startsIfStatement(nowReading)) {
-			return parseIfStatement();
-		}
-		if(startsWhileStatement(nowReading)) {
-			return parseWhileStatement();
-		}
-		if(startsForStatement(nowReading)) {
-			return parseForStatement();
-		}
 		if(startsBreakContinue(nowReading)) {
 			return parseBreakContinue();
 		}
@@ -267,9 +331,6 @@ public class Parser {
 		if(startsDiagnosticStatement(nowReading)) {
 			return parseDiagnosticStatement();
 		}
-		if(startsBlock(nowReading)) {
-			return parseBlock();
-		}
 		assert false : "bad token " + nowReading + " in parseStatement()";
 		return null;
 	}
@@ -386,52 +447,72 @@ public class Parser {
 	}
 	
 	// ifStmt -> if (expr) block (else block)?
-	private ParseNode parseIfStatement() {
-		if(!startsIfStatement(nowReading)) {
-			return syntaxErrorNode("IfStatement");
+	// whileStmt -> while (expr) block
+	// forStmt -> for ( forControlPhrase ) block
+	// parses the part of one of these before its first block; a block statement has none.
+	private NestingStatement parseNestingStatementHead() {
+		NestingStatement statement = new NestingStatement(nowReading);
+		if(startsBlock(nowReading)) {
+			return statement;
 		}
-		Token ifStatementToken = nowReading;
 		readToken();
 		expect(Punctuator.OPEN_PARENTHESIS);
-		ParseNode condition = parseExpression();
+		if(startsIfStatement(statement.token)) {
+			statement.head = parseExpression();
+		}
+		else if(startsWhileStatement(statement.token)) {
+			statement.head = parseWhileConditon();
+		}
+		else {
+			statement.head = parseForControlPhrase();
+		}
 		expect(Punctuator.CLOSE_PARENTHESIS);
-		ParseNode IfBlock = parseBlock();
-		List<ParseNode> blocks = new Vector<ParseNode>();
-		blocks.add(IfBlock);
+		return statement;
+	}
+	private boolean startsNestingStatement(Token token) {
+		return startsIfStatement(token) || startsWhileStatement(token) || startsForStatement(token) || startsBlock(token);
+	}
+	
+	// a block statement, or an if, while or for statement past its head, taking its blocks
+	// as they are parsed: one, or two for an if with an else.
+	private class NestingStatement {
+		private final Token token;
+		private ParseNode head;
+		private List<ParseNode> blocks = new Vector<ParseNode>();
+		private int blocksExpected = 1;
 		
-		//deal with "else"
-		if(nowReading.isLextant(Keyword.ELSE)) {
-			ParseNode elseBlock = parseElseStatement();
-			blocks.add(elseBlock);
+		NestingStatement(Token token) {
+			this.token = token;
 		}
-		return IfStatementNode.withChildren(ifStatementToken, condition, blocks);
-		
-	}
-	private ParseNode parseElseStatement() {
-		if(!nowReading.isLextant(Keyword.ELSE)) {
-			return syntaxErrorNode("ElseStatement");
+		boolean needsBlock() {
+			return blocks.size() < blocksExpected;
+		}
+		// reads the else before an if statement's second block.
+		void addBlock(ParseNode block) {
+			blocks.add(block);
+			if(startsIfStatement(token) && blocks.size() == 1 && nowReading.isLextant(Keyword.ELSE)) {
+				readToken();
+				blocksExpected = 2;
+			}
+		}
+		ParseNode node() {
+			if(startsIfStatement(token)) {
+				return IfStatementNode.withChildren(token, head, blocks);
+			}
+			if(startsWhileStatement(token)) {
+				return WhileStatementNode.withChildren(token, head, blocks.get(0));
+			}
+			if(startsForStatement(token)) {
+				return ForStatementNode.withChildren(token, head, blocks.get(0));
+			}
+			return blocks.get(0);
 		}
-		readToken();
-		return parseBlock();
 	}
 	
 	private boolean startsIfStatement(Token token) {
 		return token.isLextant(Keyword.IF);
 	}
 	
-	// whileStmt -> while (expr) block
-	private ParseNode parseWhileStatement() {
-		if(!startsWhileStatement(nowReading)) {
-			return syntaxErrorNode("whileStatement");
-		}
-		Token WhileStatementToken = nowReading;
-		readToken();
-		expect(Punctuator.OPEN_PARENTHESIS);
-		ParseNode condition = parseWhileConditon();
-		expect(Punctuator.CLOSE_PARENTHESIS);
-		ParseNode block = parseBlock();
-		return WhileStatementNode.withChildren(WhileStatementToken, condition, block);
-	}
 	private boolean startsWhileStatement(Token token) {
 		return token.isLextant(Keyword.WHILE);
 	}
@@ -454,19 +535,6 @@ public class Parser {
 	private boolean startsWhileCondition(Token token) {
 		return startsExpression(token) || token.isLextant(Keyword.EVER);
 	}
-	// forStem -> for ( forControlPhrase ) block
-	private ParseNode parseForStatement() {
-		if(!startsForStatement(nowReading)) {
-			return syntaxErrorNode("forStatement");
-		}
-		Token forStatementToken = nowReading;
-		readToken();
-		expect(Punctuator.OPEN_PARENTHESIS);
-		ParseNode forCtlPhrase = parseForControlPhrase();
-		expect(Punctuator.CLOSE_PARENTHESIS);
-		ParseNode block = parseBlock();
-		return ForStatementNode.withChildren(forStatementToken, forCtlPhrase, block);
-	}
 	private boolean startsForStatement(Token token) {
 		return token.isLextant(Keyword.FOR);
 	}
@@ -504,7 +572,7 @@ public class Parser {
 		}
 		if(nowReading.isLextant(Keyword.COUNT)){
 			readToken();
-			ParseNode expr1 = parseExpression2();
+			ParseNode expr1 = parseBinaryExpression(LEVEL_NAMES[ADDITIVE_LEVEL], ADDITIVE_LEVEL);
 			Token lessOp1 = nowReading;
 			if(!lessOp1.isLextant(Punctuator.LESS, Punctuator.LESSOFEQUAL)) {
 				return syntaxErrorNode("count needs lessOp");
@@ -513,7 +581,7 @@ public class Parser {
 
 			
 			readToken();
-			ParseNode expr2 = parseExpression2();
+			ParseNode expr2 = parseBinaryExpression(LEVEL_NAMES[ADDITIVE_LEVEL], ADDITIVE_LEVEL);
 			if(nowReading.isLextant(Punctuator.LESS, Punctuator.LESSOFEQUAL)) {
 				if(!(expr2 instanceof IdentifierNode)) {
 					return syntaxErrorNode("ForControl count expected identifier");
@@ -531,7 +599,7 @@ public class Parser {
 				
 				
 				readToken();
-				ParseNode expr3 = parseExpression2();
+				ParseNode expr3 = parseBinaryExpression(LEVEL_NAMES[ADDITIVE_LEVEL], ADDITIVE_LEVEL);
 				result.appendChild(expr2);	// first child is the itr
 				result.appendChild(expr1);
 				result.appendChild(expr3);
@@ -642,12 +710,9 @@ public class Parser {
 	
 	///////////////////////////////////////////////////////////
 	// expressions
-	// expr  -> expr0or
-	// expr0or -> expr1 [|| expr0and]*
-	// expr0and -> expr1 [&& expr1]*
-	// expr1 -> expr2 [> expr2]*
-	// expr2 -> expr3 [+ expr3]*  (left-assoc)
-	// expr3 -> expr3.5 [MULT expr3.5]*  (left-assoc)
+	// expr  -> expr3.5 [binaryOperator expr3.5]*
+	//			binary operators, loosest-binding first, all left-assoc:
+	//			  ||    &&    > < == != >= <=    + -    * /
 	// expr3.5 -> exprUnaryOp [:type]* 
 	// exprUnaryOp -> [!|copy]* exprArrayIndexing 
 	// exprArrayIndexing -> expr4 [ [expr] | .identifier ]*
@@ -659,205 +724,307 @@ public class Parser {
 	//			functionName(epxrList)
 	// literal -> intNumber | floatingNumber | identifier | booleanConstant | characterConstant | stringConstant
 
-	// expr  -> expr0
-	private ParseNode parseExpression() {		
-		if(!startsExpression(nowReading)) {
-			return syntaxErrorNode("expression");
-		}
-		return parseExpression0or();
+	// binary operator levels, by token kind; 0 is not a binary operator.  LEVEL_NAMES[n] names
+	// an expression at level n (level 6 has no binary operators) in syntax error messages.
+	private static final int LOOSEST_LEVEL = 1;
+	private static final int TIGHTEST_LEVEL = 5;
+	private static final int ADDITIVE_LEVEL = 4;			// the bounds in a for-count control
+	private static final String[] LEVEL_NAMES = { null,
+			"expression<0or>", "Expression<0and>", "expression<1>", "expression<2>", "expression<3>", "expression<3.5>" };
+	private static final int[] binaryLevels = new int[TokenBuffer.NUMBER_OF_KINDS];
+	static {
+		setBinaryLevel(1, Punctuator.BOOLEANOR);
+		setBinaryLevel(2, Punctuator.BOOLEANAND);
+		setBinaryLevel(3, Punctuator.GREATER, Punctuator.LESS, Punctuator.EQUAL,
+				Punctuator.NOTEQUAL, Punctuator.GREATEROFEQUAL, Punctuator.LESSOFEQUAL);
+		setBinaryLevel(ADDITIVE_LEVEL, Punctuator.ADD, Punctuator.SUB);
+		setBinaryLevel(TIGHTEST_LEVEL, Punctuator.MULTIPLY, Punctuator.DIVIDE);
+	}
+	private static void setBinaryLevel(int level, Lextant ...operators) {
+		for(Lextant operator: operators) {
+			binaryLevels[TokenBuffer.kindOf(operator)] = level;
+		}
+	}
+	private int binaryLevel() {
+		return binaryLevels[tokens.kind(index)];
+	}
+
+	// expr  -> expr3.5 [binaryOperator expr3.5]*
+	private ParseNode parseExpression() {
+		return parseBinaryExpression("expression", LOOSEST_LEVEL);
 	}
 	private boolean startsExpression(Token token) {
-		return startsExpression0or(token);
+		return startsExpression7over2(token);
 	}
 
-	// expr0or -> expr1 [||expr0and]*
-	private ParseNode parseExpression0or() {
-		if(!startsExpression0or(nowReading)) {
-			return syntaxErrorNode("expression<0or>");
-		}
-		ParseNode left = parseExpression0and();
-		while(nowReading.isLextant(Punctuator.BOOLEANOR)) {
-			Token booleanOperatorToken = nowReading;
-			readToken();
-			ParseNode right = parseExpression0and();
-			
-			left = BinaryOperatorNode.withChildren(booleanOperatorToken, left, right);
+	// Expressions are parsed by a loop over a stack of the binary expressions and operands
+	// still open, instead of by recursion, so that parentheses, indexing, length, populated
+	// arrays, concatenations and function arguments can nest as deep as the heap allows.
+	// Each step returns either a finished node for the top of the stack, or null when an
+	// operand is to be started next.
+	private abstract static class OpenExpression {
+	}
+	private final Deque<OpenExpression> openExpressions = new ArrayDeque<OpenExpression>();
+
+	// parses an expression whose binary operators are at level or tighter.
+	private ParseNode parseBinaryExpression(String expectedSymbol, int level) {
+		int base = openExpressions.size();		// nonzero when an operand's fresh[type](expr) gets here
+		ParseNode value = startBinaryExpression(expectedSymbol, level);
+		while(value == null || openExpressions.size() > base) {
+			if(value == null) {
+				value = startOperand();
+			}
+			else if(openExpressions.peek() instanceof OpenBinary) {
+				value = continueBinary((OpenBinary)openExpressions.peek(), value);
+			}
+			else {
+				value = continueOperand((OpenOperand)openExpressions.pop(), value);
+			}
 		}
-		return left;
+		return value;
 	}
-	
-	private boolean startsExpression0or(Token nowReading) {
-		return startsExpression0and(nowReading);
+
+	// precedence climbing: the right operand of an operator is an expression at the next
+	// tighter level, so equal levels associate to the left.  An operator tighter than the one
+	// before it is only left over when that operator's right operand was a syntax error; the
+	// expression ends there, as it did when each level had its own method.
+	private static class OpenBinary extends OpenExpression {
+		private final int level;
+		private int maxLevel = TIGHTEST_LEVEL;
+		private ParseNode left;					// null until the first operand is parsed
+		private Token operator;
+		private int operatorLevel;
+
+		OpenBinary(int level) {
+			this.level = level;
+		}
 	}
-	
-	// expr0and -> expr1 [&& expr1]*
-	private ParseNode parseExpression0and() {
-		if(!startsExpression0and(nowReading)) {
-			return syntaxErrorNode("Expression<0and>");
-		}
-		ParseNode left = parseExpression1();
-		while(nowReading.isLextant(Punctuator.BOOLEANAND)) {
-			Token booleanOperatorToken = nowReading;
+	private ParseNode startBinaryExpression(String expectedSymbol, int level) {
+		if(!startsExpression(nowReading)) {
+			return syntaxErrorNode(expectedSymbol);
+		}
+		openExpressions.push(new OpenBinary(level));
+		return null;
+	}
+	private ParseNode continueBinary(OpenBinary binary, ParseNode operand) {
+		if(binary.left == null) {
+			binary.left = operand;
+		}
+		else {
+			binary.left = BinaryOperatorNode.withChildren(binary.operator, binary.left, operand);
+			binary.maxLevel = binary.operatorLevel;
+		}
+
+		int operatorLevel = binaryLevel();
+		if(binary.level <= operatorLevel && operatorLevel <= binary.maxLevel) {
+			binary.operator = nowReading;
+			binary.operatorLevel = operatorLevel;
 			readToken();
-			ParseNode right = parseExpression1();
-			
-			left = BinaryOperatorNode.withChildren(booleanOperatorToken, left, right);
+			return startBinaryExpression(LEVEL_NAMES[operatorLevel + 1], operatorLevel + 1);
 		}
-		return left;
-		
+		openExpressions.pop();
+		return binary.left;
 	}
-	private boolean startsExpression0and(Token nowReading) {
-		return startsExpression1(nowReading);
+
+	// expr3.5 -> exprUnaryOp [:type]*
+	// exprUnaryOp -> [!|copy|@|#|$]* exprArrayIndexing	right-assoc
+	//				  null type
+	// exprArrayIndexing -> expr4 [ [expr] | .identifier ]*
+	// expr4 -> literal
+	//			(expr)
+	//			|expr|
+	//			[exprList]
+	//			[+ exprUnaryOp [, exprUnaryOp]* +]
+	//			fresh[type](expr)
+	//			functionName(exprList)
+
+	private enum Bracket {
+		PARENTHESIS, LENGTH, INDEX, POPULATED_ARRAY, CONCATENATION, ARGUMENTS
+	}
+	// an operand with a bracket open, waiting for the expression (or next list element) inside.
+	private static class OpenOperand extends OpenExpression {
+		private final boolean casts;			// false for an exprUnaryOp, a concatenation element
+		private ParseNode unaryRoot;			// null when there are no unary operators
+		private ParseNode innermostUnary;
+		private Bracket bracket;
+		private Token bracketToken;
+		private ParseNode left;					// the indexed expression, or the function name
+		private ParseNode list;					// the array, concatenation or argument list
+
+		OpenOperand(boolean casts) {
+			this.casts = casts;
+		}
 	}
-	
-	// expr1 -> expr2 [> expr2]?
-	private ParseNode parseExpression1() {
-		if(!startsExpression1(nowReading)) {
-			return syntaxErrorNode("expression<1>");
+
+	// parses an operand up to the first bracketed expression in it, if any.
+	private ParseNode startOperand() {
+		OpenOperand operand = new OpenOperand(openExpressions.peek() instanceof OpenBinary);
+		if(!operand.casts && !startsExpressionUnaryOp(nowReading)) {
+			return syntaxErrorNode("expression UnaryOp");
 		}
-		
-		ParseNode left = parseExpression2();
-		while(isLextantComparisonOperator(nowReading)) {
-			Token compareToken = nowReading;
+
+		// null reference
+		if(nowReading.isLextant(Keyword.NULL)) {
+			Token nullToken = nowReading;
 			readToken();
-			ParseNode right = parseExpression2();
-			
-			left = BinaryOperatorNode.withChildren(compareToken, left, right);
+			ParseNode typeNode = parseType();
+			return finishCasts(operand, NullReferenceNode.withChildren(nullToken, typeNode));
+		}
+
+		if(isUnaryOperator(nowReading)) {
+			operand.unaryRoot = new UnaryOperatorNode(nowReading);
+			operand.innermostUnary = operand.unaryRoot;
+			readToken();
+			while(isUnaryOperator(nowReading)) {
+				Token unaryOperatorToken = nowReading;
+				operand.innermostUnary = UnaryOperatorNode.addAndReturnChildren(unaryOperatorToken, operand.innermostUnary);
+				readToken();
+			}
+		}
+		if(!startsExpression4(nowReading)) {
+			return finishOperand(operand, syntaxErrorNode("expression-ArrayIndexing"));
+		}
+
+		if(startsParenthesis(nowReading)) {
+			readToken();
+			return openBracket(operand, Bracket.PARENTHESIS);
+		}
+		if(startsFreshArray(nowReading)) {
+			return continuePostfix(operand, parseFreshArray());
+		}
+		if(startsLengthOperation(nowReading)) {
+			readToken();
+			return openBracket(operand, Bracket.LENGTH);
+		}
+		if(startsLiteral(nowReading)) {
+			ParseNode literal = parseLiteral();
+			if(literal instanceof IdentifierNode && nowReading.isLextant(Punctuator.OPEN_PARENTHESIS)) {
+				operand.left = literal;
+				operand.list = new ExpressionListNode(nowReading);
+				readToken();
+				return openList(operand, Bracket.ARGUMENTS);
+			}
+			return continuePostfix(operand, literal);
 		}
-		return left;
 
+		// populated array creation or array concatenation
+		assert startsPopulatedArrayOrArrayConcatenation(nowReading);
+		Token openBracket = nowReading;
+		boolean isConcatenation = lookahead(1).isLextant(Punctuator.ADD);
+		readToken();
+		if(isConcatenation) {
+			readToken();
+			operand.bracket = Bracket.CONCATENATION;
+			operand.list = new ArrayConcatenationNode(openBracket);
+			openExpressions.push(operand);
+			return null;
+		}
+		operand.list = new PopulatedArrayNode(openBracket);
+		return openList(operand, Bracket.POPULATED_ARRAY);
 	}
-	private boolean isLextantComparisonOperator(Token nowReading) {
-		return nowReading.isLextant(Punctuator.GREATER) || nowReading.isLextant(Punctuator.LESS) || nowReading.isLextant(Punctuator.EQUAL) 
-				|| nowReading.isLextant(Punctuator.NOTEQUAL) || nowReading.isLextant(Punctuator.GREATEROFEQUAL) || nowReading.isLextant(Punctuator.LESSOFEQUAL);
+
+	// the bracket token has just been read.
+	private ParseNode openBracket(OpenOperand operand, Bracket bracket) {
+		operand.bracket = bracket;
+		operand.bracketToken = previouslyRead;
+		openExpressions.push(operand);
+		return parseExpressionNext();
+	}
+	// exprList -> [expr [, expr]*]		(nullable)
+	private ParseNode openList(OpenOperand operand, Bracket bracket) {
+		operand.bracket = bracket;
+		if(!startsExpression(nowReading)) {
+			return closeList(operand);
+		}
+		openExpressions.push(operand);
+		return parseExpressionNext();
 	}
-	private boolean startsExpression1(Token token) {
-		return startsExpression2(token);
+	private ParseNode parseExpressionNext() {
+		return startBinaryExpression("expression", LOOSEST_LEVEL);
 	}
 
-	// expr2 -> expr3 [+ expr3]*  (left-assoc)
-	private ParseNode parseExpression2() {
-		if(!startsExpression2(nowReading)) {
-			return syntaxErrorNode("expression<2>");
+	// the operand has been popped; inside is the expression in its bracket.
+	private ParseNode continueOperand(OpenOperand operand, ParseNode inside) {
+		switch(operand.bracket) {
+		case PARENTHESIS:
+			expect(Punctuator.CLOSE_PARENTHESIS);
+			return continuePostfix(operand, inside);
+		case LENGTH:
+			expect(Punctuator.BAR);
+			return continuePostfix(operand, LengthOperatorNode.withChildren(operand.bracketToken, inside));
+		case INDEX:
+			expect(Punctuator.CLOSE_SQUARE_BRACKET);
+			return continuePostfix(operand, ArrayIndexingNode.withChildren(operand.bracketToken, operand.left, inside));
+		default:
+			operand.list.appendChild(inside);
+			if(!nowReading.isLextant(Punctuator.SEPARATOR)) {
+				return closeList(operand);
+			}
+			readToken();
+			openExpressions.push(operand);
+			return (operand.bracket == Bracket.CONCATENATION) ? null : parseExpressionNext();
 		}
-		
-		ParseNode left = parseExpression3();
-		while(true) {
-			if(nowReading.isLextant(Punctuator.ADD)) {
-				Token additiveToken = nowReading;
-				readToken();
-				ParseNode right = parseExpression3();
-				
-				left = BinaryOperatorNode.withChildren(additiveToken, left, right);
-			} else if(nowReading.isLextant(Punctuator.SUB)) {
-				Token subtractiveToken = nowReading;
-				readToken();
-				ParseNode right = parseExpression3();
-				
-				left = BinaryOperatorNode.withChildren(subtractiveToken, left, right);
-			} else 
-				break;
+	}
+	private ParseNode closeList(OpenOperand operand) {
+		switch(operand.bracket) {
+		case POPULATED_ARRAY:
+			expect(Punctuator.CLOSE_SQUARE_BRACKET);
+			return continuePostfix(operand, operand.list);
+		case CONCATENATION:
+			expect(Punctuator.ADD);
+			expect(Punctuator.CLOSE_SQUARE_BRACKET);
+			return continuePostfix(operand, operand.list);
+		default:
+			expect(Punctuator.CLOSE_PARENTHESIS);
+			ParseNode functionName = operand.left;
+			return continuePostfix(operand,
+					FunctionInvocationNode.withChildren(functionName.getToken(), functionName, operand.list));
 		}
-		return left;
 	}
-	private boolean startsExpression2(Token token) {
-		//return startsLiteral(token);
-		return startsExpression3(token);
-	}	
 
-	// expr3 -> expr4 [MULT expr4]*  (left-assoc)
-	private ParseNode parseExpression3() {
-		if(!startsExpression3(nowReading)) {
-			return syntaxErrorNode("expression<3>");
-		}
-		
-		ParseNode left = parseExpression7over2();
-		while(true){
-			if(nowReading.isLextant(Punctuator.MULTIPLY)) {
-				Token multiplicativeToken = nowReading;
-				readToken();
-				ParseNode right = parseExpression7over2();
-				
-				left = BinaryOperatorNode.withChildren(multiplicativeToken, left, right);
-			} else if(nowReading.isLextant(Punctuator.DIVIDE)) {
-				Token divisiveToken = nowReading;
+	// [ [expr] | .identifier ]* after the expr4 left.
+	private ParseNode continuePostfix(OpenOperand operand, ParseNode left) {
+		while(true) {
+			if(nowReading.isLextant(Punctuator.OPEN_SQUARE_BRACKET)) {
+				operand.left = left;
 				readToken();
-				ParseNode right = parseExpression7over2();
-				
-				left = BinaryOperatorNode.withChildren(divisiveToken, left, right);
-			} else {
-				break;
+				return openBracket(operand, Bracket.INDEX);
+			}
+			if(!nowReading.isLextant(Punctuator.DOT)) {
+				return finishOperand(operand, left);
 			}
+			Token TupleEntryToken = nowReading;
+			readToken();
+			ParseNode right = parseIdentifier();
+			left = TupleEntryNode.withChildren(TupleEntryToken, left, right);
 		}
-		
-		return left;
 	}
-	private boolean startsExpression3(Token token) {
-		return startsExpression7over2(token);
+	private ParseNode finishOperand(OpenOperand operand, ParseNode arrayIndexing) {
+		ParseNode result = arrayIndexing;
+		if(operand.unaryRoot != null) {
+			operand.innermostUnary.appendChild(arrayIndexing);
+			result = operand.unaryRoot;
+		}
+		return finishCasts(operand, result);
 	}
-	
-	// expr3.5 -> exprUnaryOp:type
-	
-	private ParseNode parseExpression7over2() {
-		if(!startsExpression7over2(nowReading)) {
-			return syntaxErrorNode("expression<3.5>");
+	private ParseNode finishCasts(OpenOperand operand, ParseNode left) {
+		if(!operand.casts) {
+			return left;
 		}
-		
-		ParseNode left = parseExpressionUnaryOp();
 		while(nowReading.isLextant(Punctuator.CAST)) {
 			Token castingToken = nowReading;
-			ParseNode right = null;
 			readToken();
-			if(startsType(nowReading)) {
-				right = parseType();
-			} else {
+			if(!startsType(nowReading)) {
 				return syntaxErrorNode("expression casting: expected type");
 			}
-			
+			ParseNode right = parseType();
 			left = BinaryOperatorNode.withChildren(castingToken, left, right);
 		}
-		
 		return left;
-		
 	}
+
 	private boolean startsExpression7over2(Token token) {
 		return startsExpressionUnaryOp(token);
-	}
-	// Unary operator
-	// exprUnaryOp -> [!|copy|@|#|$|]* expr4 right-assoc
-	//				  null type
-	private ParseNode parseExpressionUnaryOp() {
-		if(!startsExpressionUnaryOp(nowReading)) {
-			return syntaxErrorNode("expression UnaryOp");
-		}
-		
-		// null reference
-		if(nowReading.isLextant(Keyword.NULL)) {
-			Token nullToken = nowReading;
-			readToken();
-			ParseNode typeNode = parseType();
-			return NullReferenceNode.withChildren(nullToken, typeNode);
-		}
-		
-		ParseNode UnaryRoot = null;
-		ParseNode currentNode = null;
-		if(!isUnaryOperator(nowReading)) {
-			return parseExpressionArrayIndexingAndTupleEntry();
-		} else {
-			UnaryRoot = new UnaryOperatorNode(nowReading);
-			currentNode = UnaryRoot;
-			readToken();
-		}
-
-		while(isUnaryOperator(nowReading)) {
-			Token unaryOperatorToken = nowReading;
-			currentNode = UnaryOperatorNode.addAndReturnChildren(unaryOperatorToken, currentNode);	
-			readToken();
-		}
-		currentNode.appendChild(parseExpressionArrayIndexingAndTupleEntry());
-		return UnaryRoot;
-
-		
 	}
 	private boolean startsExpressionUnaryOp(Token token) {
 		return isUnaryOperator(token) || startsExpressionArrayIndexingAndTupleEntry(token) || token.isLextant(Keyword.NULL);
@@ -865,123 +1032,31 @@ public class Parser {
 	private boolean isUnaryOperator(Token token) {
 		return token.isLextant(Punctuator.BOOLEANCOMPLIMENT, Keyword.COPY, Punctuator.SHARP, Punctuator.DOLLERSIGN, Punctuator.AT);
 	}
-	
-	// exprArrayIndexing -> expr4 [ [expr] | .identifier ]*
-	private ParseNode parseExpressionArrayIndexingAndTupleEntry() {
-		if(!startsExpressionArrayIndexingAndTupleEntry(nowReading)) {
-			return syntaxErrorNode("expression-ArrayIndexing");
-		}
-		
-		ParseNode left = parseExpression4();
-		while(true){
-			if(nowReading.isLextant(Punctuator.OPEN_SQUARE_BRACKET)) {
-				Token ArrayIndexingToken = nowReading;
-				readToken();
-				ParseNode right = parseExpression();
-				expect(Punctuator.CLOSE_SQUARE_BRACKET);
-				
-				left = ArrayIndexingNode.withChildren(ArrayIndexingToken, left, right);
-			} else if(nowReading.isLextant(Punctuator.DOT)) {
-				Token TupleEntryToken = nowReading;
-				readToken();
-				ParseNode right = parseIdentifier();
-				left = TupleEntryNode.withChildren(TupleEntryToken, left, right);
-			}
-			else
-				break;
-			
-		}
-		
-		return left;
-	}
 	private boolean startsExpressionArrayIndexingAndTupleEntry(Token token) {
 		return startsExpression4(token);
 	}
-	
-	// expr4 -> literal 
-	//			parenthesis 
-	//			length 
-	//			populated_Array 
-	//			fresh[type](expr)
-	//			functionName(exprList)
-	private ParseNode parseExpression4() {
-		if(!startsExpression4(nowReading)) {
-			return syntaxErrorNode("expression<4>");
-		}
-		
-		if(startsParenthesis(nowReading))
-			return parseParenthesis();		
-		else if(startsFreshArray(nowReading))
-			return parseFreshArray();
-		else if(startsLengthOperation(nowReading))
-			return parseLength();
-		else if(startsLiteral(nowReading))
-			return parseLiteral();
-		else if(startsPopulatedArrayOrArrayConcatenation(nowReading)) 
-			return parsePopulatedArrayOrArrayConcatenation();
-		
-		return syntaxErrorNode("expression<4>");
-	}
 	private boolean startsExpression4(Token token) {
-		return startsLiteral(token) || startsParenthesis(token) 
+		return startsLiteral(token) || startsParenthesis(token)
 				|| startsLengthOperation(token) || startsFreshArray(token)
 				|| startsPopulatedArrayOrArrayConcatenation(token) ;
 	}
-
-	// Parenthesis
-	private ParseNode parseParenthesis() {
-		if(!startsParenthesis(nowReading)) {
-			return syntaxErrorNode("Parenthesis");
-		}
-		readToken();
-		ParseNode right = parseExpression();
-		expect(Punctuator.CLOSE_PARENTHESIS);
-		return right;
-	}
 	private boolean startsParenthesis(Token token) {
 		return token.isLextant(Punctuator.OPEN_PARENTHESIS);
 	}
-	// populated array creation
-	private ParseNode parsePopulatedArrayOrArrayConcatenation() {
-		if(!startsPopulatedArrayOrArrayConcatenation(nowReading)) {
-			return syntaxErrorNode("populated array creation");
-		}
-		Token openBracket = nowReading;
-		readToken();
-		
-		if(!nowReading.isLextant(Punctuator.ADD)) {
-			// populated array creation
-			PopulatedArrayNode result = new PopulatedArrayNode(openBracket);
-			result = (PopulatedArrayNode)parseExpressionList(result);
-			expect(Punctuator.CLOSE_SQUARE_BRACKET);
-			return result;
-		}
-		else {
-			// array concatenation
-			ArrayConcatenationNode result = new ArrayConcatenationNode(openBracket);
-			readToken();
-			
-			ParseNode newExpr = parseExpressionUnaryOp();
-			result.appendChild(newExpr);
-			while(nowReading.isLextant(Punctuator.SEPARATOR)) {
-				readToken();
-				newExpr = parseExpressionUnaryOp();
-				result.appendChild(newExpr);
-			}
-			
-			expect(Punctuator.ADD);
-			expect(Punctuator.CLOSE_SQUARE_BRACKET);
-			return result;
-		}
-		
-		
+	private boolean startsLengthOperation(Token token) {
+		return token.isLextant(Punctuator.BAR);
+	}
+	private boolean startsPopulatedArrayOrArrayConcatenation(Token token) {
+		return token.isLextant(Punctuator.OPEN_SQUARE_BRACKET);
 	}
+
+	// exprList for statements and fresh arrays
 	private ParseNode parseExpressionList(ParseNode node) {
-		
+
 		if(!startsExpression(nowReading)) {
 			return node;
 		}
-		
+
 		ParseNode newExpr = parseExpression();
 		node.appendChild(newExpr);
 		while(nowReading.isLextant(Punctuator.SEPARATOR)) {
@@ -989,14 +1064,10 @@ public class Parser {
 			newExpr = parseExpression();
 			node.appendChild(newExpr);
 		}
-		
+
 		return node;
 	}
-	
-	private boolean startsPopulatedArrayOrArrayConcatenation(Token token) {
-		return token.isLextant(Punctuator.OPEN_SQUARE_BRACKET);
-	}
-	
+
 	// fresh array
 	private ParseNode parseFreshArray() {
 		if(!startsFreshArray(nowReading)) {
@@ -1050,23 +1121,6 @@ public class Parser {
 				|| startsIdentifier(token);
 	}
 	
-	
-	
-	// length
-	private ParseNode parseLength() {
-		if(!startsLengthOperation(nowReading)) {
-			return syntaxErrorNode("Length opreation");
-		}
-		Token lengthOpreator = nowReading;
-		readToken();
-		ParseNode left = parseExpression();
-		expect(Punctuator.BAR);
-		return LengthOperatorNode.withChildren(lengthOpreator, left);
-	}
-	private boolean startsLengthOperation(Token token) {
-		return token.isLextant(Punctuator.BAR);
-	}
-	
 	// literal -> number | identifier | booleanConstant | stringConstant | CharacterConstant
 	private ParseNode parseLiteral() {
 		if(!startsLiteral(nowReading)) {
@@ -1080,16 +1134,7 @@ public class Parser {
 			return parseFloatingNumber();
 		}
 		if(startsIdentifier(nowReading)) {
-			ParseNode result = parseIdentifier();
-			if(nowReading.isLextant(Punctuator.OPEN_PARENTHESIS)) {
-				Token functionInvocationToken = previouslyRead;
-				Token exprListToken = nowReading;
-				readToken();
-				ParseNode exprList = parseExpressionList(new ExpressionListNode(exprListToken));
-				expect(Punctuator.CLOSE_PARENTHESIS);
-				result = FunctionInvocationNode.withChildren(functionInvocationToken, result, exprList);
-			}			
-			return result;
+			return parseIdentifier();
 		}
 		if(startsBooleanConstant(nowReading)) {
 			return parseBooleanConstant();
@@ -1184,29 +1229,84 @@ public class Parser {
 	//-------------------------------------------
 	private void readToken() {
 		previouslyRead = nowReading;
-		nowReading = scanner.next();
+		index++;
+		nowReading = tokens.token(index);
 	}	
+	// the token k places after nowReading.
+	private Token lookahead(int k) {
+		return tokens.token(index + k);
+	}
 	
 	// if the current token is one of the given lextants, read the next token.
-	// otherwise, give a syntax error and read next token (to avoid endless looping).
+	// otherwise, give a syntax error and read next token (to avoid endless looping),
+	// unless the parser could synchronize there.
 	private void expect(Lextant ...lextants ) {
-		if(!nowReading.isLextant(lextants)) {
-			syntaxError(nowReading, "expecting " + Arrays.toString(lextants));
+		if(nowReading.isLextant(lextants)) {
+			readToken();
+			return;
 		}
-		readToken();
+		syntaxError(nowReading, "expecting " + Arrays.toString(lextants));
+		skipUnlessSynchronizing();
 	}	
 	private ErrorNode syntaxErrorNode(String expectedSymbol) {
 		syntaxError(nowReading, "expecting " + expectedSymbol);
 		ErrorNode errorNode = new ErrorNode(nowReading);
-		readToken();
+		skipUnlessSynchronizing();
 		return errorNode;
 	}
 	private void syntaxError(Token token, String errorDescription) {
-		String message = "" + token.getLocation() + " " + errorDescription;
-		error(message);
+		if(!recovering) {
+			String message = "" + context.locationOf(token.getPosition()) + " " + errorDescription;
+			error(message);
+		}
+		recovering = true;
+		foundSyntaxErrors = true;
+	}
+	
+	// panic-mode recovery.  After a syntax error the parser reports no further errors until
+	// it gets back in step at a statement or global definition; until then an error reads
+	// no token the parser could get back in step at, so that token is still there.
+	private boolean isSynchronizing(Token token) {
+		return startsStatement(token) || startsGlobalDefinition(token) || token instanceof NullToken
+				|| token.isLextant(Keyword.MAIN, Punctuator.CLOSE_BRACE, Punctuator.TERMINATOR);
+	}
+	private void skipUnlessSynchronizing() {
+		if(!isSynchronizing(nowReading)) {
+			readToken();
+		}
+	}
+	// skips to the next statement or block end, reading the terminator of the statement in
+	// error if it has not been read.  There is nothing to get in step with at the end of input.
+	private void synchronizeStatements() {
+		if(!recovering || nowReading instanceof NullToken) {
+			return;
+		}
+		if(previouslyRead.isLextant(Punctuator.TERMINATOR, Punctuator.CLOSE_BRACE)) {
+			recovering = false;
+			return;
+		}
+		while(!startsStatement(nowReading) && !(nowReading instanceof NullToken)
+				&& !nowReading.isLextant(Punctuator.CLOSE_BRACE, Punctuator.TERMINATOR)) {
+			readToken();
+		}
+		if(nowReading.isLextant(Punctuator.TERMINATOR)) {
+			readToken();
+		}
+		recovering = false;
+	}
+	// skips to the next global definition or main.
+	private void synchronizeGlobalDefinitions() {
+		if(!recovering) {
+			return;
+		}
+		while(!startsGlobalDefinition(nowReading) && !(nowReading instanceof NullToken)
+				&& !nowReading.isLextant(Keyword.MAIN)) {
+			readToken();
+		}
+		recovering = false;
 	}
 	private void error(String message) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.Parser");
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.Parser");
 		log.severe("syntax error: " + message);
 	}	
 }
@@ -0,0 +1,99 @@
+package parser.tests;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import parseTree.ParseNode;
+import parseTree.ParseNodeVisitor;
+import parseTree.nodeTypes.BlockNode;
+import parseTree.nodeTypes.IfStatementNode;
+import parseTree.nodeTypes.IntegerConstantNode;
+import parser.Parser;
+import tests.FileFixturesTestCase;
+
+// programs nested far deeper than a small Java stack could recurse through.
+public class TestDeepNesting extends FileFixturesTestCase {
+	private static final int DEPTH = 20000;
+	private static final long SMALL_STACK = 1 << 18;
+
+	public void testNestedParentheses() throws Throwable {
+		ParseNode program = parseOnSmallStack("main { var a := " + repeat("(", DEPTH) + "1" + repeat(")", DEPTH) + "; }");
+		ParseNode initializer = program.child(0).child(0).child(1);
+		assertTrue(initializer instanceof IntegerConstantNode);
+	}
+
+	public void testNestedElseBlocks() throws Throwable {
+		ParseNode program = parseOnSmallStack("main { " + repeat("if (a) { } else { ", DEPTH) + repeat("}", DEPTH) + " }");
+		ParseNode node = program.child(0).child(0);
+		int ifStatements = 0;
+		while(node instanceof IfStatementNode) {
+			ifStatements++;
+			node = node.child(2).nChildren() == 0 ? null : node.child(2).child(0);
+		}
+		assertEquals(DEPTH, ifStatements);
+	}
+
+	public void testVisitorOnNestedBlocks() throws Throwable {
+		final ParseNode program = parseOnSmallStack("main { " + repeat("{ ", DEPTH) + "print 1;" + repeat(" }", DEPTH) + " }");
+		final BlockCounter counter = new BlockCounter();
+		onSmallStack(new Runnable() {
+			public void run() {
+				program.accept(counter);
+			}
+		});
+		assertEquals(DEPTH, counter.entered);
+		assertEquals(DEPTH, counter.left);
+		assertEquals(DEPTH, counter.deepest);
+	}
+
+	private static class BlockCounter extends ParseNodeVisitor.Default {
+		int entered = 0;
+		int left = 0;
+		int deepest = 0;
+		private int depth = 0;
+
+		public void visitEnter(BlockNode node) {
+			entered++;
+			depth++;
+			deepest = Math.max(depth, deepest);
+		}
+		public void visitLeave(BlockNode node) {
+			left++;
+			depth--;
+		}
+	}
+
+	private ParseNode parseOnSmallStack(String program) throws Throwable {
+		final CompilationContext context = new CompilationContext();
+		final SourceBuffer source = SourceBuffer.fromString(context, "deep", program);
+		final ParseNode[] result = new ParseNode[1];
+		onSmallStack(new Runnable() {
+			public void run() {
+				result[0] = Parser.parse(context, new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize());
+			}
+		});
+		return result[0];
+	}
+	private void onSmallStack(Runnable runnable) throws Throwable {
+		final Throwable[] thrown = new Throwable[1];
+		Thread thread = new Thread(null, runnable, "small stack", SMALL_STACK);
+		thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread thread, Throwable throwable) {
+				thrown[0] = throwable;
+			}
+		});
+		thread.start();
+		thread.join();
+		if(thrown[0] != null) {
+			throw thrown[0];
+		}
+	}
+	private static String repeat(String string, int times) {
+		StringBuilder result = new StringBuilder();
+		for(int i = 0; i < times; i++) {
+			result.append(string);
+		}
+		return result.toString();
+	}
+}
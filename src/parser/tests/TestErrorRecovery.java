@@ -0,0 +1,94 @@
+package parser.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import parseTree.ParseNode;
+import parseTree.nodeTypes.FunctionDefinitionNode;
+import parseTree.nodeTypes.MainBlockNode;
+import parseTree.nodeTypes.PrintStatementNode;
+import parseTree.nodeTypes.ProgramNode;
+import parser.Parser;
+import tests.FileFixturesTestCase;
+
+public class TestErrorRecovery extends FileFixturesTestCase {
+	private static final String STATEMENT_ERRORS =
+			"main {\n" +
+			"	var x := 3\n" +					// missing terminator
+			"	print x;\n" +
+			"	if (x > 1 { print x; }\n" +		// missing close parenthesis
+			"	let x := ;\n" +					// missing expression
+			"	y := 2;\n" +					// not a statement
+			"	print x;\n" +
+			"}\n";
+	private static final String DEFINITION_ERRORS =
+			"tuple t (int a, int) ;\n" +
+			"func f (int a) -> int { return; }\n" +
+			"func g (int a) -> t { print a a ; ) return; }\n" +
+			"main { print 1; }\n";
+
+	private List<String> messages;
+	private Handler handler;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		messages = new ArrayList<String>();
+		handler = new Handler() {
+			public void publish(LogRecord record) {
+				messages.add(record.getMessage());
+			}
+			public void flush() {
+			}
+			public void close() {
+			}
+		};
+		Logger.getLogger("compiler.Parser").addHandler(handler);
+	}
+	protected void tearDown() throws Exception {
+		Logger.getLogger("compiler.Parser").removeHandler(handler);
+		super.tearDown();
+	}
+
+	public void testOneMessagePerStatementError() {
+		ParseNode program = parse(STATEMENT_ERRORS);
+		assertEquals(messages.toString(), 4, messages.size());
+		assertTrue(messages.get(0).contains("line 3"));
+		assertTrue(messages.get(1).contains("line 4"));
+		assertTrue(messages.get(2).contains("line 5"));
+		assertTrue(messages.get(3).contains("line 6"));
+
+		assertTrue(program instanceof ProgramNode);
+		ParseNode mainBlock = program.child(0);
+		assertTrue(mainBlock instanceof MainBlockNode);
+		assertTrue(mainBlock.child(mainBlock.nChildren() - 1) instanceof PrintStatementNode);
+	}
+
+	public void testOneMessagePerDefinitionError() {
+		ParseNode program = parse(DEFINITION_ERRORS);
+		assertEquals(messages.toString(), 2, messages.size());
+		assertTrue(messages.get(0).contains("line 1"));
+		assertTrue(messages.get(1).contains("line 3"));
+
+		assertTrue(program.child(1) instanceof FunctionDefinitionNode);
+		assertTrue(program.child(2) instanceof FunctionDefinitionNode);
+		assertTrue(program.child(3) instanceof MainBlockNode);
+	}
+
+	public void testUnclosedBlocksGiveOneMessage() {
+		parse("main { if (a) { while (a) { print a;");
+		assertEquals(messages.toString(), 1, messages.size());
+	}
+
+	private ParseNode parse(String program) {
+		CompilationContext context = new CompilationContext();
+		SourceBuffer source = SourceBuffer.fromString(context, "recovery", program);
+		return Parser.parse(context, new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize());
+	}
+}
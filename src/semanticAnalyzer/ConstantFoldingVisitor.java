@@ -0,0 +1,304 @@
+package semanticAnalyzer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import asmCodeGenerator.codeStorage.ASMInstruction;
+import lexicalAnalyzer.Keyword;
+import lexicalAnalyzer.Lextant;
+import lexicalAnalyzer.Punctuator;
+import parseTree.ParseNode;
+import parseTree.ParseNodeVisitor;
+import parseTree.nodeTypes.BinaryOperatorNode;
+import parseTree.nodeTypes.BooleanConstantNode;
+import parseTree.nodeTypes.CharacterConstantNode;
+import parseTree.nodeTypes.DeclarationNode;
+import parseTree.nodeTypes.FloatingConstantNode;
+import parseTree.nodeTypes.IdentifierNode;
+import parseTree.nodeTypes.IntegerConstantNode;
+import parseTree.nodeTypes.UnaryOperatorNode;
+import semanticAnalyzer.types.PrimitiveType;
+import semanticAnalyzer.types.Type;
+import symbolTable.Binding;
+import tokens.CharacterToken;
+import tokens.FloatingToken;
+import tokens.IntegerToken;
+import tokens.LextantToken;
+
+// Runs on a decorated tree with no errors, after SemanticAnalysisVisitor.
+// Replaces operators on constants with the constant result, computed the way the
+// generated code would compute it (32-bit wraparound, comparisons by subtraction).
+// Integer and floating division by zero are never folded, so they still raise their
+// runtime errors.  Floating operands are taken as the code has them, rounded to the
+// places of a PushF operand, and a floating result is only folded if PushF carries it
+// exactly.  Non-static imm declarations with a constant initializer are
+// propagated: later uses of the variable become copies of the constant.
+public class ConstantFoldingVisitor extends ParseNodeVisitor.Default {
+	private Map<Binding, ParseNode> constantBindings = new HashMap<Binding, ParseNode>();
+
+	///////////////////////////////////////////////////////////////////////////
+	// constant propagation
+	@Override
+	public void visitLeave(DeclarationNode node) {
+		IdentifierNode identifier = (IdentifierNode) node.child(0);
+		ParseNode initializer = node.child(1);
+
+		if(node.getToken().isLextant(Keyword.IMMUTABLE) && !node.isStatic() && isConstant(initializer)) {
+			constantBindings.put(identifier.getBinding(), initializer);
+		}
+	}
+	@Override
+	public void visit(IdentifierNode node) {
+		ParseNode constant = constantBindings.get(node.getBinding());
+		if(constant == null || !isReplaceableUse(node)) {
+			return;
+		}
+		replace(node, copyOfConstant(constant, node.getToken().getPosition()));
+	}
+	private boolean isReplaceableUse(IdentifierNode node) {
+		ParseNode parent = node.getParent();
+		boolean isDeclared = (parent instanceof DeclarationNode) && (node == parent.child(0));
+		boolean isAddressed = (parent instanceof UnaryOperatorNode) && parent.getToken().isLextant(Punctuator.AT);
+		return !isDeclared && !isAddressed;
+	}
+
+	///////////////////////////////////////////////////////////////////////////
+	// constant folding
+	@Override
+	public void visitLeave(UnaryOperatorNode node) {
+		ParseNode child = node.child(0);
+		if(node.getToken().isLextant(Punctuator.BOOLEANCOMPLIMENT) && child instanceof BooleanConstantNode) {
+			boolean value = ((BooleanConstantNode)child).getValue();
+			replace(node, booleanConstant(!value, node.getToken().getPosition()));
+		}
+	}
+	@Override
+	public void visitLeave(BinaryOperatorNode node) {
+		Lextant operator = node.getOperator();
+		ParseNode left = node.child(0);
+		ParseNode right = node.child(1);
+		long position = node.getToken().getPosition();
+
+		ParseNode result = null;
+		if(operator == Punctuator.CAST) {
+			result = foldCast(left, right.getType(), position);
+		}
+		else if(operator == Punctuator.BOOLEANAND || operator == Punctuator.BOOLEANOR) {
+			result = foldBooleanOperator(operator, left, right);
+		}
+		else if(isConstant(left) && isConstant(right)) {
+			if(isComparison(operator)) {
+				result = foldComparison(operator, left, right, position);
+			}
+			else if(left instanceof IntegerConstantNode && right instanceof IntegerConstantNode) {
+				result = foldIntegerArithmetic(operator, intValue(left), intValue(right), position);
+			}
+			else if(left instanceof FloatingConstantNode && right instanceof FloatingConstantNode) {
+				result = foldFloatingArithmetic(operator, floatValue(left), floatValue(right), position);
+			}
+		}
+
+		if(result != null) {
+			replace(node, result);
+		}
+	}
+
+	private ParseNode foldIntegerArithmetic(Lextant operator, int a, int b, long position) {
+		if(operator == Punctuator.ADD) {
+			return integerConstant(a + b, position);
+		}
+		if(operator == Punctuator.SUB) {
+			return integerConstant(a - b, position);
+		}
+		if(operator == Punctuator.MULTIPLY) {
+			return integerConstant(a * b, position);
+		}
+		if(operator == Punctuator.DIVIDE && b != 0 && !(a == Integer.MIN_VALUE && b == -1)) {
+			return integerConstant(a / b, position);
+		}
+		return null;
+	}
+	private ParseNode foldFloatingArithmetic(Lextant operator, double a, double b, long position) {
+		double result;
+		if(operator == Punctuator.ADD) {
+			result = a + b;
+		}
+		else if(operator == Punctuator.SUB) {
+			result = a - b;
+		}
+		else if(operator == Punctuator.MULTIPLY) {
+			result = a * b;
+		}
+		else if(operator == Punctuator.DIVIDE && b != 0.0) {
+			result = a / b;
+		}
+		else {
+			return null;
+		}
+		if(Double.isNaN(result) || Double.isInfinite(result)) {
+			return null;
+		}
+		return exactFloatingConstant(result, position);
+	}
+
+	// a op b is computed as in the generated code: subtract, then test the sign of the difference.
+	private boolean isComparison(Lextant operator) {
+		return operator == Punctuator.GREATER || operator == Punctuator.LESS || operator == Punctuator.GREATEROFEQUAL
+				|| operator == Punctuator.LESSOFEQUAL || operator == Punctuator.EQUAL || operator == Punctuator.NOTEQUAL;
+	}
+	private ParseNode foldComparison(Lextant operator, ParseNode left, ParseNode right, long position) {
+		if(left.getType() != right.getType()) {
+			return null;
+		}
+		double difference;
+		if(left instanceof FloatingConstantNode) {
+			difference = floatValue(left) - floatValue(right);
+		}
+		else {
+			difference = intValue(left) - intValue(right);		// int subtraction, then widened
+		}
+		if(left instanceof BooleanConstantNode && operator != Punctuator.EQUAL && operator != Punctuator.NOTEQUAL) {
+			return null;
+		}
+
+		boolean result;
+		if(operator == Punctuator.LESS) {
+			result = difference < 0;
+		}
+		else if(operator == Punctuator.GREATER) {
+			result = difference > 0;
+		}
+		else if(operator == Punctuator.EQUAL) {
+			result = difference == 0;
+		}
+		else if(operator == Punctuator.NOTEQUAL) {
+			result = !(difference == 0);
+		}
+		else if(operator == Punctuator.LESSOFEQUAL) {
+			result = !(difference > 0);
+		}
+		else {
+			result = !(difference < 0);
+		}
+		return booleanConstant(result, position);
+	}
+
+	// && and || short-circuit, so a constant left operand decides whether the right one matters.
+	private ParseNode foldBooleanOperator(Lextant operator, ParseNode left, ParseNode right) {
+		if(!(left instanceof BooleanConstantNode)) {
+			return null;
+		}
+		boolean value = ((BooleanConstantNode)left).getValue();
+		boolean decidesResult = (operator == Punctuator.BOOLEANAND) ? !value : value;
+		return decidesResult ? left : right;
+	}
+
+	private ParseNode foldCast(ParseNode child, Type targetType, long position) {
+		if(!isConstant(child)) {
+			return null;
+		}
+		Type childType = child.getType();
+		if(childType == targetType) {
+			return child;
+		}
+		if(childType == PrimitiveType.INTEGER) {
+			int value = intValue(child);
+			if(targetType == PrimitiveType.CHARACTER) {
+				return characterConstant((char)(value & 127), position);
+			}
+			if(targetType == PrimitiveType.FLOATING) {
+				return exactFloatingConstant(value, position);
+			}
+			if(targetType == PrimitiveType.BOOLEAN) {
+				return booleanConstant(value != 0, position);
+			}
+		}
+		if(childType == PrimitiveType.CHARACTER) {
+			int value = intValue(child);
+			if(targetType == PrimitiveType.INTEGER) {
+				return integerConstant(value, position);
+			}
+			if(targetType == PrimitiveType.BOOLEAN) {
+				return booleanConstant(value != 0, position);
+			}
+		}
+		if(childType == PrimitiveType.FLOATING && targetType == PrimitiveType.INTEGER) {
+			double value = floatValue(child);
+			if(Integer.MIN_VALUE < value && value < Integer.MAX_VALUE) {
+				return integerConstant((int)value, position);
+			}
+		}
+		return null;
+	}
+
+	///////////////////////////////////////////////////////////////////////////
+	// constant nodes
+	private boolean isConstant(ParseNode node) {
+		return (node instanceof IntegerConstantNode)
+				|| (node instanceof FloatingConstantNode)
+				|| (node instanceof BooleanConstantNode)
+				|| (node instanceof CharacterConstantNode);
+	}
+	// integer view of an int, char or boolean constant, as it sits on the ASM stack.
+	private int intValue(ParseNode node) {
+		if(node instanceof IntegerConstantNode) {
+			return ((IntegerConstantNode)node).getValue();
+		}
+		if(node instanceof CharacterConstantNode) {
+			return ((CharacterConstantNode)node).getValue();
+		}
+		assert node instanceof BooleanConstantNode;
+		return ((BooleanConstantNode)node).getValue() ? 1 : 0;
+	}
+	// a floating constant's value as its PushF operand gives it.
+	private double floatValue(ParseNode node) {
+		return ASMInstruction.emittedFloat(((FloatingConstantNode)node).getValue());
+	}
+	private ParseNode copyOfConstant(ParseNode constant, long position) {
+		if(constant instanceof IntegerConstantNode) {
+			return integerConstant(intValue(constant), position);
+		}
+		if(constant instanceof CharacterConstantNode) {
+			return characterConstant((char)intValue(constant), position);
+		}
+		if(constant instanceof BooleanConstantNode) {
+			return booleanConstant(((BooleanConstantNode)constant).getValue(), position);
+		}
+		return floatingConstant(floatValue(constant), position);
+	}
+
+	private ParseNode integerConstant(int value, long position) {
+		ParseNode result = new IntegerConstantNode(IntegerToken.make(position, Integer.toString(value)));
+		result.setType(PrimitiveType.INTEGER);
+		return result;
+	}
+	private ParseNode floatingConstant(double value, long position) {
+		ParseNode result = new FloatingConstantNode(FloatingToken.make(position, Double.toString(value)));
+		result.setType(PrimitiveType.FLOATING);
+		return result;
+	}
+	// null if value would change when emitted as a PushF operand.
+	private ParseNode exactFloatingConstant(double value, long position) {
+		if(ASMInstruction.emittedFloat(value) != value) {
+			return null;
+		}
+		return floatingConstant(value, position);
+	}
+	private ParseNode characterConstant(char value, long position) {
+		ParseNode result = new CharacterConstantNode(CharacterToken.make(position, String.valueOf(value)));
+		result.setType(PrimitiveType.CHARACTER);
+		return result;
+	}
+	private ParseNode booleanConstant(boolean value, long position) {
+		Keyword keyword = value ? Keyword.TRUE : Keyword.FALSE;
+		ParseNode result = new BooleanConstantNode(LextantToken.make(position, keyword.getLexeme(), keyword));
+		result.setType(PrimitiveType.BOOLEAN);
+		return result;
+	}
+
+	private void replace(ParseNode node, ParseNode replacement) {
+		if(replacement != node) {
+			node.getParent().replaceChild(node, replacement);
+		}
+	}
+}
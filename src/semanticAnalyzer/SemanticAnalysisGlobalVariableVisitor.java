@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import context.CompilationContext;
+import inputHandler.TextLocation;
 import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
@@ -25,6 +27,13 @@ import tokens.LextantToken;
 import tokens.Token;
 
 public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Default {
+	private final CompilationContext context;
+	
+	public SemanticAnalysisGlobalVariableVisitor(CompilationContext context) {
+		super();
+		this.context = context;
+	}
+
 	
 	/*
 	 * the accept method of Block nodes has been changed
@@ -78,7 +87,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes );
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -93,7 +102,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		if(node.getToken().isLextant(Punctuator.AT)) {
 			ParseNode child = node.child(0);
 			if(!isTargetNode(child)) {
-				logError("target required for @: " + node.getToken().getLocation());
+				logError("target required for @: " + locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 				return;
 			}
@@ -109,7 +118,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes);
 				
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -133,7 +142,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes);
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		} 
 		else {
 			typeCheckError(node, childTypes);
@@ -152,7 +161,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 	@Override
 	public void visitLeave(PopulatedArrayNode node) {
 		if(node.nChildren() == 0) {
-			logError("Cannnot create empty populated array: " + node.getToken().getLocation());
+			logError("Cannnot create empty populated array: " + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -175,7 +184,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 				}
 			}
 		}
-		ArrayType arrayType = new ArrayType(childType);
+		ArrayType arrayType = ArrayType.arrayOf(childType);
 		node.setType(arrayType);
 	}
 	
@@ -185,13 +194,13 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		assert node.nChildren() == 2;
 		Type nodeType = node.child(0).getType();
 		if(!(nodeType instanceof ArrayType || nodeType instanceof TupleType)) {
-			logError("Ilegal Type for fresh, arrayType or tupleType expected" + node.getToken().getLocation());
+			logError("Ilegal Type for fresh, arrayType or tupleType expected" + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 		}
 		
 		if(nodeType instanceof ArrayType) {
 			if(node.child(1).getType()!= PrimitiveType.INTEGER) {
-				logError("Ilegal Type for fresh, int expected for array Length" + node.getToken().getLocation());
+				logError("Ilegal Type for fresh, int expected for array Length" + locationOf(node.getToken()));
 			}
 		}
 		if(nodeType instanceof TupleType) {
@@ -209,7 +218,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 	@Override
 	public void visitLeave(ArrayConcatenationNode node) {
 		if(node.nChildren() < 2) {
-			logError("Array Concatenation needs at least 2 args" + node.getToken().getLocation());
+			logError("Array Concatenation needs at least 2 args" + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -217,12 +226,12 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		Type nodeType = childTypes.get(0);
 		if(!(nodeType instanceof ArrayType)) {
 			logError("arrayType needed for array conca"
-					+ node.getToken().getLocation());
+					+ locationOf(node.getToken()));
 		}
 		for(Type childType : childTypes) {
 			if(!childType.equals(nodeType)) {
 				logError("array conca type cheking error: " + childTypes 
-						+ node.getToken().getLocation());
+						+ locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 				return;
 			}
@@ -248,7 +257,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		ParseNode argList = node.child(1);
 				
 		if(!(functionNode.getBinding() instanceof FunctionBinding)) {
-			logError("No function "+node.getToken().getLexeme() +node.getToken().getLocation());
+			logError("No function "+node.getToken().getLexeme() +locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -261,7 +270,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		}
 		
 		if(signature.accepts(exprTypesList)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(exprTypesList));
 		}
 		else {
 			typeCheckError(node, exprTypesList);
@@ -270,7 +279,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		
 		if(node.getType() == PrimitiveType.VOID) {
 			if(!(node.getParent() instanceof FunctionCallNode)) {
-				logError("void function can only be invocated by 'CALL'" + node.getToken().getLocation());
+				logError("void function can only be invocated by 'CALL'" + locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 			}
 		}
@@ -290,7 +299,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes );
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());	//setType deals with type variable correctly and reset typeVar
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -305,7 +314,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 	@Override
 	public void visitLeave(TupleEntryNode node) {
 		if(!(node.child(0).getType() instanceof TupleType)) {
-			logError("Expected tupleType in tuple Entry: " + node.getToken().getLocation());
+			logError("Expected tupleType in tuple Entry: " + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -335,12 +344,12 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		assert node.nChildren() == 1;
 		assert node.getToken().isLextant(Punctuator.OPEN_SQUARE_BRACKET);
 		
-		node.setType(new ArrayType(node.child(0).getType()));
+		node.setType(ArrayType.arrayOf(node.child(0).getType()));
 	}
 	
 	@Override
 	public void visit(TypeNode node) {
-		node.setType(node.getTerminalType());
+		node.setType(node.getTerminalType(context));
 	}
 
 
@@ -386,7 +395,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		if(isTupleSubElement(node)) {
 			Binding binding = findSubelementBinding(node); 
 			if(binding == Binding.nullInstance()) {
-				logError("No such entry in TupleType : " + node.getToken().getLocation());
+				logError("No such entry in TupleType : " + locationOf(node.getToken()));
 			}
 			node.setType(binding.getType());
 			node.setBinding(binding);
@@ -401,7 +410,7 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		}
 		
 		if(!isBeingDeclared(node)) {		
-			Binding binding = node.findVariableBinding();
+			Binding binding = node.findVariableBinding(context);
 			node.setType(binding.getType());
 			node.setBinding(binding);
 		}
@@ -437,14 +446,14 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 	}
 	// finding binding for tuple or function Identifier 
 	private Binding findTupleOrFunctionBinding(IdentifierNode node) {
-		return SemanticAnalyzer.getGlobalScope().getSymbolTable().lookup(node.getToken().getLexeme());
+		return context.getGlobalScope().getSymbolTable().lookup(node.getToken().getLexeme());
 	}
 	////////////////////////////////////////////////////////////////////////
 	private void addGlobalVariableBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
-		Scope scope = SemanticAnalyzer.getGlobalScope();
+		Scope scope = context.getGlobalScope();
 		Binding binding = scope.createBinding(identifierNode, type);
 		identifierNode.setBinding(binding);
 	}
@@ -453,17 +462,18 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 	// add binding to staticScope
 	// and its local scope
 	private void addGlobalStaticBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
-		List<Binding> staticBindings = SemanticAnalyzer.getStaticBindings();
-		Scope localScope = SemanticAnalyzer.getGlobalScope();
+		List<Binding> staticBindings = context.getStaticBindings();
+		Scope localScope = context.getGlobalScope();
 		String lexeme = identifierNode.getToken().getLexeme();
 		
 		Binding binding = new StaticBinding(type, 
-				identifierNode.getToken().getLocation(), 
-				SemanticAnalyzer.getStaticAllocator().allocate(type.getSize()), 
-				lexeme);
+				identifierNode.getToken().getPosition(), 
+				context.getStaticAllocator().allocate(type.getSize()), 
+				lexeme,
+				context.nextStaticBindingNumber());
 		binding = localScope.createBinding(binding);
 		
 		staticBindings.add(binding);
@@ -477,28 +487,31 @@ public class SemanticAnalysisGlobalVariableVisitor extends ParseNodeVisitor.Defa
 		Token token = node.getToken();
 				
 		logError("operator " + token.getLexeme() + " not defined for types " 
-				 + operandTypes  + " at " + token.getLocation());	
+				 + operandTypes  + " at " + locationOf(token));	
 	}
 	private void populatedArrayTypeCheckError(ParseNode node, Type type) {
 		Token token = node.getToken();
 		String errorMessage = "populated array creation requires same types in expression list: ";
 		
-		logError(errorMessage + type.infoString() + token.getLocation());
+		logError(errorMessage + type.infoString() + locationOf(token));
 	}
 
 	private void argumentsListNotMatchedError(ParseNode node, Type type) {
 		Token token = node.getToken();
 		String errorMessage = "ArrgumentList does not mathch: ";
 		
-		logError(errorMessage + type.infoString() + token.getLocation());
+		logError(errorMessage + type.infoString() + locationOf(token));
 	}
 	private void invalidNullReferenceTypeError(ParseNode node) {
 		Token token = node.getToken();
-		String errorMessage = "Reference Type needed for null reference: " + token.getLocation();
+		String errorMessage = "Reference Type needed for null reference: " + locationOf(token);
 		logError(errorMessage);
 	}
+	private TextLocation locationOf(Token token) {
+		return context.locationOf(token.getPosition());
+	}
 	private void logError(String message) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer");
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer");
 		log.severe(message);
 	}
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package semanticAnalyzer;
 
+import context.CompilationContext;
 import parseTree.ParseNode;
 import parseTree.ParseNodeVisitor;
 import parseTree.nodeTypes.*;
@@ -11,6 +12,13 @@ import symbolTable.Scope;
 
 
 public class SemanticAnalysisTupleCollectingVisitor extends ParseNodeVisitor.Default{
+	private final CompilationContext context;
+	
+	public SemanticAnalysisTupleCollectingVisitor(CompilationContext context) {
+		super();
+		this.context = context;
+	}
+
 	
 	// this visitor creates all the scopes without entering it
 	// scopes created includes program, block, for, tuple def
@@ -98,23 +106,23 @@ public class SemanticAnalysisTupleCollectingVisitor extends ParseNodeVisitor.Def
 	// scoping methods for scoping
 	
 	private void CreateProgramScope(ProgramNode node) {
-		Scope scope = Scope.createProgramScope();
-		SemanticAnalyzer.setGlobalScope(scope);
+		Scope scope = Scope.createProgramScope(context);
+		context.setGlobalScope(scope);
 		node.setScope(scope);
 	}
 	
 	private void CreateTupleScope(ParseNode node) {
-		Scope scope = Scope.createTupleScope();
+		Scope scope = Scope.createTupleScope(context);
 		node.setScope(scope);
 	}
 	
 	private void CreateParameterScope(ParseNode node) {
-		Scope scope = Scope.createParameterScope();
+		Scope scope = Scope.createParameterScope(context);
 		node.setScope(scope);
 	}
 	
 	private void CreateProcedureScope(ParseNode node) {
-		Scope scope = Scope.createProcedureScope();
+		Scope scope = Scope.createProcedureScope(context);
 		node.setScope(scope);
 	}
 	
@@ -127,17 +135,17 @@ public class SemanticAnalysisTupleCollectingVisitor extends ParseNodeVisitor.Def
 	
 	// helper methods for bindings
 	private void addFunctionBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
-		Binding binding = SemanticAnalyzer.getGlobalScope().createFunctionBinding(identifierNode, type);
+		Binding binding = context.getGlobalScope().createFunctionBinding(identifierNode, type);
 		identifierNode.setBinding(binding);
 	}
 	private void addTupleBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
-		Binding binding = SemanticAnalyzer.getGlobalScope().createTupleBinding(identifierNode, type);
+		Binding binding = context.getGlobalScope().createTupleBinding(identifierNode, type);
 		identifierNode.setBinding(binding);
 	}
 	
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import context.CompilationContext;
+import inputHandler.TextLocation;
 import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
@@ -29,6 +31,13 @@ import tokens.LextantToken;
 import tokens.Token;
 
 public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
+	private final CompilationContext context;
+	
+	public SemanticAnalysisVisitor(CompilationContext context) {
+		super();
+		this.context = context;
+	}
+
 	@Override
 	public void visitLeave(ParseNode node) {
 		throw new RuntimeException("Node class unimplemented in SemanticAnalysisVisitor: " + node.getClass());
@@ -263,7 +272,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		if(node.getToken().isLextant(Keyword.COUNT)) {
 			for(int i = 1; i< node.nChildren(); i++)
 				if(node.child(i).getType()!=PrimitiveType.INTEGER) {
-					logError("Expected integer type for count lower and upper bound"+node.getToken().getLocation());
+					logError("Expected integer type for count lower and upper bound"+locationOf(node.getToken()));
 					node.setType(PrimitiveType.ERROR);
 				}
 		}
@@ -337,7 +346,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes );
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -352,7 +361,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		if(node.getToken().isLextant(Punctuator.AT)) {
 			ParseNode child = node.child(0);
 			if(!isTargetNode(child)) {
-				logError("target required for @: " + node.getToken().getLocation());
+				logError("target required for @: " + locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 				return;
 			}
@@ -368,7 +377,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes);
 				
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -392,7 +401,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes);
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(childTypes));
 		} 
 		else {
 			typeCheckError(node, childTypes);
@@ -411,7 +420,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	@Override
 	public void visitLeave(PopulatedArrayNode node) {
 		if(node.nChildren() == 0) {
-			logError("Cannnot create empty populated array: " + node.getToken().getLocation());
+			logError("Cannnot create empty populated array: " + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -434,7 +443,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 				}
 			}
 		}
-		ArrayType arrayType = new ArrayType(childType);
+		ArrayType arrayType = ArrayType.arrayOf(childType);
 		node.setType(arrayType);
 	}
 	
@@ -444,13 +453,13 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		assert node.nChildren() == 2;
 		Type nodeType = node.child(0).getType();
 		if(!(nodeType instanceof ArrayType || nodeType instanceof TupleType)) {
-			logError("Ilegal Type for fresh, arrayType or tupleType expected" + node.getToken().getLocation());
+			logError("Ilegal Type for fresh, arrayType or tupleType expected" + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 		}
 		
 		if(nodeType instanceof ArrayType) {
 			if(node.child(1).getType()!= PrimitiveType.INTEGER) {
-				logError("Ilegal Type for fresh, int expected for array Length" + node.getToken().getLocation());
+				logError("Ilegal Type for fresh, int expected for array Length" + locationOf(node.getToken()));
 			}
 		}
 		if(nodeType instanceof TupleType) {
@@ -468,7 +477,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	@Override
 	public void visitLeave(ArrayConcatenationNode node) {
 		if(node.nChildren() < 2) {
-			logError("Array Concatenation needs at least 2 args" + node.getToken().getLocation());
+			logError("Array Concatenation needs at least 2 args" + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -476,12 +485,12 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		Type nodeType = childTypes.get(0);
 		if(!(nodeType instanceof ArrayType)) {
 			logError("arrayType needed for array conca"
-					+ node.getToken().getLocation());
+					+ locationOf(node.getToken()));
 		}
 		for(Type childType : childTypes) {
 			if(!childType.equals(nodeType)) {
 				logError("array conca type cheking error: " + childTypes 
-						+ node.getToken().getLocation());
+						+ locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 				return;
 			}
@@ -507,7 +516,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		ParseNode argList = node.child(1);
 				
 		if(!(functionNode.getBinding() instanceof FunctionBinding)) {
-			logError("No function "+node.getToken().getLexeme() +node.getToken().getLocation());
+			logError("No function "+node.getToken().getLexeme() +locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -520,7 +529,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		}
 		
 		if(signature.accepts(exprTypesList)) {
-			node.setType(signature.resultType());
+			node.setType(signature.resultType(exprTypesList));
 		}
 		else {
 			typeCheckError(node, exprTypesList);
@@ -529,7 +538,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		
 		if(node.getType() == PrimitiveType.VOID) {
 			if(!(node.getParent() instanceof FunctionCallNode)) {
-				logError("void function can only be invocated by 'CALL'" + node.getToken().getLocation());
+				logError("void function can only be invocated by 'CALL'" + locationOf(node.getToken()));
 				node.setType(PrimitiveType.ERROR);
 			}
 		}
@@ -549,7 +558,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		FunctionSignature signature = FunctionSignatures.signature(operator, childTypes );
 		
 		if(signature.accepts(childTypes)) {
-			node.setType(signature.resultType());	//setType deals with type variable correctly and reset typeVar
+			node.setType(signature.resultType(childTypes));
 		}
 		else {
 			typeCheckError(node, childTypes);
@@ -564,7 +573,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	@Override
 	public void visitLeave(TupleEntryNode node) {
 		if(!(node.child(0).getType() instanceof TupleType)) {
-			logError("Expected tupleType in tuple Entry: " + node.getToken().getLocation());
+			logError("Expected tupleType in tuple Entry: " + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -594,12 +603,12 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		assert node.nChildren() == 1;
 		assert node.getToken().isLextant(Punctuator.OPEN_SQUARE_BRACKET);
 		
-		node.setType(new ArrayType(node.child(0).getType()));
+		node.setType(ArrayType.arrayOf(node.child(0).getType()));
 	}
 	
 	@Override
 	public void visit(TypeNode node) {
-		node.setType(node.getTerminalType());
+		node.setType(node.getTerminalType(context));
 	}
 
 
@@ -642,7 +651,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	@Override
 	public void visit(BreakContinueStatementNode node) {
 		if(!node.isLeagal()) {
-			logError("Break or continue must be within a loop: " + node.getToken().getLocation()); 
+			logError("Break or continue must be within a loop: " + locationOf(node.getToken())); 
 		}
 	}
 	
@@ -650,7 +659,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	@Override
 	public void visit(FunctionReturnNode node) {
 		if(!node.isLeagalReturn()) {
-			logError("Return must be within a func " + node.getToken().getLocation());
+			logError("Return must be within a func " + locationOf(node.getToken()));
 		}
 	}
 	
@@ -661,7 +670,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		if(isTupleSubElement(node)) {
 			Binding binding = findSubelementBinding(node); 
 			if(binding == Binding.nullInstance()) {
-				logError("No such entry in TupleType : " + node.getToken().getLocation());
+				logError("No such entry in TupleType : " + locationOf(node.getToken()));
 			}
 			node.setType(binding.getType());
 			node.setBinding(binding);
@@ -676,7 +685,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		}
 		
 		if(!isBeingDeclared(node)) {		
-			Binding binding = node.findVariableBinding();
+			Binding binding = node.findVariableBinding(context);
 			node.setType(binding.getType());
 			node.setBinding(binding);
 		}
@@ -712,11 +721,11 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	}
 	// finding binding for tuple or function Identifier 
 	private Binding findTupleOrFunctionBinding(IdentifierNode node) {
-		return SemanticAnalyzer.getGlobalScope().getSymbolTable().lookup(node.getToken().getLexeme());
+		return context.getGlobalScope().getSymbolTable().lookup(node.getToken().getLexeme());
 	}
 	////////////////////////////////////////////////////////////////////////
 	private void addBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
 		Scope scope = identifierNode.getLocalScope();
@@ -728,17 +737,18 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	// add binding to staticScope
 	// and its local scope
 	private void addStaticBinding(IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
-		List<Binding> staticBindings = SemanticAnalyzer.getStaticBindings();
+		List<Binding> staticBindings = context.getStaticBindings();
 		Scope localScope = identifierNode.getLocalScope();
 		String lexeme = identifierNode.getToken().getLexeme();
 		
 		Binding binding = new StaticBinding(type, 
-				identifierNode.getToken().getLocation(), 
-				SemanticAnalyzer.getStaticAllocator().allocate(type.getSize()), 
-				lexeme);
+				identifierNode.getToken().getPosition(), 
+				context.getStaticAllocator().allocate(type.getSize()), 
+				lexeme,
+				context.nextStaticBindingNumber());
 		binding =localScope.createBinding(binding);
 		
 		staticBindings.add(binding);
@@ -747,7 +757,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 	
 	// for funcDefNode to add args and return vars to ParameterScope
 	private Binding addParameterBinding(IdentifierNode identifierNode, Type type, Scope scope) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
 		Binding binding = scope.createBinding(identifierNode, type);
@@ -761,7 +771,7 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		Token token = node.getToken();
 				
 		logError("operator " + token.getLexeme() + " not defined for types " 
-				 + operandTypes  + " at " + token.getLocation());	
+				 + operandTypes  + " at " + locationOf(token));	
 	}
 	private void reassignImmutableError(ParseNode node, String identifier) {		
 		logError("Immutable identifier (" + identifier +") cannot be reassigned");
@@ -770,27 +780,30 @@ public class SemanticAnalysisVisitor extends ParseNodeVisitor.Default {
 		Token token = node.getToken();
 		String errorMessage = "populated array creation requires same types in expression list: ";
 		
-		logError(errorMessage + type.infoString() + token.getLocation());
+		logError(errorMessage + type.infoString() + locationOf(token));
 	}
 	private void exprNotTargetableError(ParseNode node, ParseNode child) {
 		Token token = node.getToken();
 		String errorMessage = "targetable expr must be identifier or array indexing: ";
 		
-		logError(errorMessage + token.getLocation() + child);
+		logError(errorMessage + locationOf(token) + child);
 	}
 	private void argumentsListNotMatchedError(ParseNode node, Type type) {
 		Token token = node.getToken();
 		String errorMessage = "ArrgumentList does not mathch: ";
 		
-		logError(errorMessage + type.infoString() + token.getLocation());
+		logError(errorMessage + type.infoString() + locationOf(token));
 	}
 	private void invalidNullReferenceTypeError(ParseNode node) {
 		Token token = node.getToken();
-		String errorMessage = "Reference Type needed for null reference: " + token.getLocation();
+		String errorMessage = "Reference Type needed for null reference: " + locationOf(token);
 		logError(errorMessage);
 	}
+	private TextLocation locationOf(Token token) {
+		return context.locationOf(token.getPosition());
+	}
 	private void logError(String message) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer");
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer");
 		log.severe(message);
 	}
 }
\ No newline at end of file
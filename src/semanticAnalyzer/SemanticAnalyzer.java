@@ -3,42 +3,39 @@ package semanticAnalyzer;
 import parseTree.*;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import symbolTable.MemoryAccessMethod;
-import symbolTable.MemoryAllocator;
 import symbolTable.MemoryLocation;
 import symbolTable.PositiveMemoryAllocator;
-import symbolTable.Scope;
 import symbolTable.Binding;
+import context.CompilationContext;
 
 //import semanticAnalyzer.types.TupleType;
 
 
 public class SemanticAnalyzer {
 	ParseNode ASTree;
+	private final CompilationContext context;
 	
-	private static Scope globalScope;
-	private static List<Binding> staticBindings;
-	private static MemoryAllocator staticAllocator;
-	
-	public static ParseNode analyze(ParseNode ASTree) {
-		SemanticAnalyzer analyzer = new SemanticAnalyzer(ASTree);
+	public static ParseNode analyze(CompilationContext context, ParseNode ASTree) {
+		SemanticAnalyzer analyzer = new SemanticAnalyzer(context, ASTree);
 		return analyzer.analyze();
 	}
-	public SemanticAnalyzer(ParseNode ASTree) {
+	public SemanticAnalyzer(CompilationContext context, ParseNode ASTree) {
 		this.ASTree = ASTree;
-		staticBindings = new ArrayList<Binding>();
-		staticAllocator = new PositiveMemoryAllocator(
-				MemoryAccessMethod.DIRECT_ACCESS_BASE, 
-				MemoryLocation.STATIC_VARIABLE_BLOCK,
-				0);
+		this.context = context;
+		context.setStaticStorage(
+				new ArrayList<Binding>(),
+				new PositiveMemoryAllocator(
+						MemoryAccessMethod.DIRECT_ACCESS_BASE, 
+						MemoryLocation.STATIC_VARIABLE_BLOCK,
+						0));
 	}
 	
 	public ParseNode analyze() {		
-		ASTree.accept(new SemanticAnalysisTupleCollectingVisitor());
-		ASTree.accept(new TupleInitializationAndFunctionSignatureVisitor());
-		ASTree.accept(new SemanticAnalysisVisitor());
+		ASTree.accept(new SemanticAnalysisTupleCollectingVisitor(context));
+		ASTree.accept(new TupleInitializationAndFunctionSignatureVisitor(context));
+		ASTree.accept(new SemanticAnalysisVisitor(context));
 		
 		/*
 		System.out.println("Global "+globalScope.getSymbolTable());		
@@ -59,20 +56,13 @@ public class SemanticAnalyzer {
 		return ASTree;
 	}
 	
-	public static void setGlobalScope(Scope global) {
-		globalScope = global;
-	}
-	
-	public static Scope getGlobalScope() {
-		return globalScope;
-	}
-	
-	public static List<Binding> getStaticBindings() {
-		return staticBindings;
-	}
-	
-	public static MemoryAllocator getStaticAllocator() {
-		return staticAllocator;
+	// constant folding and propagation over an analyzed tree.  Only done
+	// when analysis found no errors, since it relies on the decorated types.
+	public static ParseNode foldConstants(CompilationContext context, ParseNode decoratedTree) {
+		if(!context.hasErrors()) {
+			decoratedTree.accept(new ConstantFoldingVisitor());
+		}
+		return decoratedTree;
 	}
 	
 }
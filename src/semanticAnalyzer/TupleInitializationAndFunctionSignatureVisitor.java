@@ -3,6 +3,8 @@ package semanticAnalyzer;
 import java.util.ArrayList;
 import java.util.List;
 
+import context.CompilationContext;
+import inputHandler.TextLocation;
 import lexicalAnalyzer.Punctuator;
 import logging.GrouseLogger;
 import parseTree.ParseNode;
@@ -17,8 +19,16 @@ import symbolTable.Binding;
 import symbolTable.FunctionBinding;
 import symbolTable.Scope;
 import symbolTable.SymbolTable;
+import tokens.Token;
 
 public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVisitor.Default{
+	private final CompilationContext context;
+	
+	public TupleInitializationAndFunctionSignatureVisitor(CompilationContext context) {
+		super();
+		this.context = context;
+	}
+
 
 	// this visitor inilized tupleType
 	// and add function signatures for functions
@@ -37,7 +47,7 @@ public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVis
 		
 		
 		if(!(initializer instanceof ParameterListNode || initializer.getType() instanceof TupleType)) {
-			logError("Ilegal initializer for tuple Type: paraList or tupleType expected " + node.getToken().getLocation());
+			logError("Ilegal initializer for tuple Type: paraList or tupleType expected " + locationOf(node.getToken()));
 			node.setType(PrimitiveType.ERROR);
 			return;
 		}
@@ -91,18 +101,18 @@ public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVis
 		assert node.nChildren() == 1;
 		assert node.getToken().isLextant(Punctuator.OPEN_SQUARE_BRACKET);
 		
-		node.setType(new ArrayType(node.child(0).getType()));
+		node.setType(ArrayType.arrayOf(node.child(0).getType()));
 	}
 	
 	@Override
 	public void visit(TypeNode node) {
-		node.setType(node.getTerminalType());
+		node.setType(node.getTerminalType(context));
 	}
 	
 	/////////////////////////////////////////////////////////////////////
 	// creat Binding
 	private void createBinding(Scope scope, IdentifierNode identifierNode, Type type) {
-		if(!identifierNode.canBeShadowed()) {
+		if(!identifierNode.canBeShadowed(context)) {
 			identifierNode.setBinding(Binding.nullInstance());
 		}
 		
@@ -114,12 +124,12 @@ public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVis
 	// compress path
 	// eliminate TrivialTuple in Global SymbolTable
 	private void compressPathAndEliminateTirivalTupleInGlobalSymbolTable() {
-		SymbolTable globalTable = SemanticAnalyzer.getGlobalScope().getSymbolTable();
+		SymbolTable globalTable = context.getGlobalScope().getSymbolTable();
 		for(String tupleName : globalTable.keySet()) {
 			Binding binding = globalTable.lookup(tupleName);
 			assert binding.getType() instanceof TupleType;
 			TupleType type = (TupleType)binding.getType();
-			type.compressPath();
+			type.compressPath(context);
 			if(type.isTrivial()) {
 				binding.setType(type.getTirvialEquvalenceType());
 			}
@@ -128,7 +138,7 @@ public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVis
 	
 	// eliminate TrivialTuple in each TupleType's SymbolTable
 	private void eliminateTrivialTupleTypeInTupleSymbolTable() {
-		SymbolTable globalTable = SemanticAnalyzer.getGlobalScope().getSymbolTable();
+		SymbolTable globalTable = context.getGlobalScope().getSymbolTable();
 		for(String tupleName : globalTable.keySet()) {
 			Binding binding = globalTable.lookup(tupleName);		
 			
@@ -155,8 +165,11 @@ public class TupleInitializationAndFunctionSignatureVisitor extends ParseNodeVis
 	///////////////////////////////////////////////////////////////////////
 	// Error loging
 	
+	private TextLocation locationOf(Token token) {
+		return context.locationOf(token.getPosition());
+	}
 	private void logError(String message) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer");
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer");
 		log.severe(message);
 	}
 	
@@ -1,11 +1,15 @@
 package semanticAnalyzer.signatures;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import semanticAnalyzer.types.ArrayType;
 import semanticAnalyzer.types.PrimitiveType;
 import semanticAnalyzer.types.TupleType;
 import semanticAnalyzer.types.Type;
+import semanticAnalyzer.types.TypeVariable;
 import lexicalAnalyzer.Lextant;
 import lexicalAnalyzer.Punctuator;
 
@@ -75,6 +79,17 @@ public class FunctionSignature {
 	public Type resultType() {
 		return resultType;
 	}
+	/** The result type for argument types this signature accepts, with its type variables
+	 *  replaced by what they stand for in those types.
+	 */
+	public Type resultType(List<Type> types) {
+		Map<TypeVariable, Type> bindings = new HashMap<TypeVariable, Type>();
+		matchAll(types, bindings);
+		return substitute(resultType, bindings);
+	}
+	List<Type> paramTypeList() {
+		return Arrays.asList(paramTypes);
+	}
 	public boolean isNull() {
 		return false;
 	}
@@ -83,26 +98,64 @@ public class FunctionSignature {
 	///////////////////////////////////////////////////////////////
 	// main query
 
+	// the type variables are bound afresh for each query, in a map of its own, so that
+	// queries from different compilations do not disturb each other.
 	public boolean accepts(List<Type> types) {
+		return matchAll(types, new HashMap<TypeVariable, Type>());
+	}
+	private boolean matchAll(List<Type> types, Map<TypeVariable, Type> bindings) {
 		if(types.size() != paramTypes.length) {
 			return false;
 		}
 		
 		for(int i=0; i<paramTypes.length; i++) {
-			if(!assignableTo(paramTypes[i], types.get(i))) {
+			if(!assignableTo(paramTypes[i], types.get(i), bindings)) {
 				return false;
 			}
 		}		
 		return true;
 	}
-	private boolean assignableTo(Type variableType, Type valueType) {
+	private boolean assignableTo(Type variableType, Type valueType, Map<TypeVariable, Type> bindings) {
 		if(valueType == PrimitiveType.ERROR && ALL_TYPES_ACCEPT_ERROR_TYPES) {
 			return true;
 		}	
-		// cannot be valueType.equals(variableType)
-		// otherwise PrimitiveType.equals(TypeVariable) will return false
+		return matches(variableType, valueType, bindings);
+	}
+	// an unbound variable is bound to valueType if it can be; a bound one matches what it is bound to.
+	private static boolean matches(Type variableType, Type valueType, Map<TypeVariable, Type> bindings) {
+		if(variableType instanceof TypeVariable) {
+			TypeVariable variable = (TypeVariable)variableType;
+			Type bound = bindings.get(variable);
+			if(bound != null) {
+				return valueType.equals(bound);
+			}
+			if(!variable.canBind(valueType)) {
+				return false;
+			}
+			bindings.put(variable, valueType);
+			return true;
+		}
+		if(variableType instanceof ArrayType && valueType instanceof ArrayType) {
+			return matches(((ArrayType)variableType).getSubType(), ((ArrayType)valueType).getSubType(), bindings);
+		}
 		return variableType.equals(valueType);
 	}
+	// an unbound variable gives null.
+	private static Type substitute(Type type, Map<TypeVariable, Type> bindings) {
+		if(type instanceof TypeVariable) {
+			return bindings.get(type);
+		}
+		if(type instanceof ArrayType && containsVariable(type)) {
+			return ArrayType.arrayOf(substitute(((ArrayType)type).getSubType(), bindings));
+		}
+		return type;
+	}
+	private static boolean containsVariable(Type type) {
+		if(type instanceof ArrayType) {
+			return containsVariable(((ArrayType)type).getSubType());
+		}
+		return type instanceof TypeVariable;
+	}
 	
 	// Null object pattern
 	private static FunctionSignature neverMatchedSignature = new FunctionSignature(1, PrimitiveType.ERROR) {
@@ -1,9 +1,12 @@
 package semanticAnalyzer.signatures;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import lexicalAnalyzer.Keyword;
 import lexicalAnalyzer.Punctuator;
@@ -22,13 +25,89 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 	
 	Object key;
 	
+	// dispatch.  Answers for one or two primitive argument types are tabled when the
+	// signatures are made, by ordinal.  Answers for other interned argument types (arrays of
+	// primitives) are kept once found.  Only other argument types, with tuples or type
+	// variables in them, go through the signatures one by one on every query.
+	private static final int PRIMITIVES = PrimitiveType.values().length;
+	private int arity;
+	private FunctionSignature[] primitiveAnswers;		// null unless every signature has arity 1 or 2
+	private ConcurrentMap<InternedTypes, FunctionSignature> internedAnswers = new ConcurrentHashMap<InternedTypes, FunctionSignature>();
+	
+	// one or two interned argument types, which are equal only if identical.
+	private static class InternedTypes {
+		private final Type first;
+		private final Type second;
+		
+		InternedTypes(List<Type> types) {
+			this.first = types.get(0);
+			this.second = (types.size() == 2) ? types.get(1) : null;
+		}
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(first) + System.identityHashCode(second);
+		}
+		@Override
+		public boolean equals(Object other) {
+			return (other instanceof InternedTypes) && 
+					((InternedTypes)other).first == first && ((InternedTypes)other).second == second;
+		}
+	}
+	
 	public FunctionSignatures(Object key, FunctionSignature ...functionSignatures) {
 		this.key = key;
 		for(FunctionSignature functionSignature: functionSignatures) {
 			add(functionSignature);
 		}
+		tablePrimitiveAnswers();
 		signaturesForKey.put(key, this);
 	}
+	private void tablePrimitiveAnswers() {
+		arity = get(0).paramTypeList().size();
+		for(FunctionSignature signature: this) {
+			if(signature.isNull() || signature.paramTypeList().size() != arity) {
+				return;
+			}
+		}
+		if(arity < 1 || arity > 2) {
+			return;
+		}
+		
+		PrimitiveType[] primitives = PrimitiveType.values();
+		primitiveAnswers = new FunctionSignature[(arity == 1) ? PRIMITIVES : PRIMITIVES * PRIMITIVES];
+		for(int i = 0; i < primitiveAnswers.length; i++) {
+			List<Type> types = (arity == 1) ? 
+					Arrays.<Type>asList(primitives[i]) :
+					Arrays.<Type>asList(primitives[i / PRIMITIVES], primitives[i % PRIMITIVES]);
+			primitiveAnswers[i] = firstAccepting(types);
+		}
+	}
+	private int primitiveIndex(List<Type> types) {
+		if(primitiveAnswers == null || types.size() != arity) {
+			return -1;
+		}
+		int index = 0;
+		for(int i = 0; i < arity; i++) {
+			if(!(types.get(i) instanceof PrimitiveType)) {
+				return -1;
+			}
+			index = index * PRIMITIVES + ((PrimitiveType)types.get(i)).ordinal();
+		}
+		return index;
+	}
+	private boolean allInterned(List<Type> types) {
+		if(primitiveAnswers == null || types.size() != arity) {
+			return false;
+		}
+		for(int i = 0; i < arity; i++) {
+			Type type = types.get(i);
+			if(!(type instanceof PrimitiveType) && 
+					!((type instanceof ArrayType) && ((ArrayType)type).isInterned())) {
+				return false;
+			}
+		}
+		return true;
+	}
 	
 	public Object getKey() {
 		return key;
@@ -37,7 +116,28 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 		return this.key.equals(key);
 	}
 	
+	// the first signature accepting types.  For a generic one, resultType(types) gives
+	// the result type with its type variables bound to the argument types.
 	public FunctionSignature acceptingSignature(List<Type> types) {
+		FunctionSignature result;
+		int index = primitiveIndex(types);
+		if(index >= 0) {
+			result = primitiveAnswers[index];
+		}
+		else if(allInterned(types)) {
+			InternedTypes key = new InternedTypes(types);
+			result = internedAnswers.get(key);
+			if(result == null) {
+				result = firstAccepting(types);
+				internedAnswers.putIfAbsent(key, result);
+			}
+		}
+		else {
+			result = firstAccepting(types);
+		}
+		return result;
+	}
+	private FunctionSignature firstAccepting(List<Type> types) {
 		for(FunctionSignature functionSignature: this) {
 			if(functionSignature.accepts(types)) {
 				return functionSignature;
@@ -72,12 +172,9 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 	
 	/////////////////////////////////////////////////////////////////////////////////
 	// Put the signatures for operators in the following static block.
-	private static TypeVariable TypeVar = new TypeVariable("ArrayTypeVar");
-	private static TupleTypeVariable TupleTypeVar = new TupleTypeVariable("TupleTypeVar");
-	public static void resetTypeVar() {
-		TypeVar.reset();
-		TupleTypeVar.reset();
-	}
+	// shared by every compilation; they are bound anew by each query.
+	private static final TypeVariable TypeVar = new TypeVariable("ArrayTypeVar");
+	private static final TupleTypeVariable TupleTypeVar = new TupleTypeVariable("TupleTypeVar");
 
 	static {
 		// here's one example to get you started with FunctionSignatures: the signatures for addition.		
@@ -135,7 +232,7 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 				new FunctionSignature(1, PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, PrimitiveType.CHARACTER, PrimitiveType.CHARACTER, PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, PrimitiveType.STRING, PrimitiveType.STRING, PrimitiveType.BOOLEAN),
-				new FunctionSignature(1, new ArrayType(TypeVar), new ArrayType(TypeVar), PrimitiveType.BOOLEAN),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), ArrayType.arrayOf(TypeVar), PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, TupleTypeVar, TupleTypeVar, PrimitiveType.BOOLEAN)
 			);
 		
@@ -145,7 +242,7 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 				new FunctionSignature(1, PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, PrimitiveType.CHARACTER, PrimitiveType.CHARACTER, PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, PrimitiveType.STRING, PrimitiveType.STRING, PrimitiveType.BOOLEAN),
-				new FunctionSignature(1, new ArrayType(TypeVar), new ArrayType(TypeVar), PrimitiveType.BOOLEAN),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), ArrayType.arrayOf(TypeVar), PrimitiveType.BOOLEAN),
 				new FunctionSignature(1, TupleTypeVar, TupleTypeVar, PrimitiveType.BOOLEAN)
 			);
 		
@@ -164,14 +261,14 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 		// refcount
 		new FunctionSignatures(Punctuator.SHARP,
 				new FunctionSignature(1, PrimitiveType.STRING, PrimitiveType.INTEGER),
-				new FunctionSignature(1, new ArrayType(TypeVar), PrimitiveType.INTEGER),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), PrimitiveType.INTEGER),
 				new FunctionSignature(1, TupleTypeVar, PrimitiveType.INTEGER)
 			);
 		
 		// record number
 		new FunctionSignatures(Punctuator.DOLLERSIGN,
 				new FunctionSignature(1, PrimitiveType.STRING, PrimitiveType.INTEGER),
-				new FunctionSignature(1, new ArrayType(TypeVar), PrimitiveType.INTEGER),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), PrimitiveType.INTEGER),
 				new FunctionSignature(1, TupleTypeVar, PrimitiveType.INTEGER)
 			);
 		
@@ -179,18 +276,18 @@ public class FunctionSignatures extends ArrayList<FunctionSignature> {
 		// length
 		new FunctionSignatures(Punctuator.BAR,											
 				new FunctionSignature(1, PrimitiveType.STRING, PrimitiveType.INTEGER),
-				new FunctionSignature(1, new ArrayType(TypeVar), PrimitiveType.INTEGER),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), PrimitiveType.INTEGER),
 				new FunctionSignature(1, TupleTypeVar, PrimitiveType.INTEGER)
 			);
 		
 		// array indexing
 		new FunctionSignatures(Punctuator.OPEN_SQUARE_BRACKET,
-				new FunctionSignature(1, new ArrayType(TypeVar), PrimitiveType.INTEGER, TypeVar)
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), PrimitiveType.INTEGER, TypeVar)
 			);
 		
 		// copy--------------------------------------------------------------------------------------
 		new FunctionSignatures(Keyword.COPY,
-				new FunctionSignature(1, new ArrayType(TypeVar), new ArrayType(TypeVar)),
+				new FunctionSignature(1, ArrayType.arrayOf(TypeVar), ArrayType.arrayOf(TypeVar)),
 				new FunctionSignature(1, TupleTypeVar, TupleTypeVar)
 		);
 		
@@ -0,0 +1,40 @@
+package semanticAnalyzer.tests;
+
+import java.util.Arrays;
+
+import semanticAnalyzer.signatures.FunctionSignature;
+import semanticAnalyzer.types.ArrayType;
+import semanticAnalyzer.types.PrimitiveType;
+import semanticAnalyzer.types.TupleType;
+import semanticAnalyzer.types.Type;
+import semanticAnalyzer.types.TypeVariable;
+import tests.FileFixturesTestCase;
+
+public class TestArrayType extends FileFixturesTestCase {
+
+	public void testArraysOfPrimitivesInterned() {
+		ArrayType ints = ArrayType.arrayOf(PrimitiveType.INTEGER);
+		assertSame(ints, ArrayType.arrayOf(PrimitiveType.INTEGER));
+		assertSame(ArrayType.arrayOf(ints), ArrayType.arrayOf(ArrayType.arrayOf(PrimitiveType.INTEGER)));
+
+		assertTrue(ArrayType.arrayOf(ints).equals(ArrayType.arrayOf(ints)));
+		assertFalse(ArrayType.arrayOf(ints).equals(ArrayType.arrayOf(ArrayType.arrayOf(PrimitiveType.FLOATING))));
+		assertFalse(ArrayType.arrayOf(ints).equals(ints));
+	}
+
+	public void testArraysOfTuplesNotInterned() {
+		TupleType point = new TupleType("point");
+		ArrayType points = ArrayType.arrayOf(point);
+		assertNotSame(points, ArrayType.arrayOf(point));
+		assertTrue(points.equals(ArrayType.arrayOf(point)));
+		assertFalse(points.equals(ArrayType.arrayOf(PrimitiveType.INTEGER)));
+	}
+
+	public void testArrayOfTypeVariableMatchesInternedArray() {
+		TypeVariable variable = new TypeVariable("T");
+		FunctionSignature signature = new FunctionSignature(1, ArrayType.arrayOf(variable), variable);
+		Type strings = ArrayType.arrayOf(ArrayType.arrayOf(PrimitiveType.CHARACTER));
+		assertTrue(signature.accepts(Arrays.asList(strings)));
+		assertSame(ArrayType.arrayOf(PrimitiveType.CHARACTER), signature.resultType(Arrays.asList(strings)));
+	}
+}
@@ -0,0 +1,169 @@
+package semanticAnalyzer.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import asmCodeGenerator.ASMCodeGenerator;
+import asmCodeGenerator.codeStorage.ASMOpcode;
+import context.CompilationContext;
+import inputHandler.PushbackCharStream;
+import inputHandler.SourceBuffer;
+import lexicalAnalyzer.LexicalAnalyzer;
+import parseTree.ParseNode;
+import parseTree.nodeTypes.BinaryOperatorNode;
+import parseTree.nodeTypes.BooleanConstantNode;
+import parseTree.nodeTypes.CharacterConstantNode;
+import parseTree.nodeTypes.DeclarationNode;
+import parseTree.nodeTypes.FloatingConstantNode;
+import parseTree.nodeTypes.IntegerConstantNode;
+import parser.Parser;
+import semanticAnalyzer.SemanticAnalyzer;
+import semanticAnalyzer.types.PrimitiveType;
+import tests.FileFixturesTestCase;
+
+public class TestConstantFolding extends FileFixturesTestCase {
+	private CompilationContext context;
+
+	@Override
+	protected void setUp() {
+		context = new CompilationContext();
+	}
+
+	public void testIntegerFolding() {
+		ParseNode program = folded(
+				"imm a := 2 + 3 * 4 - 1;",
+				"imm b := 2147483647 + 1;",
+				"imm c := -7 / 2;");
+		assertIntegerConstant(13, initializerOf(program, "a"));
+		assertIntegerConstant(Integer.MIN_VALUE, initializerOf(program, "b"));
+		assertIntegerConstant(-3, initializerOf(program, "c"));
+	}
+
+	public void testFloatingFolding() {
+		ParseNode program = folded("imm f := 1.5 * 2.0 + 0.25;");
+		ParseNode initializer = initializerOf(program, "f");
+		assertTrue(initializer instanceof FloatingConstantNode);
+		assertEquals(3.25, ((FloatingConstantNode)initializer).getValue(), 0.0);
+		assertSame(PrimitiveType.FLOATING, initializer.getType());
+	}
+
+	// a folded result must come out of PushF as computed; operands are what PushF gives.
+	public void testFloatingFoldedAsEmitted() {
+		ParseNode program = folded(
+				"imm whole := 3 : float;",
+				"imm third := 1.0 / 3.0;",
+				"imm tiny := 1.0 / 1000000000.0;",
+				"imm tenths := 0.1 + 0.2;",
+				"imm rounded := 0.1234567 * 2.0;",
+				"imm truncated := 2.9999999 : int;",
+				"imm same := 0.1234567 < 0.1234568;");
+		assertFloatingConstant(3.0, initializerOf(program, "whole"));
+		for(String name: new String[] {"third", "tiny", "tenths"}) {
+			assertTrue(name, initializerOf(program, name) instanceof BinaryOperatorNode);
+		}
+		assertFloatingConstant(0.246914, initializerOf(program, "rounded"));
+		assertIntegerConstant(3, initializerOf(program, "truncated"));
+		assertBooleanConstant(false, initializerOf(program, "same"));
+	}
+
+	public void testEmittedFloatOperands() {
+		List<String> operands = pushFOperands(
+				"var x := 3000000.0;",
+				"imm third := 1.0 / 3.0;",
+				"print third * x, 1.0 / 1000000000.0, 1.5 * 2.0 + 0.25, 7 : float;");
+		assertEquals("[3000000.000000, 1.000000, 3.000000, 1.000000, 1000000000.000000, 3.250000, 7.000000]",
+				operands.toString());
+	}
+
+	public void testBooleanFolding() {
+		ParseNode program = folded(
+				"imm t := 3 < 4;",
+				"imm f := !(2.5 > 1.5) && (1 / 0 > 0);",
+				"imm e := 'a == 'a;");
+		assertBooleanConstant(true, initializerOf(program, "t"));
+		assertBooleanConstant(false, initializerOf(program, "f"));
+		assertBooleanConstant(true, initializerOf(program, "e"));
+	}
+
+	public void testCastFolding() {
+		ParseNode initializer = initializerOf(folded("imm c := 65:char;"), "c");
+		assertTrue(initializer instanceof CharacterConstantNode);
+		assertEquals('A', ((CharacterConstantNode)initializer).getValue());
+		assertSame(PrimitiveType.CHARACTER, initializer.getType());
+	}
+
+	public void testPropagatedImmutable() {
+		ParseNode program = folded(
+				"imm k := 5;",
+				"imm m := k * 2;");
+		assertIntegerConstant(10, initializerOf(program, "m"));
+	}
+
+	public void testNotFolded() {
+		ParseNode program = folded(
+				"imm d := 7 / 0;",
+				"imm e := 1.0 / 0.0;",
+				"var v := 3;",
+				"imm g := v + 1;",
+				"imm h := v > 2 && true;");
+		for(String name: new String[] {"d", "e", "g", "h"}) {
+			assertTrue(name, initializerOf(program, name) instanceof BinaryOperatorNode);
+		}
+		assertSame(PrimitiveType.INTEGER, initializerOf(program, "d").getType());
+		assertSame(PrimitiveType.FLOATING, initializerOf(program, "e").getType());
+	}
+
+
+	private ParseNode folded(String... statements) {
+		SourceBuffer source = SourceBuffer.fromString(context, "folding", program(statements));
+		ParseNode tree = Parser.parse(context, new LexicalAnalyzer(context, PushbackCharStream.make(source)).tokenize());
+		tree = SemanticAnalyzer.analyze(context, tree);
+		assertFalse(context.hasErrors());
+		return SemanticAnalyzer.foldConstants(context, tree);
+	}
+	private List<String> pushFOperands(String... statements) {
+		List<String> operands = new ArrayList<String>();
+		for(String line: ASMCodeGenerator.generate(context, folded(statements)).toString().split("\\R")) {
+			String[] fields = line.trim().split("\\s+");
+			if(fields[0].equals(ASMOpcode.PushF.toString())) {
+				operands.add(fields[1]);
+			}
+		}
+		return operands;
+	}
+	private String program(String... statements) {
+		StringBuilder program = new StringBuilder("main {\n");
+		for(String statement: statements) {
+			program.append("\t").append(statement).append("\n");
+		}
+		program.append("}\n");
+		return program.toString();
+	}
+	private ParseNode initializerOf(ParseNode node, String name) {
+		if(node instanceof DeclarationNode && node.child(0).getToken().getLexeme().equals(name)) {
+			return node.child(1);
+		}
+		for(ParseNode child: node.getChildren()) {
+			ParseNode result = initializerOf(child, name);
+			if(result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+	private void assertIntegerConstant(int value, ParseNode node) {
+		assertTrue(node instanceof IntegerConstantNode);
+		assertEquals(value, ((IntegerConstantNode)node).getValue());
+		assertSame(PrimitiveType.INTEGER, node.getType());
+	}
+	private void assertFloatingConstant(double value, ParseNode node) {
+		assertTrue(node instanceof FloatingConstantNode);
+		assertEquals(value, ((FloatingConstantNode)node).getValue(), 0.0);
+		assertSame(PrimitiveType.FLOATING, node.getType());
+	}
+	private void assertBooleanConstant(boolean value, ParseNode node) {
+		assertTrue(node instanceof BooleanConstantNode);
+		assertEquals(value, ((BooleanConstantNode)node).getValue());
+		assertSame(PrimitiveType.BOOLEAN, node.getType());
+	}
+}
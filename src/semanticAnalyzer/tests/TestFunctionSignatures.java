@@ -0,0 +1,64 @@
+package semanticAnalyzer.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lexicalAnalyzer.Keyword;
+import lexicalAnalyzer.Punctuator;
+import semanticAnalyzer.signatures.FunctionSignature;
+import semanticAnalyzer.signatures.FunctionSignatures;
+import semanticAnalyzer.types.ArrayType;
+import semanticAnalyzer.types.PrimitiveType;
+import semanticAnalyzer.types.TupleType;
+import semanticAnalyzer.types.Type;
+import tests.FileFixturesTestCase;
+
+public class TestFunctionSignatures extends FileFixturesTestCase {
+	private static final Object[] OPERATORS = {
+		Punctuator.ADD, Punctuator.SUB, Punctuator.MULTIPLY, Punctuator.DIVIDE,
+		Punctuator.GREATER, Punctuator.LESS, Punctuator.EQUAL, Punctuator.NOTEQUAL,
+		Punctuator.BOOLEANAND, Punctuator.BOOLEANCOMPLIMENT, Punctuator.SHARP, Punctuator.BAR,
+		Punctuator.OPEN_SQUARE_BRACKET, Punctuator.CAST, Keyword.COPY
+	};
+
+	// every operator answers as going through its signatures in order would, first and again.
+	public void testSameAsScanningInOrder() {
+		List<Type> types = new ArrayList<Type>(Arrays.<Type>asList(PrimitiveType.values()));
+		types.add(ArrayType.arrayOf(PrimitiveType.INTEGER));
+		types.add(ArrayType.arrayOf(ArrayType.arrayOf(PrimitiveType.FLOATING)));
+		types.add(new TupleType("point"));
+
+		for(Object operator: OPERATORS) {
+			for(Type first: types) {
+				check(operator, Arrays.asList(first));
+				check(operator, Arrays.asList(first));
+				for(Type second: types) {
+					check(operator, Arrays.asList(first, second));
+					check(operator, Arrays.asList(first, second));
+				}
+			}
+		}
+	}
+
+	public void testRepeatedQueryBindsTypeVariable() {
+		ArrayType ints = ArrayType.arrayOf(PrimitiveType.INTEGER);
+		List<Type> indexing = Arrays.<Type>asList(ArrayType.arrayOf(ints), PrimitiveType.INTEGER);
+		for(int i = 0; i < 2; i++) {
+			FunctionSignature signature = FunctionSignatures.signature(Punctuator.OPEN_SQUARE_BRACKET, indexing);
+			assertSame(ints, signature.resultType(indexing));
+		}
+	}
+
+	private void check(Object operator, List<Type> types) {
+		FunctionSignatures signatures = FunctionSignatures.signaturesOf(operator);
+		FunctionSignature expected = FunctionSignature.nullInstance();
+		for(FunctionSignature signature: signatures) {
+			if(signature.accepts(types)) {
+				expected = signature;
+				break;
+			}
+		}
+		assertSame(operator + " " + types, expected, FunctionSignatures.signature(operator, types));
+	}
+}
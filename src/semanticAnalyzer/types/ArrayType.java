@@ -1,22 +1,50 @@
 package semanticAnalyzer.types;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 public class ArrayType implements Type{
 
 	private Type subType;
+	private final boolean interned;
 
-	public ArrayType(Type subtype) {
-		this.subType = subtype;
+	// array types whose innermost subtype is primitive, by subtype.  Only these are interned:
+	// array types of tuples are rewritten in place when trivial tuples are eliminated, and
+	// array types of type variables stand for many types.
+	private static final ConcurrentMap<Type, ArrayType> internedTypes = new ConcurrentHashMap<Type, ArrayType>();
+	
+	public static ArrayType arrayOf(Type subtype) {
+		if(!isInternable(subtype)) {
+			return new ArrayType(subtype, false);
+		}
+		ArrayType result = internedTypes.get(subtype);
+		if(result == null) {
+			ArrayType created = new ArrayType(subtype, true);
+			result = internedTypes.putIfAbsent(subtype, created);
+			result = (result == null) ? created : result;
+		}
+		return result;
 	}
-	public ArrayType() {
-		this.subType = null;
+	private static boolean isInternable(Type subtype) {
+		return (subtype instanceof PrimitiveType) ||
+				(subtype instanceof ArrayType) && ((ArrayType)subtype).interned;
 	}
 	
+	private ArrayType(Type subtype, boolean interned) {
+		this.subType = subtype;
+		this.interned = interned;
+	}
+	
+	// two interned array types are equal only if they are the same object.
 	@Override
 	public boolean equals(Object otherType) {
 		assert otherType instanceof Type;
 		assert otherType != null;
 		assert subType != null;
 		
+		if(interned && (otherType instanceof ArrayType) && ((ArrayType)otherType).interned) {
+			return this == otherType;
+		}
 		if(otherType instanceof PrimitiveType)
 			return false;
 		else if(otherType instanceof ArrayType)
@@ -50,6 +78,9 @@ public class ArrayType implements Type{
 	public Type getSubType() {
 		return subType;
 	}
+	public boolean isInterned() {
+		return interned;
+	}
 	public boolean isReferenceType() {
 		return true;
 	}
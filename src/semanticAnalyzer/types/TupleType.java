@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
 
+import context.CompilationContext;
 import logging.GrouseLogger;
 import parseTree.ParseNode;
 import parseTree.nodeTypes.*;
@@ -19,9 +20,7 @@ public class TupleType implements Type{
 	private TupleType refferedType;						// Name of reffered tuple if defined by another tuple
 	private String tupleAttributeTable;
 	private String printSubRoutine;
-	private int typeId;
-	
-	private static int TypeIdCount = 100;
+	private int typeId;		// numbered per compilation, from the CompilationContext
 	
 	
 	public TupleType(String name) {
@@ -89,13 +88,13 @@ public class TupleType implements Type{
 	}
 
 	// path compression
-	public void compressPath() {		
+	public void compressPath(CompilationContext context) {		
 		TupleType current = this;
 		List<TupleType> Path= new Vector<TupleType>();
 		
 		while(current.refferedType != null) {		
 			if(Path.contains(current)) {
-				CircledTupleDefinitionError();
+				CircledTupleDefinitionError(context);
 				return;
 			}
 			Path.add(current);
@@ -105,7 +104,7 @@ public class TupleType implements Type{
 		assert symbolTable != null;
 		
 		if(!this.isTrivial()) {
-			this.typeId = TypeIdCount++;
+			this.typeId = context.nextTupleTypeId();
 		}
 	}
 	
@@ -220,10 +219,6 @@ public class TupleType implements Type{
 		return this.symbolTable;
 	}
 	
-	public static int getTypeIDCount() {
-		return TypeIdCount;
-	}
-	
 	public String getAttributeTableLabel() {
 		return this.tupleAttributeTable;
 	}
@@ -233,8 +228,8 @@ public class TupleType implements Type{
 	}
 	////////////////////////////////////////////////////////////
 	// error logging
-	public void CircledTupleDefinitionError() {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.semanticAnalyzer.identifierNode");
+	public void CircledTupleDefinitionError(CompilationContext context) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.semanticAnalyzer.identifierNode");
 		log.severe("Circled definition of tuple Type: " + this.infoString());
 	}
 	
@@ -7,17 +7,8 @@ public class TupleTypeVariable extends TypeVariable implements Type{
 	}
 	
 	@Override
-	public boolean equals(Object otherType) {
-		assert otherType instanceof Type;
-		if(this.type == null) {
-			if(!(otherType instanceof TupleType)) {
-				return false;
-			}
-			this.type = (TupleType)otherType;
-			return true;
-		}
-		
-		return otherType.equals(this.type);
+	public boolean canBind(Type type) {
+		return type instanceof TupleType;
 	}
 	
 }
@@ -1,32 +1,19 @@
 package semanticAnalyzer.types;
 
+// a variable of the operator signatures.  What it stands for is found anew each time a
+// signature is matched against argument types (see FunctionSignature), so a variable has
+// no state, and the signatures can be shared by every compilation.
 public class TypeVariable implements Type{
 
-	protected Type type;
 	private String name;
 	
 	public TypeVariable(String name) {
 		this.name = name;
-		this.type = null;
 	}
 	
-	public boolean equals(Object otherType) {
-		assert otherType instanceof Type;
-				
-		if(this.type == null) {
-			this.type = (Type)otherType;
-			return true;
-		} else {
-			return otherType.equals(this.type);	
-		}
-			
-	}
-	
-	public Type getType() {
-		return this.type;
-	}
-	public void reset() {
-		this.type = null;
+	// true if this variable can stand for type.
+	public boolean canBind(Type type) {
+		return true;
 	}
 	//////////////////////////////////////////////
 	public boolean isReferenceType() {
@@ -34,14 +21,10 @@ public class TypeVariable implements Type{
 	}
 	
  	public int getSize() {
-		return type.getSize();
+		throw new IllegalStateException("type variable " + name + " has no size");
 	}
 	
 	public String infoString() {
-		if(type instanceof ArrayType) {
-			return "Type Variable " + name+ "Array of " + ((ArrayType)type).infoString();
-		}
-		else
-			return "Type Variable " + name+ "Array of " + type.toString();
+		return "Type Variable " + name;
 	}
 }
@@ -1,7 +1,7 @@
 package symbolTable;
 
 import asmCodeGenerator.codeStorage.ASMCodeFragment;
-import inputHandler.TextLocation;
+import inputHandler.SourcePositions;
 import semanticAnalyzer.types.PrimitiveType;
 import semanticAnalyzer.types.Type;
 
@@ -9,16 +9,16 @@ public class Binding {
 	private Type type;
 	private boolean immutablity;
 	private boolean canBeShadowed;
-	private TextLocation textLocation;
+	private long position;
 	private MemoryLocation memoryLocation;
 	private String lexeme;
 	
-	public Binding(Type type, TextLocation location, MemoryLocation memoryLocation, String lexeme) {
+	public Binding(Type type, long position, MemoryLocation memoryLocation, String lexeme) {
 		super();
 		this.type = type;
 		this.immutablity = true;				// immutablity is set to false by default
 		this.canBeShadowed = true;				// can be shadowed by default
-		this.textLocation = location;
+		this.position = position;
 		this.memoryLocation = memoryLocation;
 		this.lexeme = lexeme;
 	}
@@ -26,7 +26,7 @@ public class Binding {
 
 	public String toString() {
 		return "[" + lexeme +
-				" " + type +  // " " + textLocation +	
+				" " + type +  // " " + getLocation() +	
 				" isImmutable:" + immutablity + 
 				" canBeShadowed" + canBeShadowed +
 				" " + memoryLocation +
@@ -53,10 +53,10 @@ public class Binding {
 	public void setShadow(boolean can_be_shadowed) {
 		this.canBeShadowed = can_be_shadowed;
 	}
- 	public TextLocation getLocation() {
-		return textLocation;
+ 	public long getPosition() {
+		return position;
 	}
- 	public void setMemoryLocation(MemoryLocation location) {
+  	public void setMemoryLocation(MemoryLocation location) {
  		this.memoryLocation = location;
  	}
 	public MemoryLocation getMemoryLocation() {
@@ -74,16 +74,15 @@ public class Binding {
 		return NullBinding.getInstance();
 	}
 	private static class NullBinding extends Binding {
-		private static NullBinding instance=null;
+		// made when the class is first used, so threads compiling at once share one.
+		private static final NullBinding instance = new NullBinding();
 		private NullBinding() {
 			super(PrimitiveType.ERROR,
-					TextLocation.nullInstance(),
+					SourcePositions.NO_POSITION,
 					MemoryLocation.nullInstance(),
 					"the-null-binding");
 		}
 		public static NullBinding getInstance() {
-			if(instance==null)
-				instance = new NullBinding();
 			return instance;
 		}
 	}
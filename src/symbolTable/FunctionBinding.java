@@ -1,6 +1,5 @@
 package symbolTable;
 
-import inputHandler.TextLocation;
 import semanticAnalyzer.signatures.FunctionSignature;
 import semanticAnalyzer.types.Type;
 
@@ -10,9 +9,9 @@ public class FunctionBinding extends Binding{
 	private String funcStartLabel;
 	private String returnLabel;
 	
-	public FunctionBinding(Type type, TextLocation location,
+	public FunctionBinding(Type type, long position,
 			MemoryLocation memoryLocation, String lexeme) {
-		super(type, location, memoryLocation, lexeme);
+		super(type, position, memoryLocation, lexeme);
 		this.signature = null;
 		this.funcStartLabel = "$$function-start-label-" + lexeme;
 		this.returnLabel = "$$function-return-label-" + lexeme;
@@ -13,9 +13,6 @@ public class ParameterMemoryAllocator implements MemoryAllocator {
 	List<Integer> bookmarks;
 	List<MemoryLocation> memLocations;
 	
-	// return variables use positive allocate schema
-	static int i = 0;
-	
 	
 	public ParameterMemoryAllocator(MemoryAccessMethod accessor, String baseAddress, int startingOffset) {
 		this.accessor = accessor;
@@ -25,7 +22,6 @@ public class ParameterMemoryAllocator implements MemoryAllocator {
 		this.minOffset = startingOffset;
 		this.bookmarks = new ArrayList<Integer>();
 		this.memLocations = new ArrayList<MemoryLocation>();
-		i = 0;
 	}
 	public ParameterMemoryAllocator(MemoryAccessMethod accessor, String baseAddress) {
 		this(accessor, baseAddress, 0);
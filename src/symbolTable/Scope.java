@@ -1,33 +1,41 @@
 package symbolTable;
 
-import inputHandler.TextLocation;
-import logging.GrouseLogger;
+import java.util.HashMap;
+import java.util.Map;
+
+import context.CompilationContext;
+import inputHandler.SourcePositions;
 import parseTree.nodeTypes.IdentifierNode;
 import semanticAnalyzer.types.Type;
 import tokens.Token;
 
 public class Scope {
+	private final CompilationContext context;		// the compilation whose errors this scope logs
 	private Scope baseScope;
+	private Scope enclosingScope;		// lexically enclosing scope, null when outermost
+	private Scope outermostScope;
 	private MemoryAllocator allocator;
 	private SymbolTable symbolTable;
+	private Map<String, Integer> declarationCounts;		// kept by the outermost scope only
+	private Map<String, Resolution> resolutions;
 	
 //////////////////////////////////////////////////////////////////////
 // factories
 
-	public static Scope createProgramScope() {
-		return new Scope(programScopeAllocator(), nullInstance());
+	public static Scope createProgramScope(CompilationContext context) {
+		return new Scope(context, programScopeAllocator(), nullInstance());
 	}
-	public static Scope createTupleScope() {
-		return new Scope(tupleScopeAllocator(), nullInstance());
+	public static Scope createTupleScope(CompilationContext context) {
+		return new Scope(context, tupleScopeAllocator(), nullInstance());
 	}
-	public static Scope createParameterScope() {
-		return new Scope(parameterScopeAllocator(), nullInstance());
+	public static Scope createParameterScope(CompilationContext context) {
+		return new Scope(context, parameterScopeAllocator(), nullInstance());
 	}
-	public static Scope createProcedureScope() {
-		return new Scope(procedureScopeAllocator(), nullInstance());
+	public static Scope createProcedureScope(CompilationContext context) {
+		return new Scope(context, procedureScopeAllocator(), nullInstance());
 	}
 	public Scope createSubscope() {
-		return new Scope(allocator, this);
+		return new Scope(context, allocator, this);
 	}
 	
 	private static MemoryAllocator programScopeAllocator() {
@@ -61,10 +69,14 @@ public class Scope {
 	
 //////////////////////////////////////////////////////////////////////
 // private constructor.	
-	private Scope(MemoryAllocator allocator, Scope baseScope) {
+	private Scope(CompilationContext context, MemoryAllocator allocator, Scope baseScope) {
 		super();
+		this.context = context;
 		this.baseScope = (baseScope == null) ? this : baseScope;
 		this.symbolTable = new SymbolTable();
+		this.outermostScope = this;
+		this.declarationCounts = new HashMap<String, Integer>();
+		this.resolutions = new HashMap<String, Resolution>();
 		
 		this.allocator = allocator;
 		//allocator.saveState();			// seperate saveState() from enterScope; Scope can be created without entered.
@@ -84,6 +96,78 @@ public class Scope {
 	public void enterScope() {
 		this.allocator.saveState();
 	}
+	public Scope getEnclosingScope() {
+		return enclosingScope;
+	}
+	public void setEnclosingScope(Scope enclosingScope) {
+		this.enclosingScope = enclosingScope;
+		this.outermostScope = (enclosingScope == null) ? this : enclosingScope.outermostScope;
+		resolutions.clear();
+	}
+	
+///////////////////////////////////////////////////////////////////////
+//lookup through the enclosing scopes
+//
+// a lookup leaves its result in every scope it walked through, stamped with the number of
+// declarations of the identifier made so far anywhere under the outermost scope.  Until
+// another declaration of it, a lookup from a nested scope stops at the first of those.
+	private static class Resolution {
+		private final Scope declaringScope;			// null if the identifier is not declared
+		private final int declarationCount;
+		
+		Resolution(Scope declaringScope, int declarationCount) {
+			this.declaringScope = declaringScope;
+			this.declarationCount = declarationCount;
+		}
+	}
+	
+	// the innermost scope, this one or an enclosing one, declaring identifier; null if none does.
+	public Scope declaringScopeOf(String identifier) {
+		int declarationCount = outermostScope.declarationCount(identifier);
+		if(declarationCount == 0) {
+			return null;
+		}
+		Scope result = null;
+		Scope current = this;
+		for( ; current != null; current = current.enclosingScope) {
+			if(current.symbolTable.containsKey(identifier)) {
+				result = current;
+				break;
+			}
+			Resolution resolution = current.resolutions.get(identifier);
+			if(resolution != null && resolution.declarationCount == declarationCount) {
+				result = resolution.declaringScope;
+				break;
+			}
+		}
+		
+		Resolution resolution = new Resolution(result, declarationCount);
+		for(Scope walked = this; walked != current; walked = walked.enclosingScope) {
+			walked.resolutions.put(identifier, resolution);
+		}
+		return result;
+	}
+	// false if this scope or any enclosing one has a binding of identifier that cannot be shadowed.
+	public boolean allowsShadowingOf(String identifier) {
+		Scope declaring = declaringScopeOf(identifier);
+		while(declaring != null) {
+			if(!declaring.symbolTable.lookup(identifier).canBeShadowed()) {
+				return false;
+			}
+			Scope enclosing = declaring.enclosingScope;
+			declaring = (enclosing == null) ? null : enclosing.declaringScopeOf(identifier);
+		}
+		return true;
+	}
+	
+	private int declarationCount(String identifier) {
+		Integer count = declarationCounts.get(identifier);
+		return (count == null) ? 0 : count;
+	}
+	private void install(String lexeme, Binding binding) {
+		symbolTable.install(lexeme, binding);
+		outermostScope.declarationCounts.put(lexeme, outermostScope.declarationCount(lexeme) + 1);
+	}
 	
 ///////////////////////////////////////////////////////////////////////
 //memory allocation
@@ -99,40 +183,40 @@ public class Scope {
 //bindings
 	public Binding createBinding(IdentifierNode identifierNode, Type type) {
 		Token token = identifierNode.getToken();
-		symbolTable.errorIfAlreadyDefined(token);
+		symbolTable.errorIfAlreadyDefined(context, token);
 				
 		String lexeme = token.getLexeme();
-		Binding binding = allocateNewBinding(type, token.getLocation(), lexeme);	
-		symbolTable.install(lexeme, binding);
+		Binding binding = allocateNewBinding(type, token.getPosition(), lexeme);	
+		install(lexeme, binding);
 
 		return binding;
 	}
 	public Binding createBinding(String lexeme, Type type) {
-		symbolTable.errorIfAlreadyDefined(lexeme);
+		symbolTable.errorIfAlreadyDefined(context, lexeme);
 				
-		Binding binding = allocateNewBinding(type, new TextLocation("currentTest.grouse", -1, -1), lexeme);	
-		symbolTable.install(lexeme, binding);
+		Binding binding = allocateNewBinding(type, SourcePositions.NO_POSITION, lexeme);	
+		install(lexeme, binding);
 
 		return binding;
 	}
 	public Binding createBinding(Binding binding) {
-		symbolTable.errorIfAlreadyDefined(binding.getLexeme());
-		symbolTable.install(binding.getLexeme(), binding);
+		symbolTable.errorIfAlreadyDefined(context, binding.getLexeme());
+		install(binding.getLexeme(), binding);
 		return binding;
 	}
-	private Binding allocateNewBinding(Type type, TextLocation textLocation, String lexeme) {
+	private Binding allocateNewBinding(Type type, long position, String lexeme) {
 		MemoryLocation memoryLocation = allocator.allocate(type.getSize());
-		return new Binding(type, textLocation, memoryLocation, lexeme);
+		return new Binding(type, position, memoryLocation, lexeme);
 	}
 	
 	
 // return variable bindings
 // accepts a memory location
 	public Binding createReturnVariableBinding(Type type, String lexeme, MemoryLocation memLocation) {
-		symbolTable.errorIfAlreadyDefined(lexeme);
+		symbolTable.errorIfAlreadyDefined(context, lexeme);
 		
-		Binding binding = new Binding(type, new TextLocation("input_file", -1, -1), memLocation, lexeme);
-		symbolTable.install(lexeme, binding);
+		Binding binding = new Binding(type, SourcePositions.NO_POSITION, memLocation, lexeme);
+		install(lexeme, binding);
 		
 		return binding;
 	}
@@ -140,35 +224,35 @@ public class Scope {
 // takes 0 bytes in globalSymbolTable
  	public Binding createFunctionBinding(IdentifierNode identifierNode, Type type) {
 		Token token = identifierNode.getToken();
-		symbolTable.errorIfAlreadyDefined(token);
+		symbolTable.errorIfAlreadyDefined(context, token);
 				
 		String lexeme = token.getLexeme();
-		Binding binding = allocateNewFunctionBinding(type, token.getLocation(), lexeme);	
-		symbolTable.install(lexeme, binding);
+		Binding binding = allocateNewFunctionBinding(type, token.getPosition(), lexeme);	
+		install(lexeme, binding);
 
 		return binding;
 	}
 	
-	private Binding allocateNewFunctionBinding(Type type, TextLocation textLocation, String lexeme) {
+	private Binding allocateNewFunctionBinding(Type type, long position, String lexeme) {
 		MemoryLocation memoryLocation = allocator.allocate(0);
-		return new FunctionBinding(type, textLocation, memoryLocation, lexeme);
+		return new FunctionBinding(type, position, memoryLocation, lexeme);
 	}
 	
 // tuple bindings	
 // takes 0 bytes in globalSymbolTable
 	public Binding createTupleBinding(IdentifierNode identifierNode, Type type) {
 		Token token = identifierNode.getToken();
-		symbolTable.errorIfAlreadyDefined(token);
+		symbolTable.errorIfAlreadyDefined(context, token);
 				
 		String lexeme = token.getLexeme();
-		Binding binding = allocateNewTupleBinding(type, token.getLocation(), lexeme);	
-		symbolTable.install(lexeme, binding);
+		Binding binding = allocateNewTupleBinding(type, token.getPosition(), lexeme);	
+		install(lexeme, binding);
 
 		return binding;
 	}
-	private Binding allocateNewTupleBinding(Type type, TextLocation textLocation, String lexeme) {
+	private Binding allocateNewTupleBinding(Type type, long position, String lexeme) {
 		MemoryLocation memoryLocation = allocator.allocate(0);
-		return new TupleBinding(type, textLocation, memoryLocation, lexeme);
+		return new TupleBinding(type, position, memoryLocation, lexeme);
 	}
 	
 	
@@ -184,6 +268,8 @@ public class Scope {
 
 ////////////////////////////////////////////////////////////////////////////////////
 //Null Scope object - lazy singleton (Lazy Holder) implementation pattern
+// it belongs to no compilation, so nothing can be declared in it: every node of an analyzed
+// tree is under the program's scope, and reaching the null scope is a compiler error.
 	public static Scope nullInstance() {
 		return NullScope.instance;
 	}
@@ -191,7 +277,8 @@ public class Scope {
 		private static NullScope instance = new NullScope();
 
 		private NullScope() {
-			super(	new PositiveMemoryAllocator(MemoryAccessMethod.NULL_ACCESS, "", 0),
+			super(	null,
+					new PositiveMemoryAllocator(MemoryAccessMethod.NULL_ACCESS, "", 0),
 					null);
 		}
 		public String toString() {
@@ -199,22 +286,29 @@ public class Scope {
 		}
 		@Override
 		public Binding createBinding(IdentifierNode identifierNode, Type type) {
-			unscopedIdentifierError(identifierNode.getToken());
-			return super.createBinding(identifierNode, type);
+			throw unscopedIdentifierError(identifierNode.getToken());
 		}
-		// subscopes of null scope need their own strategy.  Assumes global block is static.
+		@Override
 		public Scope createSubscope() {
-			return new Scope(programScopeAllocator(), this);
+			throw new IllegalStateException("scope created outside of any scope");
+		}
+		// the null scope is never attached to a node, so it declares nothing.
+		@Override
+		public Scope declaringScopeOf(String identifier) {
+			return null;
+		}
+		@Override
+		public boolean allowsShadowingOf(String identifier) {
+			return true;
 		}
 	}
 
 
 ///////////////////////////////////////////////////////////////////////
 //error reporting
-	private static void unscopedIdentifierError(Token token) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.scope");
-		log.severe("variable " + token.getLexeme() + 
-				" used outside of any scope at " + token.getLocation());
+	private static IllegalStateException unscopedIdentifierError(Token token) {
+		return new IllegalStateException("variable " + token.getLexeme() + 
+				" declared outside of any scope");
 	}
 
 }
@@ -1,17 +1,16 @@
 package symbolTable;
-import inputHandler.TextLocation;
 import semanticAnalyzer.types.Type;
 
 public class StaticBinding extends Binding{
 	
 	private String isInitializedLabel;
-	private static int n = 0;
 	
-	public StaticBinding(Type type, TextLocation location,
-			MemoryLocation memoryLocation, String lexeme) {
-		super(type, location, memoryLocation, lexeme);
+	// number is unique among the static bindings of a compilation; see CompilationContext.
+	public StaticBinding(Type type, long position,
+			MemoryLocation memoryLocation, String lexeme, int number) {
+		super(type, position, memoryLocation, lexeme);
 		
-		this.isInitializedLabel = "$static-variable-isInitialized-" + n++;
+		this.isInitializedLabel = "$static-variable-isInitialized-" + number;
 	}
 	
 	public String getIndicatorLabel() {
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import context.CompilationContext;
 import logging.GrouseLogger;
 import semanticAnalyzer.types.Type;
 import tokens.Token;
@@ -59,23 +60,23 @@ public class SymbolTable {
 	///////////////////////////////////////////////////////////////////////
 	//error reporting
 
-	public void errorIfAlreadyDefined(Token token) {
+	public void errorIfAlreadyDefined(CompilationContext context, Token token) {
 		if(containsKey(token.getLexeme())) {		
-			multipleDefinitionError(token);
+			multipleDefinitionError(context, token);
 		}
 	}
-	public void errorIfAlreadyDefined(String identifier) {
+	public void errorIfAlreadyDefined(CompilationContext context, String identifier) {
 		if(containsKey(identifier)) {
-			GrouseLogger log = GrouseLogger.getLogger("compiler.symbolTable");
+			GrouseLogger log = GrouseLogger.getLogger(context, "compiler.symbolTable");
 			log.severe("variable \"" + identifier + 
 					          "\" multiply defined");
 		}
 	}
 	
-	protected static void multipleDefinitionError(Token token) {
-		GrouseLogger log = GrouseLogger.getLogger("compiler.symbolTable");
+	protected static void multipleDefinitionError(CompilationContext context, Token token) {
+		GrouseLogger log = GrouseLogger.getLogger(context, "compiler.symbolTable");
 		log.severe("variable \"" + token.getLexeme() + 
-				          "\" multiply defined at " + token.getLocation());
+				          "\" multiply defined at " + context.locationOf(token.getPosition()));
 	}
 
 	///////////////////////////////////////////////////////////////////////
@@ -1,13 +1,12 @@
 package symbolTable;
 
-import inputHandler.TextLocation;
 import semanticAnalyzer.types.Type;
 
 public class TupleBinding extends Binding{
 
-	public TupleBinding(Type type, TextLocation location,
+	public TupleBinding(Type type, long position,
 			MemoryLocation memoryLocation, String lexeme) {
-		super(type, location, memoryLocation, lexeme);
+		super(type, position, memoryLocation, lexeme);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package symbolTable.tests;
+
+import context.CompilationContext;
+import semanticAnalyzer.types.PrimitiveType;
+import symbolTable.Scope;
+import tests.FileFixturesTestCase;
+
+public class TestScope extends FileFixturesTestCase {
+	private static final int DEPTH = 100000;
+
+	public void testInnermostDeclarationFound() {
+		Scope program = Scope.createProgramScope(new CompilationContext());
+		Scope outer = subscope(program);
+		Scope inner = subscope(outer);
+		program.createBinding("a", PrimitiveType.INTEGER);
+
+		assertSame(program, inner.declaringScopeOf("a"));
+		assertNull(inner.declaringScopeOf("b"));
+
+		// a declaration after a lookup must be seen by the next lookup.
+		outer.createBinding("a", PrimitiveType.INTEGER);
+		assertSame(outer, inner.declaringScopeOf("a"));
+		assertSame(program, program.declaringScopeOf("a"));
+	}
+
+	public void testShadowingCheckedThroughAllDeclarations() {
+		Scope program = Scope.createProgramScope(new CompilationContext());
+		Scope outer = subscope(program);
+		Scope inner = subscope(outer);
+		program.createBinding("f", PrimitiveType.INTEGER).setShadow(false);
+		outer.createBinding("f", PrimitiveType.INTEGER);
+
+		assertFalse(inner.allowsShadowingOf("f"));
+		assertTrue(inner.allowsShadowingOf("g"));
+	}
+
+	public void testDeepChainLookup() {
+		Scope program = Scope.createProgramScope(new CompilationContext());
+		program.createBinding("a", PrimitiveType.INTEGER);
+		Scope scope = program;
+		for(int i = 0; i < DEPTH; i++) {
+			scope = subscope(scope);
+			scope.createBinding("b" + i, PrimitiveType.INTEGER);
+			assertTrue(scope.allowsShadowingOf("c" + i));
+			assertSame(program, scope.declaringScopeOf("a"));
+		}
+	}
+
+	private Scope subscope(Scope scope) {
+		Scope result = scope.createSubscope();
+		result.setEnclosingScope(scope);
+		return result;
+	}
+}
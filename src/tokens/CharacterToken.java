@@ -1,13 +1,11 @@
 package tokens;
 
-import inputHandler.TextLocation;
-
 public class CharacterToken extends TokenImp{
 
 	protected char value;
 	
-	protected CharacterToken(TextLocation location, String lexeme) {
-		super(location, lexeme);
+	protected CharacterToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 	protected void setValue(char lexeme) {
 		this.value = lexeme;
@@ -16,9 +14,9 @@ public class CharacterToken extends TokenImp{
 		return value;
 	}
 	
-	public static CharacterToken make(TextLocation location, String lexeme) {
+	public static CharacterToken make(long position, String lexeme) {
 		assert lexeme.length()==1;
-		CharacterToken result = new CharacterToken(location, lexeme);
+		CharacterToken result = new CharacterToken(position, lexeme);
 		result.setValue(lexeme.charAt(0));
 		return result;
 	}
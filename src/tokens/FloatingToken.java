@@ -1,12 +1,10 @@
 package tokens;
 
-import inputHandler.TextLocation;
-
 public class FloatingToken extends TokenImp {
 	protected double value;
 	
-	protected FloatingToken(TextLocation location, String lexeme) {
-		super(location, lexeme);
+	protected FloatingToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 	protected void setValue(double value) {
 		this.value = value;
@@ -15,8 +13,8 @@ public class FloatingToken extends TokenImp {
 		return value;
 	}
 	
-	public static FloatingToken make(TextLocation location, String lexeme) {
-		FloatingToken result = new FloatingToken(location, lexeme);
+	public static FloatingToken make(long position, String lexeme) {
+		FloatingToken result = new FloatingToken(position, lexeme);
 		//System.out.println(lexeme);
 		//System.out.println("shitshitshitshit");
 		result.setValue(Double.parseDouble(lexeme));
@@ -1,14 +1,13 @@
 package tokens;
 
-import inputHandler.TextLocation;
-
 public class IdentifierToken extends TokenImp {
-	protected IdentifierToken(TextLocation location, String lexeme) {
-		super(location, lexeme.intern());
+	protected IdentifierToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 	
-	public static IdentifierToken make(TextLocation location, String lexeme) {
-		IdentifierToken result = new IdentifierToken(location, lexeme);
+	// lexeme is the instance from the lexer's IdentifierTable.
+	public static IdentifierToken make(long position, String lexeme) {
+		IdentifierToken result = new IdentifierToken(position, lexeme);
 		return result;
 	}
 
@@ -1,14 +1,13 @@
 package tokens;
 
 import lexicalAnalyzer.Lextant;
-import inputHandler.TextLocation;
 
 public final class LextantToken extends TokenImp {
 
 	private Lextant lextant;
 	
-	private LextantToken(TextLocation location, String lexeme, Lextant lextant) {
-		super(location, lexeme);
+	private LextantToken(long position, String lexeme, Lextant lextant) {
+		super(position, lexeme);
 		this.lextant = lextant;
 	}
 	
@@ -27,7 +26,7 @@ public final class LextantToken extends TokenImp {
 	}
 	
 	
-	public static LextantToken make(TextLocation location, String lexeme, Lextant lextant) {
-		return new LextantToken(location, lexeme, lextant);
+	public static LextantToken make(long position, String lexeme, Lextant lextant) {
+		return new LextantToken(position, lexeme, lextant);
 	}
 }
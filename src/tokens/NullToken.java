@@ -1,11 +1,9 @@
 package tokens;
 
-import inputHandler.TextLocation;
-
 public class NullToken extends TokenImp {
 
-	protected NullToken(TextLocation location, String lexeme) {
-		super(location, lexeme);
+	protected NullToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 
 	@Override
@@ -13,8 +11,8 @@ public class NullToken extends TokenImp {
 		return "END OF INPUT";
 	}
 	
-	public static NullToken make(TextLocation location) {
-		NullToken result = new NullToken(location, "");
+	public static NullToken make(long position) {
+		NullToken result = new NullToken(position, "");
 		return result;
 	}
 }
@@ -1,12 +1,10 @@
 package tokens;
 
-import inputHandler.TextLocation;
-
 public class NumberToken extends TokenImp {
 	protected int value;
 	
-	protected NumberToken(TextLocation location, String lexeme) {
-		super(location, lexeme);
+	protected NumberToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 	protected void setValue(int value) {
 		this.value = value;
@@ -15,8 +13,8 @@ public class NumberToken extends TokenImp {
 		return value;
 	}
 	
-	public static NumberToken make(TextLocation location, String lexeme) {
-		NumberToken result = new NumberToken(location, lexeme);
+	public static NumberToken make(long position, String lexeme) {
+		NumberToken result = new NumberToken(position, lexeme);
 		result.setValue(Integer.parseInt(lexeme));
 		return result;
 	}
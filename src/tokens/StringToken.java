@@ -1,12 +1,11 @@
 package tokens;
-import inputHandler.TextLocation;
 
 public class StringToken extends TokenImp{
 
 	protected String value;
 	
-	protected StringToken(TextLocation location, String lexeme) {
-		super(location, lexeme);
+	protected StringToken(long position, String lexeme) {
+		super(position, lexeme);
 	}
 	protected void setValue(String value) {
 		this.value = value;
@@ -15,8 +14,8 @@ public class StringToken extends TokenImp{
 		return value;
 	}
 	
-	public static StringToken make(TextLocation location, String lexeme) {
-		StringToken result = new StringToken(location, lexeme);
+	public static StringToken make(long position, String lexeme) {
+		StringToken result = new StringToken(position, lexeme);
 		result.setValue(lexeme);
 		return result;
 	}
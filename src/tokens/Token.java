@@ -1,12 +1,12 @@
 package tokens;
 
 import lexicalAnalyzer.Lextant;
-import inputHandler.TextLocation;
+import inputHandler.SourcePositions;
 
 public interface Token {
 	public String getLexeme();
-	public TextLocation getLocation();
-	public String fullString();
+	public long getPosition();
+	public String fullString(SourcePositions sources);
 	public boolean isLextant(Lextant ...lextants);
 }
 
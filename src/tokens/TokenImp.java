@@ -1,15 +1,15 @@
 package tokens;
 
 import lexicalAnalyzer.Lextant;
-import inputHandler.TextLocation;
+import inputHandler.SourcePositions;
 
 public abstract class TokenImp implements Token {
-	private TextLocation location;
+	private long position;
 	private String lexeme;
 
-	protected TokenImp(TextLocation location, String lexeme) {
+	protected TokenImp(long position, String lexeme) {
 		super();
-		this.location = location;
+		this.position = position;
 		this.lexeme = lexeme;
 	}
 
@@ -18,8 +18,8 @@ public abstract class TokenImp implements Token {
 		return lexeme;
 	}
 	@Override
-	public TextLocation getLocation() {
-		return location;
+	public long getPosition() {
+		return position;
 	}
 	
 	/** A string (not surrounded by parentheses) representing the subclass information.
@@ -32,10 +32,11 @@ public abstract class TokenImp implements Token {
 	}
 	
 	/** convert to a string containing all information about the token.
+	 * @param sources the registry of the compilation the token was read in.
 	 * @return string with all token info.
 	 */
-	public String fullString() {
-		String locationString = location == null ? "(no text location)" : location.toString();
+	public String fullString(SourcePositions sources) {
+		String locationString = position == SourcePositions.NO_POSITION ? "(no text location)" : sources.locationOf(position).toString();
 		return "(" + rawString() + 
 			   ", " + locationString +
 			   ", " + lexeme +